@@ -47,12 +47,47 @@ public abstract class AbstractEvent
      */
     private static final long serialVersionUID = 1L;
 
+    /** The queue index of an event which is not in an event set. */
+    static final int NOT_QUEUED = -1;
+
     /** The time the event takes place. */
     protected double time;
 
     /** The experiment the even is associated with. */
     private Experiment experiment;
 
+    /**
+     * The order in which the event was added to its event queue.
+     * Breaks ties between events which occur at the same time.
+     */
+    long sequence;
+
+    /**
+     * Where the event is held by its event set, or {@link #NOT_QUEUED}.
+     * This is the heap position for {@link BinaryHeapEventSet} and the
+     * bucket for {@link CalendarQueueEventSet}. It lets an event set
+     * find the event directly when it is cancelled.
+     */
+    int queueIndex = NOT_QUEUED;
+
+    /**
+     * The event set holding the event, or null if it isn't queued.
+     * Stops one queue from unlinking an event held by another.
+     */
+    EventSet owner;
+
+    /**
+     * The next event in the same calendar queue bucket.
+     * Only used by {@link CalendarQueueEventSet}.
+     */
+    AbstractEvent nextInBucket;
+
+    /**
+     * The previous event in the same calendar queue bucket.
+     * Only used by {@link CalendarQueueEventSet}.
+     */
+    AbstractEvent previousInBucket;
+
     /**
      * A constructor for subclasses to use.
      * @param theTime - The time the event occurs at
@@ -73,6 +108,28 @@ public abstract class AbstractEvent
         return this.time;
     }
 
+    /**
+     * Checks if the event is currently waiting in an event queue.
+     *
+     * @return if the event is waiting in an event queue
+     */
+    public final boolean isQueued() {
+        return this.queueIndex != NOT_QUEUED;
+    }
+
+    /**
+     * Fails the simulation if the event is held by a different event set
+     * than the one about to change it.
+     *
+     * @param set - the event set about to change the event
+     */
+    final void checkOwner(final EventSet set) {
+        if (this.owner != null && this.owner != set) {
+            Sim.fatalError("Event " + this.getClass()
+                           + " is held by a different event queue");
+        }
+    }
+
     /**
      * Get the experiment the event happens in.
      * @return the experiment the event happens in
@@ -89,9 +146,7 @@ public abstract class AbstractEvent
      * comparing the times of the two events
      */
     public final int compareTo(final Event otherEvent) {
-        Double thisTime = this.time;
-        Double otherTime = new Double(otherEvent.getTime());
-        return thisTime.compareTo(otherTime);
+        return Double.compare(this.time, otherEvent.getTime());
     }
 
 }
@@ -0,0 +1,213 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package core;
+
+/**
+ * An array backed binary min-heap of events.
+ * Times are compared as primitive doubles with the sequence number
+ * as a tie breaker. Each event records its position in the heap,
+ * so cancelling an event is O(log n) rather than a linear search.
+ */
+final class BinaryHeapEventSet implements EventSet {
+
+    /** The serialization id. */
+    private static final long serialVersionUID = 1L;
+
+    /** The initial capacity of the heap. */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** The heap of events. The earliest event is at index 0. */
+    private AbstractEvent[] heap;
+
+    /** The number of events in the heap. */
+    private int size;
+
+    /**
+     * Creates a new, empty BinaryHeapEventSet.
+     */
+    BinaryHeapEventSet() {
+        this.heap = new AbstractEvent[INITIAL_CAPACITY];
+        this.size = 0;
+    }
+
+    /**
+     * Checks if one event occurs before another.
+     *
+     * @param first - the first event
+     * @param second - the second event
+     * @return if the first event occurs before the second event
+     */
+    static boolean before(final AbstractEvent first,
+                          final AbstractEvent second) {
+        if (first.time < second.time) {
+            return true;
+        } else if (first.time > second.time) {
+            return false;
+        }
+
+        return first.sequence < second.sequence;
+    }
+
+    @Override
+    public void add(final AbstractEvent event) {
+        if (this.size == this.heap.length) {
+            AbstractEvent[] grown = new AbstractEvent[this.heap.length * 2];
+            System.arraycopy(this.heap, 0, grown, 0, this.size);
+            this.heap = grown;
+        }
+        this.siftUp(this.size, event);
+        event.owner = this;
+        this.size++;
+    }
+
+    @Override
+    public AbstractEvent poll() {
+        if (this.size == 0) {
+            return null;
+        }
+
+        AbstractEvent first = this.heap[0];
+        first.queueIndex = AbstractEvent.NOT_QUEUED;
+        first.owner = null;
+        this.size--;
+        AbstractEvent last = this.heap[this.size];
+        this.heap[this.size] = null;
+        if (this.size > 0) {
+            this.siftDown(0, last);
+        }
+
+        return first;
+    }
+
+    @Override
+    public AbstractEvent peek() {
+        if (this.size == 0) {
+            return null;
+        }
+
+        return this.heap[0];
+    }
+
+    @Override
+    public boolean remove(final AbstractEvent event) {
+        event.checkOwner(this);
+        int index = event.queueIndex;
+        if (index < 0 || index >= this.size || this.heap[index] != event) {
+            return false;
+        }
+        event.queueIndex = AbstractEvent.NOT_QUEUED;
+        event.owner = null;
+        this.removeAt(index);
+
+        return true;
+    }
+
+    @Override
+    public void update(final AbstractEvent event) {
+        event.checkOwner(this);
+        int index = event.queueIndex;
+        this.siftDown(index, event);
+        if (this.heap[index] == event) {
+            this.siftUp(index, event);
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Remove the event at a position in the heap.
+     * The caller is responsible for clearing the event's queue index.
+     *
+     * @param index - the position of the event to remove
+     */
+    private void removeAt(final int index) {
+        this.size--;
+        AbstractEvent last = this.heap[this.size];
+        this.heap[this.size] = null;
+        if (index != this.size) {
+            this.siftDown(index, last);
+            if (this.heap[index] == last) {
+                this.siftUp(index, last);
+            }
+        }
+    }
+
+    /**
+     * Moves an event up the heap until its parent occurs before it.
+     *
+     * @param start - the position to start at
+     * @param event - the event to place
+     */
+    private void siftUp(final int start, final AbstractEvent event) {
+        int index = start;
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            AbstractEvent parentEvent = this.heap[parent];
+            if (!before(event, parentEvent)) {
+                break;
+            }
+            this.heap[index] = parentEvent;
+            parentEvent.queueIndex = index;
+            index = parent;
+        }
+        this.heap[index] = event;
+        event.queueIndex = index;
+    }
+
+    /**
+     * Moves an event down the heap until it occurs before its children.
+     *
+     * @param start - the position to start at
+     * @param event - the event to place
+     */
+    private void siftDown(final int start, final AbstractEvent event) {
+        int index = start;
+        int half = this.size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < this.size
+                    && before(this.heap[right], this.heap[child])) {
+                child = right;
+            }
+            if (!before(this.heap[child], event)) {
+                break;
+            }
+            this.heap[index] = this.heap[child];
+            this.heap[index].queueIndex = index;
+            index = child;
+        }
+        this.heap[index] = event;
+        event.queueIndex = index;
+    }
+
+}
@@ -0,0 +1,359 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package core;
+
+/**
+ * A calendar queue of events (R. Brown, "Calendar Queues: A Fast O(1)
+ * Priority Queue Implementation for the Simulation Event Set Problem",
+ * CACM 1988).
+ *
+ * Events are hashed by time into an array of buckets, each of which
+ * covers a "day" of fixed width. Each bucket holds a sorted, doubly
+ * linked list of events chained through the events themselves, so adding
+ * and removing events does not allocate and a cancelled event can be
+ * unlinked in O(1). The number of buckets and their width are
+ * recalculated as the queue grows and shrinks so buckets stay short.
+ */
+final class CalendarQueueEventSet implements EventSet {
+
+    /** The serialization id. */
+    private static final long serialVersionUID = 1L;
+
+    /** The fewest buckets the calendar will shrink to. */
+    private static final int MIN_BUCKETS = 2;
+
+    /** The number of events sampled to estimate a new bucket width. */
+    private static final int WIDTH_SAMPLES = 25;
+
+    /** The buckets of the calendar, each a sorted list of events. */
+    private AbstractEvent[] buckets;
+
+    /** The span of time covered by each bucket (in seconds). */
+    private double width;
+
+    /** The number of events in the calendar. */
+    private int size;
+
+    /**
+     * The "virtual" bucket the calendar is currently dequeuing from.
+     * This is the time divided by the bucket width, which unlike the
+     * bucket index does not wrap around at the end of the calendar.
+     */
+    private long currentDay;
+
+    /** If the calendar is allowed to resize itself. */
+    private boolean resizeEnabled;
+
+    /**
+     * Creates a new, empty CalendarQueueEventSet.
+     */
+    CalendarQueueEventSet() {
+        this.buckets = new AbstractEvent[MIN_BUCKETS];
+        this.width = 1.0;
+        this.size = 0;
+        this.currentDay = 0;
+        this.resizeEnabled = true;
+    }
+
+    /**
+     * Gets the virtual bucket a time falls into.
+     *
+     * @param time - the time
+     * @return the virtual bucket of the time
+     */
+    private long dayOf(final double time) {
+        return (long) Math.floor(time / this.width);
+    }
+
+    /**
+     * Gets the index of the bucket holding a virtual bucket.
+     *
+     * @param day - the virtual bucket
+     * @return the index into the bucket array
+     */
+    private int bucketOf(final long day) {
+        return (int) (day & (this.buckets.length - 1));
+    }
+
+    @Override
+    public void add(final AbstractEvent event) {
+        long day = this.dayOf(event.time);
+        this.insert(this.bucketOf(day), event);
+        this.size++;
+
+        // An event earlier than where we are dequeuing from moves us back
+        if (day < this.currentDay || this.size == 1) {
+            this.currentDay = day;
+        }
+
+        if (this.resizeEnabled && this.size > 2 * this.buckets.length) {
+            this.resize(2 * this.buckets.length);
+        }
+    }
+
+    @Override
+    public AbstractEvent poll() {
+        if (this.size == 0) {
+            return null;
+        }
+
+        return this.removeHead(this.findEarliestBucket());
+    }
+
+    @Override
+    public AbstractEvent peek() {
+        if (this.size == 0) {
+            return null;
+        }
+
+        return this.buckets[this.findEarliestBucket()];
+    }
+
+    /**
+     * Finds the bucket whose first event is the earliest in the calendar
+     * and moves the current day up to that event.
+     * The calendar must not be empty.
+     *
+     * @return the index of the bucket holding the earliest event
+     */
+    private int findEarliestBucket() {
+        int nBuckets = this.buckets.length;
+        long day = this.currentDay;
+        for (int i = 0; i < nBuckets; i++) {
+            int bucket = this.bucketOf(day);
+            AbstractEvent head = this.buckets[bucket];
+            if (head != null && this.dayOf(head.time) <= day) {
+                this.currentDay = day;
+                return bucket;
+            }
+            day++;
+        }
+
+        // Nothing this year, so jump directly to the earliest event
+        int earliestBucket = -1;
+        AbstractEvent earliest = null;
+        for (int i = 0; i < nBuckets; i++) {
+            AbstractEvent head = this.buckets[i];
+            if (head != null
+                    && (earliest == null
+                        || BinaryHeapEventSet.before(head, earliest))) {
+                earliestBucket = i;
+                earliest = head;
+            }
+        }
+        this.currentDay = this.dayOf(earliest.time);
+
+        return earliestBucket;
+    }
+
+    @Override
+    public boolean remove(final AbstractEvent event) {
+        event.checkOwner(this);
+        int bucket = event.queueIndex;
+        if (bucket < 0 || bucket >= this.buckets.length) {
+            return false;
+        }
+        if (event.previousInBucket == null && this.buckets[bucket] != event) {
+            return false;
+        }
+
+        this.unlink(bucket, event);
+        this.size--;
+        this.shrinkIfSparse();
+
+        return true;
+    }
+
+    @Override
+    public void update(final AbstractEvent event) {
+        event.checkOwner(this);
+        this.unlink(event.queueIndex, event);
+        this.size--;
+        this.add(event);
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Inserts an event into its place in a bucket's sorted list.
+     *
+     * @param bucket - the index of the bucket
+     * @param event - the event to insert
+     */
+    private void insert(final int bucket, final AbstractEvent event) {
+        AbstractEvent previous = null;
+        AbstractEvent current = this.buckets[bucket];
+        while (current != null && !BinaryHeapEventSet.before(event, current)) {
+            previous = current;
+            current = current.nextInBucket;
+        }
+
+        event.nextInBucket = current;
+        event.previousInBucket = previous;
+        event.queueIndex = bucket;
+        event.owner = this;
+        if (current != null) {
+            current.previousInBucket = event;
+        }
+        if (previous == null) {
+            this.buckets[bucket] = event;
+        } else {
+            previous.nextInBucket = event;
+        }
+    }
+
+    /**
+     * Unlinks an event from a bucket's list.
+     *
+     * @param bucket - the index of the bucket holding the event
+     * @param event - the event to unlink
+     */
+    private void unlink(final int bucket, final AbstractEvent event) {
+        AbstractEvent previous = event.previousInBucket;
+        AbstractEvent next = event.nextInBucket;
+        if (previous == null) {
+            this.buckets[bucket] = next;
+        } else {
+            previous.nextInBucket = next;
+        }
+        if (next != null) {
+            next.previousInBucket = previous;
+        }
+        event.nextInBucket = null;
+        event.previousInBucket = null;
+        event.queueIndex = AbstractEvent.NOT_QUEUED;
+        event.owner = null;
+    }
+
+    /**
+     * Removes the first event of a bucket.
+     *
+     * @param bucket - the index of the bucket
+     * @return the removed event
+     */
+    private AbstractEvent removeHead(final int bucket) {
+        AbstractEvent head = this.buckets[bucket];
+        this.unlink(bucket, head);
+        this.size--;
+        this.shrinkIfSparse();
+
+        return head;
+    }
+
+    /**
+     * Halves the number of buckets if the calendar has become sparse.
+     */
+    private void shrinkIfSparse() {
+        if (this.resizeEnabled
+                && this.buckets.length > MIN_BUCKETS
+                && this.size < this.buckets.length / 2) {
+            this.resize(this.buckets.length / 2);
+        }
+    }
+
+    /**
+     * Rebuilds the calendar with a new number of buckets and a bucket
+     * width estimated from the spacing of the earliest events.
+     *
+     * @param nBuckets - the new number of buckets (a power of two)
+     */
+    private void resize(final int nBuckets) {
+        this.resizeEnabled = false;
+
+        // Sample the earliest events to find their typical separation
+        int nSamples = Math.min(this.size, WIDTH_SAMPLES);
+        AbstractEvent[] samples = new AbstractEvent[nSamples];
+        for (int i = 0; i < nSamples; i++) {
+            samples[i] = this.poll();
+        }
+        double newWidth = this.estimateWidth(samples);
+
+        // Gather the remaining events and rehash them into the new buckets
+        AbstractEvent[] oldBuckets = this.buckets;
+        this.buckets = new AbstractEvent[nBuckets];
+        this.width = newWidth;
+        this.size = 0;
+        for (int i = 0; i < oldBuckets.length; i++) {
+            AbstractEvent event = oldBuckets[i];
+            while (event != null) {
+                AbstractEvent next = event.nextInBucket;
+                this.add(event);
+                event = next;
+            }
+        }
+        for (int i = 0; i < nSamples; i++) {
+            this.add(samples[i]);
+        }
+        if (this.size > 0) {
+            this.currentDay = this.dayOf(samples[0].time);
+        }
+
+        this.resizeEnabled = true;
+    }
+
+    /**
+     * Estimates a bucket width from a sorted sample of events.
+     * Uses three times the average separation, ignoring separations
+     * more than twice the average so outliers don't skew the estimate.
+     *
+     * @param samples - the earliest events in the calendar, in order
+     * @return the new bucket width
+     */
+    private double estimateWidth(final AbstractEvent[] samples) {
+        if (samples.length < 2) {
+            return this.width;
+        }
+
+        double totalSeparation = samples[samples.length - 1].time
+                                 - samples[0].time;
+        double averageSeparation = totalSeparation / (samples.length - 1);
+
+        double trimmedSeparation = 0.0d;
+        int nTrimmed = 0;
+        for (int i = 1; i < samples.length; i++) {
+            double separation = samples[i].time - samples[i - 1].time;
+            if (separation <= 2 * averageSeparation) {
+                trimmedSeparation += separation;
+                nTrimmed++;
+            }
+        }
+
+        double newWidth = 3 * trimmedSeparation / nTrimmed;
+        if (newWidth <= 0 || Double.isNaN(newWidth)
+                || Double.isInfinite(newWidth)) {
+            return this.width;
+        }
+
+        return newWidth;
+    }
+
+}
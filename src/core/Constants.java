@@ -78,6 +78,21 @@ public final class Constants {
 
 	    POWER_ESTIMATE,
 
+        /** Cost (in dollars) of the data center's power per market sample. */
+        MARKET_COST,
+
+        /** Regulation reward (in dollars) per market sample. */
+        MARKET_REWARD,
+
+        /** Regulation tracking error, relative to the offered capacity. */
+        REGULATION_TRACKING_ERROR,
+
+        /** Regulation performance score per tracking period. */
+        REGULATION_PERFORMANCE_SCORE,
+
+        /** Regulation reward (in dollars) per tracking period. */
+        REGULATION_REWARD,
+
     }
 
     /**
@@ -161,6 +176,12 @@ public final class Constants {
     /** The minimum number of samples to converge a statistic. */
     public static final long MINIMUM_CONVERGE_SAMPLES = 10;
 
+    /**
+     * The default number of kept samples between a statistic
+     * checking (and reporting) if it has converged.
+     */
+    public static final int DEFAULT_CONVERGENCE_CHECK_INTERVAL = 100;
+
     /** The maximum stride length between samples before giving up. */
     public static final int GIVE_UP_STRIDE = 100;
 
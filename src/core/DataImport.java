@@ -2,77 +2,35 @@ package core;
 
 import java.io.*;
 import java.util.*;
-import java.text.SimpleDateFormat;
-import java.text.ParseException;
 
 /**
  * Handles importing of trace values from a file
  */
 public class DataImport {
   /**
-   * Reads market regulation metrics from files formatted similarly to "BigHouse/workloads/reward-cost.prn"
-   * File data must be in columns separated by one or more spaces
-   * Column data should be as follows:
-   * 	datetime_beginning_ept, LMP Realtime, CCP, PCP, Mileage, Perf Score, R, Reward, Pavg
-   * Data is stored in HashMaps using timestamps as keys
-   * @param fileName The name of the file in "BigHouse/workloads/" from which to read.
-   * @return Returns an array of 2 HashMaps: first is map for electricity cost, second is map containing metrics used in reward computation
+   * The row of the power consumption file used when no server model is given;
+   * this is the power data for the 2.0GHz server in "workloads/AvgPower.csv".
    */
-  public static HashMap[] getTraceFromFile_RC(String fileName) {
-    HashMap rewardTrace = new HashMap<Double, Double[]>();
-    HashMap elecCostTrace = new HashMap<Double, Double>();
-    HashMap[] returnArr = new HashMap[2];
+  public static final String DEFAULT_POWER_MODEL = "2.0GHz";
 
-    int count = 0; 
-    String line;
-    Double rewardVal = 0.0;
-    Double lmpVal = 0.0; // LMP realtime: electricity price ($/MWatt) per time slot
-    String timeStr = "";
-    BufferedReader bufReader = null;
-    Date date = new Date();
-    SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd H:mm");
-
-    try {
-      bufReader = new BufferedReader(new FileReader("workloads/"+fileName));
-      bufReader.readLine(); // ignore first line (for table headers)
-      while( (line = bufReader.readLine()) != null && count < 24) {
-        String[] getLine = line.split(" +"); // split strings separated by 1 or more spaces 
-	rewardVal = Double.parseDouble(getLine[9]);
-        lmpVal = Double.parseDouble(getLine[3]);
-        timeStr = getLine[2];
-        date = sdf.parse("1970-01-01 " + timeStr);
-        Double ccp, pcp, r, perfScore;
-        ccp = Double.parseDouble(getLine[4]);
-        pcp = Double.parseDouble(getLine[5]);
-        r = Double.parseDouble(getLine[8]);
-        perfScore = Double.parseDouble(getLine[7]);
-        Double[] valArray = {ccp, pcp, r, perfScore};
-        rewardTrace.put((double)(date.getTime()-28800000)/1000, valArray);
-        elecCostTrace.put((double)(date.getTime()-28800000)/1000, lmpVal);
-        ++count;
-      }
-    }
-    catch (ParseException e) {
-      System.out.println("Problem parsing during trace_rc import\n");
-      System.exit(0);
-    }
-    catch(Exception e) {
-      System.out.println("NON PARSE EXCEPTION!:");
-      e.printStackTrace();
-      System.exit(1);
-    }
-    returnArr[0] = elecCostTrace;
-    returnArr[1] = rewardTrace;
-    return returnArr;
+  /**
+   * Imports power consumption data for the default server model.
+   * Note: It is assumed that power consumption data found in the file has units of watts.
+   * @param fileName The name of the file in "workloads/" from which to import data
+   * @return A map with keys: utilization values and values: power consumption in MWatts
+   */
+  public static TreeMap<Double,Double> importPowerConsumptionData(String fileName) {
+    return importPowerConsumptionData(fileName, DEFAULT_POWER_MODEL);
   }
 
   /**
-   * Imports power consumption data for a server.
+   * Imports power consumption data for a server model.
    * Note: It is assumed that power consumption data found in the file has units of watts.
    * @param fileName The name of the file in "workloads/" from which to import data
+   * @param model The label in the first column of the row to import (e.g. "2.0GHz")
    * @return A map with keys: utilization values and values: power consumption in MWatts
    */
-  public static TreeMap importPowerConsumptionData(String fileName) {
+  public static TreeMap<Double,Double> importPowerConsumptionData(String fileName, String model) {
     TreeMap<Double,Double> powerConsumptionMap = new TreeMap<Double,Double>();
     BufferedReader bufferedReader = null;
     String line = null;
@@ -80,8 +38,7 @@ public class DataImport {
     int lineNum = 0;
     double[] utilArray = null;
     double scaleVal = 0.0;
-    
-    int target = 6; // which line to save from file; this saves power data for 2.0GHz server from "workloads/AvgPower.csv"
+    boolean found = false;
     
     try {
       bufferedReader = new BufferedReader(new FileReader("workloads/"+fileName));
@@ -97,12 +54,12 @@ public class DataImport {
           }
         }
 
-        // if we are not at correct row, then skip
-        if(lineNum != target) {
+        // if we are not at the row for the model, then skip
+        lineTokens = line.split(",");
+        if(lineNum == 0 || !lineTokens[0].trim().equals(model)) {
           ++lineNum;
           continue;
         }
-        lineTokens = line.split(",");
         
         // scaleVal is the value by which to nomalize the scale; we want scale to be 0-1 so scaleVal is the maximum util value for a given row
         // we use an index of lineTokens.length-2 because there is an extra element in the row (the row's header)
@@ -115,13 +72,18 @@ public class DataImport {
           powerConsumptionMap.put(utilArray[i-1] / scaleVal, Double.parseDouble(lineTokens[i]) / 1000000); // place in map, converting consumption values from watts to MWatts
         }
           
+        found = true;
         break;
       }
+      bufferedReader.close();
     }
     catch(Exception e) {
       e.printStackTrace();
       System.exit(0);
     }
+    if(!found) {
+      Sim.fatalError("No power data for server model " + model + " in " + fileName);
+    }
     return powerConsumptionMap;
   }
 }
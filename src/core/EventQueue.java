@@ -32,12 +32,13 @@
 package core;
 
 import java.io.Serializable;
-import java.util.PriorityQueue;
 
 /**
  * The EvenQueue manages events in the discrete event simulation.
  * The events are ordered by when they occur in time, so the
  * head of the queue represents the next event to occur.
+ * Events that occur at the same time are processed in the order
+ * they were added.
  *
  * @author David Meisner (meisner@umich.edu)
  */
@@ -49,42 +50,120 @@ public final class EventQueue implements Serializable {
     private static final long serialVersionUID = 1L;
 
     /**
-     * The queue of events. Events are time ordered in a priority queue.
+     * The data structures available to hold the pending events.
      */
-    private PriorityQueue<Event> queue;
+    public static enum QueueType {
+        /**
+         * A binary heap. O(log n) to add or remove an event.
+         */
+        BINARY_HEAP,
+
+        /**
+         * A calendar queue. O(1) amortized to add or remove an event,
+         * which pays off when there are many pending events
+         * (e.g., large clusters).
+         */
+        CALENDAR_QUEUE
+    };
+
+    /** The type of data structure holding the events. */
+    private QueueType queueType;
 
     /**
-     * Creates a new EventQueue.
+     * The set of events. Events are time ordered.
+     */
+    private EventSet events;
+
+    /** The sequence number to give the next event added to the queue. */
+    private long nextSequence;
+
+    /**
+     * Creates a new EventQueue backed by a calendar queue.
      */
     public EventQueue() {
-        this.queue = new PriorityQueue<Event>();
+        this(QueueType.CALENDAR_QUEUE);
+    }
+
+    /**
+     * Creates a new EventQueue.
+     *
+     * @param theQueueType - the data structure to hold the events in
+     */
+    public EventQueue(final QueueType theQueueType) {
+        this.queueType = theQueueType;
+        if (theQueueType == QueueType.BINARY_HEAP) {
+            this.events = new BinaryHeapEventSet();
+        } else if (theQueueType == QueueType.CALENDAR_QUEUE) {
+            this.events = new CalendarQueueEventSet();
+        } else {
+            Sim.fatalError("Unknown event queue type " + theQueueType);
+        }
+        this.nextSequence = 0;
+    }
+
+    /**
+     * Get the type of data structure holding the events.
+     *
+     * @return the type of data structure holding the events
+     */
+    public QueueType getQueueType() {
+        return this.queueType;
     }
 
     /**
      * Get and remove the next event from the queue.
-     * @return the next event
+     * @return the next event, or null if the queue is empty
      */
     public Event nextEvent() {
-        return this.queue.poll();
+        return this.events.poll();
+    }
+
+    /**
+     * Get and remove the next event from the queue if it happens
+     * before a time. Later events stay queued in the same order.
+     *
+     * @param time - the time the event must happen before
+     * @return the next event, or null if the queue is empty or the
+     * next event happens at or after the time
+     */
+    public Event nextEventBefore(final double time) {
+        AbstractEvent event = this.events.peek();
+        if (event == null || event.time >= time) {
+            return null;
+        }
+
+        return this.events.poll();
     }
 
     /**
      * Add an event to the event queue.
      * This event will now happen sometime in the future.
+     * Fails the simulation if the event is already queued, since its
+     * place in the queue would be overwritten
+     * (use {@link #reschedule(Event, double)} to move it).
      * @param event - the event to add
      */
     public void addEvent(final Event event) {
-        this.queue.add(event);
+        AbstractEvent queuedEvent = toAbstractEvent(event);
+        if (queuedEvent.isQueued()) {
+            Sim.fatalError("Tried to add an event that is already queued: "
+                    + event.getClass());
+        }
+        queuedEvent.sequence = this.nextSequence;
+        this.nextSequence++;
+        this.events.add(queuedEvent);
     }
 
     /**
      * Remove an event from the event queue.
+     * The event records where it is held in the queue, so this does
+     * not search the queue for it.
      * @param event - the event to remove
      */
     public void cancelEvent(final Event event) {
-        boolean removeWorked = this.queue.remove(event);
+        boolean removeWorked = this.events.remove(toAbstractEvent(event));
         // Make sure the event was actually removed
-        if (!removeWorked || this.queue.contains(event)) {
+        if (!removeWorked) {
             // TODO - we have a loop where a Timeout event will try
             // to remove itself while it is in process,
             // so cancel will fail
@@ -93,12 +172,54 @@ public final class EventQueue implements Serializable {
         }
     }
 
+    /**
+     * Moves an event to a new time without removing it from the queue.
+     * If the event is not in the queue (e.g., it was cancelled),
+     * it is added back at the new time.
+     * The event is ordered as if it had just been added, so it happens
+     * after other events already scheduled for the same time.
+     *
+     * @param event - the event to move
+     * @param newTime - the new time the event occurs
+     */
+    public void reschedule(final Event event, final double newTime) {
+        AbstractEvent queuedEvent = toAbstractEvent(event);
+        if (!queuedEvent.isQueued()) {
+            queuedEvent.time = newTime;
+            this.addEvent(queuedEvent);
+            return;
+        }
+
+        // Check before changing the time an event set orders it by
+        queuedEvent.checkOwner(this.events);
+        queuedEvent.time = newTime;
+        queuedEvent.sequence = this.nextSequence;
+        this.nextSequence++;
+        this.events.update(queuedEvent);
+    }
+
     /**
      * Get the size of the event queue.
      * @return the size of the event queue
      */
     public int size() {
-        return this.queue.size();
+        return this.events.size();
+    }
+
+    /**
+     * Checks an event can be held by the queue.
+     * The queue keeps its bookkeeping in {@link AbstractEvent}.
+     *
+     * @param event - the event
+     * @return the event as an AbstractEvent
+     */
+    private static AbstractEvent toAbstractEvent(final Event event) {
+        if (!(event instanceof AbstractEvent)) {
+            Sim.fatalError("Events must extend AbstractEvent to be queued: "
+                    + event.getClass());
+        }
+
+        return (AbstractEvent) event;
     }
 
 }
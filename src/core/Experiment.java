@@ -32,18 +32,19 @@
 
 package core;
 
-import generator.MTRandom;
+import generator.RandomStreamFactory;
 
 import java.io.Serializable;
 import java.util.Iterator;
+import java.util.Random;
 import java.util.Vector;
 
 import stat.Statistic;
 import stat.StatisticsCollection;
 import datacenter.DataCenter;
-import datacenter.DataCenter.ClusterScheduler;
+import datacenter.ClusterScheduler;
 import datacenter.Server;
-import core.RegDHandler;
+import core.Constants.StatName;
 
 /**
  * This class contains all components of an experiment.
@@ -92,7 +93,13 @@ public final class Experiment implements Serializable, Cloneable {
     /**
      * THe random number generator for this experiment.
      */
-    private MTRandom random;
+    private Random random;
+
+    /**
+     * The factory for the experiment's random number streams,
+     * or null if it only uses its random number generator.
+     */
+    private RandomStreamFactory randomStreams;
 
     /**
      * A flag determining if this experiment should stop once it
@@ -103,14 +110,29 @@ public final class Experiment implements Serializable, Cloneable {
 
     /**
      * A flag indicating the simulation should stop at the next possible step.
+     * May be set from another thread.
      */
-    private boolean stop;
+    private volatile boolean stop;
+
+    /**
+     * How often (in events) a copy of the statistics is published
+     * for other threads to read. 0 disables publishing.
+     */
+    private int statsSnapshotInterval;
+
+    /**
+     * The most recently published copy of the statistics.
+     */
+    private transient volatile StatisticsCollection statsSnapshot;
 
     /**
      * If flag is set, we're running search workload. Scale all service stats by 10 to converge faster.
      */ 	 
     private boolean searchWorkload;
 
+    /** Recycles the experiment's jobs and their events. */
+    private JobPool jobPool;
+
     /**
      * Constructs a new experiment.
      *
@@ -120,11 +142,12 @@ public final class Experiment implements Serializable, Cloneable {
      * @param thExperimentOutput - outputs of the experiment
      */
     public Experiment(final String theExperimentName,
-                      final MTRandom aRandom,
+                      final Random aRandom,
                       final ExperimentInput theExperimentInput,
                       final ExperimentOutput thExperimentOutput) {
         this.stop = false;
         this.random = aRandom;
+        this.randomStreams = null;
         this.currentTime = 0.0d;
         this.eventLimit = 0;
         this.experimentName = theExperimentName;
@@ -133,6 +156,30 @@ public final class Experiment implements Serializable, Cloneable {
         this.eventQueue = new EventQueue();
         this.stopAtSteadyState = false;
 	this.searchWorkload = false;
+        this.statsSnapshotInterval = 0;
+        this.statsSnapshot = null;
+        this.jobPool = new JobPool(this);
+    }
+
+    /**
+     * Makes an independent copy of the experiment, including its
+     * data center, pending events and random number generator.
+     * The copy is identical to what a slave receives over RMI.
+     *
+     * @return a deep copy of the experiment
+     */
+    @Override
+    public Experiment clone() {
+        return Sim.deepCopy(this);
+    }
+
+    /**
+     * Gets the pool the experiment's jobs and their events come from.
+     *
+     * @return the experiment's job pool
+     */
+    public JobPool getJobPool() {
+        return this.jobPool;
     }
 
     public void setSearchWorkload(final boolean search) {
@@ -143,6 +190,31 @@ public final class Experiment implements Serializable, Cloneable {
 	return this.searchWorkload;
     }
 
+    /**
+     * Sets the data structure used to hold the experiment's pending events.
+     * Events already scheduled are moved to the new queue.
+     *
+     * @param queueType - the data structure to hold the events in
+     */
+    public void setEventQueueType(final EventQueue.QueueType queueType) {
+        EventQueue newQueue = new EventQueue(queueType);
+        Event event = this.eventQueue.nextEvent();
+        while (event != null) {
+            newQueue.addEvent(event);
+            event = this.eventQueue.nextEvent();
+        }
+        this.eventQueue = newQueue;
+    }
+
+    /**
+     * Gets the data structure used to hold the experiment's pending events.
+     *
+     * @return the data structure holding the experiment's pending events
+     */
+    public EventQueue.QueueType getEventQueueType() {
+        return this.eventQueue.getQueueType();
+    }
+
     /**
      * Sets the random seed for this experiment's random number generator.
      * @param newSeed - the random seed for this experiment's
@@ -152,16 +224,63 @@ public final class Experiment implements Serializable, Cloneable {
         this.random.setSeed(newSeed);
     }
 
+    /**
+     * Gets the experiment's random number generator.
+     *
+     * @return the experiment's random number generator
+     */
+    public Random getRandom() {
+        return this.random;
+    }
+
+    /**
+     * Sets the factory the experiment's random number streams came from.
+     * Replicas of the experiment then get non-overlapping streams
+     * (see {@link #setReplica(int)}).
+     *
+     * @param factory - the factory the random number streams came from
+     */
+    public void setRandomStreams(final RandomStreamFactory factory) {
+        this.randomStreams = factory;
+    }
+
+    /**
+     * Gets the factory the experiment's random number streams came from.
+     *
+     * @return the factory the random number streams came from,
+     * or null if there is none
+     */
+    public RandomStreamFactory getRandomStreams() {
+        return this.randomStreams;
+    }
+
+    /**
+     * Makes this experiment a replica with its own random numbers.
+     * If the experiment has a {@link RandomStreamFactory}, all its streams
+     * move to the replica's non-overlapping substreams. Otherwise the
+     * random number generator is just seeded with the replica number.
+     *
+     * @param replica - the replica number
+     */
+    public void setReplica(final int replica) {
+        if (this.randomStreams != null) {
+            this.randomStreams.setReplica(replica);
+        } else {
+            this.setSeed(replica);
+        }
+    }
+
     /**
      * Initializes the experiment so it is ready to run.
-     * This entails priming every server with an initial arrival event.
+     * This entails priming every server, or the data center's central
+     * arrival stream, with an initial arrival event.
      */
     public void initialize() {
-	// Import data and populate class static structures
-	RegDHandler.getRegDFromFile(RegDHandler.nextRegDFile()); 
-	RegulationMarket.importTraces();	
-
         this.dataCenter = this.experimentInput.getDataCenter();
+        if (this.dataCenter.hasArrivalProcess()) {
+            this.dataCenter.createNewArrival(0.0);
+            return;
+        }
         Vector<Server> servers = dataCenter.getServers();
         // Make sure all the arrival processes have begun
         Iterator<Server> iterator = servers.iterator();
@@ -223,12 +342,6 @@ public final class Experiment implements Serializable, Cloneable {
     public void run() {
         this.initialize();
         long startTime = System.currentTimeMillis();
-	double curTime = 0.0;
-	
-        boolean havePrinted = false;
-        double regDVal = 0.0;
-        double regDValPrev = 0.0;
-	double dcConsumption = 0.0;
 
         this.nEventsProccessed = 0;
         //Sim.printBanner();
@@ -237,37 +350,7 @@ public final class Experiment implements Serializable, Cloneable {
         //int orderOfMag = 5;
         long printSamples = 100000;//(long) Math.pow(10, orderOfMag);
         while (!stop) {
-            Event currentEvent = this.eventQueue.nextEvent();
-            this.currentTime = currentEvent.getTime();
-            currentEvent.process();
-            this.nEventsProccessed++;
-
-            // Added by mmira014
-            // Print market statistics every 5 seconds
-            curTime = (int)this.currentTime;
-            if (curTime % 5 == 0) {
-              if(havePrinted) {
-                // do nothing; already printed
-              }
-              else {
-                regDVal = RegDHandler.getRegDSignal(curTime);
-                dcConsumption = this.dataCenter.getDataCenterPowerConsumption();
-              
-                System.out.println("v---------------------------v\nRegulation D signal at " + curTime + " seconds is: " + regDVal);
-		System.out.println("Data center power consumption (in MWatts): " + dcConsumption);
-                System.out.println("Cost of operating for this time: " + RegulationMarket.getCostofConsumption(dcConsumption, curTime)); 
-                System.out.println("Reward: " + RegulationMarket.getReward(curTime,regDVal,regDValPrev) + "\n^---------------------------^\n");
-                havePrinted = true;
-                regDValPrev = regDVal;
-              }
-            }
-            // reset havePrinted flag back to false
-            if(curTime % 5 > 0 && havePrinted) {
-              havePrinted = false;
-            }
-     
-	    //Added by wongdani
-	    this.dataCenter.updateStatistics(this.currentTime);
+            this.processEvent(this.eventQueue.nextEvent());
             if (this.nEventsProccessed > printSamples) {
                 System.out.println("Processed " + this.nEventsProccessed
                             + " events");
@@ -305,12 +388,56 @@ public final class Experiment implements Serializable, Cloneable {
             }
         }
 
+        if (this.statsSnapshotInterval > 0) {
+            this.publishStatsSnapshot();
+        }
+
         long endTime = System.currentTimeMillis();
         double execTime = (endTime - startTime) / 1000.0;
         System.out.println("The experiment took " + execTime
                         + " seconds to run");
     }
 
+    /**
+     * Processes every event which happens before a time, then
+     * advances the simulation to that time.
+     * Unlike {@link #run()}, this does not stop when the statistics
+     * converge, so something else (e.g., a sharded runner) decides
+     * when the experiment is over.
+     * {@link #initialize()} must be called first.
+     *
+     * @param time - the time to run the experiment until
+     */
+    public void runUntil(final double time) {
+        while (!this.stop) {
+            Event currentEvent = this.eventQueue.nextEventBefore(time);
+            if (currentEvent == null) {
+                break;
+            }
+            this.processEvent(currentEvent);
+        }
+        this.currentTime = Math.max(this.currentTime, time);
+    }
+
+    /**
+     * Processes a single event and updates the statistics.
+     *
+     * @param currentEvent - the event to process
+     */
+    private void processEvent(final Event currentEvent) {
+        this.currentTime = currentEvent.getTime();
+        currentEvent.process();
+        this.nEventsProccessed++;
+
+        //Added by wongdani
+        this.dataCenter.updateStatistics(this.currentTime);
+        if (this.statsSnapshotInterval > 0
+                && this.nEventsProccessed
+                   % this.statsSnapshotInterval == 0) {
+            this.publishStatsSnapshot();
+        }
+    }
+
     /**
      * Gets the number of events that have been simulated.
      *
@@ -338,6 +465,54 @@ public final class Experiment implements Serializable, Cloneable {
         this.eventQueue.cancelEvent(event);
     }
 
+    /**
+     * Moves an event to a new time.
+     * Cheaper than cancelling the event and adding a new one.
+     *
+     * @param event - the event to move
+     * @param newTime - the new time the event occurs
+     */
+    public void rescheduleEvent(final Event event, final double newTime) {
+        this.eventQueue.reschedule(event, newTime);
+    }
+
+    /**
+     * Starts sampling the regulation market every interval, beginning at
+     * the current time (see {@link MarketSampleEvent}).
+     * The market cost and reward are added as tracked outputs,
+     * which don't need to converge for the simulation to end.
+     *
+     * @param interval - the time between samples in seconds
+     * @param regulationCapacity - the regulation capacity offered by the
+     * data center in MW
+     * @return the event sampling the market, which keeps running totals
+     */
+    public MarketSampleEvent sampleRegulationMarket(
+                                        final double interval,
+                                        final double regulationCapacity) {
+        this.addTrackedOutput(StatName.MARKET_COST);
+        this.addTrackedOutput(StatName.MARKET_REWARD);
+        MarketSampleEvent event = new MarketSampleEvent(this.currentTime,
+                                                        this,
+                                                        interval,
+                                                        regulationCapacity);
+        this.addEvent(event);
+
+        return event;
+    }
+
+    /**
+     * Adds a tracked output to the experiment unless it already has
+     * the output (see {@link ExperimentOutput#addTrackedOutput(StatName)}).
+     *
+     * @param name - the name of the output
+     */
+    public void addTrackedOutput(final StatName name) {
+        if (!this.getStats().hasStat(name)) {
+            this.exprimentOutput.addTrackedOutput(name);
+        }
+    }
+
     /**
      * Get the current time of the simulation.
      *
@@ -360,6 +535,36 @@ public final class Experiment implements Serializable, Cloneable {
         this.run();
     }
 
+    /**
+     * Sets how often (in events) the experiment publishes a copy of its
+     * statistics, which other threads can read while it runs.
+     *
+     * @param interval - the number of events between copies,
+     * 0 to never publish
+     */
+    public void setStatsSnapshotInterval(final int interval) {
+        this.statsSnapshotInterval = interval;
+    }
+
+    /**
+     * Gets the most recently published copy of the experiment's
+     * statistics. Safe to call from another thread while the
+     * experiment runs.
+     *
+     * @return the most recent copy of the statistics or null
+     * if none has been published
+     */
+    public StatisticsCollection getStatsSnapshot() {
+        return this.statsSnapshot;
+    }
+
+    /**
+     * Publishes a copy of the statistics for other threads to read.
+     */
+    private void publishStatsSnapshot() {
+        this.statsSnapshot = Sim.deepCopy(this.getStats());
+    }
+
     /**
      * Stops the simulation.
      */
@@ -120,6 +120,18 @@ public final class ExperimentOutput implements Serializable {
         this.statisticsCollection.addStatistic(name, stat);
     }
 
+    /**
+     * Adds an output which is recorded but doesn't need to converge
+     * for the simulation to end. Every sample is kept.
+     *
+     * @param name - The name of the output
+     */
+    public void addTrackedOutput(final StatName name) {
+        Statistic stat = new Statistic(statisticsCollection, name, 0,
+                                       0.0, 0.5, 0.0);
+        this.statisticsCollection.addTrackedStatistic(name, stat);
+    }
+
     /**
      * Adds a time-weigthed output to be observed by the simulation.
      *
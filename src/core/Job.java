@@ -31,12 +31,19 @@
 
 package core;
 
+import java.util.concurrent.atomic.AtomicLong;
+
+import datacenter.Core;
+import datacenter.Socket;
+
 /**
  * A job is the basic unit of work that servers process.
  * The amount of "work" they represent is quantified in seconds.
  * For example, if a job is 2 seconds big. It will complete in
  * 2 seconds from starting, given that nothing interrupts it.
  * This may be modulated by many things (e.g., slowing the CPU).
+ * Jobs in a simulation come from the experiment's {@link JobPool}
+ * and are reused once they finish.
  *
  * @author David Meisner (meisner@umich.edu)
  */
@@ -82,8 +89,9 @@ public class Job {
 
     /**
      * A static incrementing variable for creating job IDs.
+     * Atomic because experiments may run on several threads at once.
      */
-    private static long currentId;
+    private static final AtomicLong CURRENT_ID = new AtomicLong();
 
 //    /**
 //     *
@@ -101,6 +109,23 @@ public class Job {
      */
     private double lastResumeTime;
 
+    /**
+     * The socket the job is being served by, or null if it isn't in service.
+     * Saves servers from keeping a map of jobs to sockets.
+     */
+    private Socket socket;
+
+    /**
+     * The core the job is running on, or null if it isn't on a core.
+     * Saves sockets from keeping a map of jobs to cores.
+     */
+    private Core core;
+
+    /**
+     * If the job has been released back to its {@link JobPool}.
+     */
+    private boolean released;
+
     /**
      * Constructs a new job.
      * @param theJobSize - The size of the job in seconds.
@@ -113,6 +138,57 @@ public class Job {
 //        this.atLimit = false;
         this.jobFinishEvent = null;
         this.lastResumeTime = 0.0;
+        this.socket = null;
+        this.core = null;
+        this.released = false;
+    }
+
+    /**
+     * Resets a released job so it can be reused as a new job.
+     * The job gets a new id.
+     *
+     * @param theJobSize - The size of the job in seconds.
+     */
+    final void reset(final double theJobSize) {
+        this.arrivalTime = 0.0;
+        this.startTime = 0.0;
+        this.finishTime = 0.0;
+        this.amountCompleted = 0.0;
+        this.amountDelayed = 0.0;
+        this.jobSize = theJobSize;
+        this.jobId = assignId();
+        this.jobFinishEvent = null;
+        this.lastResumeTime = 0.0;
+        this.socket = null;
+        this.core = null;
+        this.released = false;
+    }
+
+    /**
+     * Marks the job as released to its {@link JobPool}.
+     * Fails the simulation if the job was already released.
+     */
+    final void release() {
+        this.checkNotReleased();
+        this.released = true;
+    }
+
+    /**
+     * Checks if the job has been released to its {@link JobPool}.
+     *
+     * @return if the job has been released
+     */
+    public final boolean isReleased() {
+        return this.released;
+    }
+
+    /**
+     * Fails the simulation if the job is used after it was released.
+     */
+    private void checkNotReleased() {
+        if (this.released) {
+            Sim.fatalError("Job " + this.jobId + " used after release");
+        }
     }
 
 //    public void setAtLimit(boolean atLimit) {
@@ -161,9 +237,7 @@ public class Job {
      * @return the id assigned to the calling job
      */
     private long assignId() {
-        long toReturn = Job.currentId;
-        Job.currentId++;
-        return toReturn;
+        return Job.CURRENT_ID.getAndIncrement();
     }
 
     /**
@@ -181,6 +255,7 @@ public class Job {
      * @param time - the time the job arrives
      */
     public final void markArrival(final double time) {
+        this.checkNotReleased();
         if (this.arrivalTime > 0) {
             Sim.fatalError("Job arrival marked twice!");
         }
@@ -194,6 +269,7 @@ public class Job {
      * @param time - the start time of the job
      */
     public final void markStart(final double time) {
+        this.checkNotReleased();
         if (this.startTime > 0) {
             Sim.fatalError("Job start marked twice!");
         }
@@ -207,6 +283,7 @@ public class Job {
      * @param time - the finish time of the job
      */
     public final void markFinish(final double time) {
+        this.checkNotReleased();
         if (this.finishTime > 0) {
             Sim.fatalError("Job " + this.getJobId() + " finsih marked twice!");
         }
@@ -242,6 +319,7 @@ public class Job {
      * @return the size of the job (in seconds)
      */
     public final double getSize() {
+        this.checkNotReleased();
         return this.jobSize;
     }
 
@@ -281,6 +359,7 @@ public class Job {
      * @param aJobFinishEvent - The even that finishes the job.
      */
     public final void setJobFinishEvent(final JobFinishEvent aJobFinishEvent) {
+        this.checkNotReleased();
         this.jobFinishEvent = aJobFinishEvent;
     }
 
@@ -310,4 +389,42 @@ public class Job {
         return this.lastResumeTime;
     }
 
+    /**
+     * Sets the socket serving the job.
+     *
+     * @param aSocket - the socket serving the job, or null if none is
+     */
+    public final void setSocket(final Socket aSocket) {
+        this.checkNotReleased();
+        this.socket = aSocket;
+    }
+
+    /**
+     * Gets the socket serving the job.
+     *
+     * @return the socket serving the job, or null if none is
+     */
+    public final Socket getSocket() {
+        return this.socket;
+    }
+
+    /**
+     * Sets the core the job is running on.
+     *
+     * @param aCore - the core the job is running on, or null if none
+     */
+    public final void setCore(final Core aCore) {
+        this.checkNotReleased();
+        this.core = aCore;
+    }
+
+    /**
+     * Gets the core the job is running on.
+     *
+     * @return the core the job is running on, or null if none
+     */
+    public final Core getCore() {
+        return this.core;
+    }
+
 }
@@ -33,10 +33,12 @@ package core;
 
 import datacenter.Server;
 import datacenter.DataCenter;
-import datacenter.DataCenter.ClusterScheduler;
 
 /**
- * Represents a job arriving at a server.
+ * Represents a job arriving at the data center. The job comes either from
+ * a server's own arrival process or from the data center's central
+ * arrival stream, and the cluster scheduler decides which server it
+ * goes to.
  *
  * @author David Meisner (meisner@umich.edu)
  */
@@ -47,6 +49,12 @@ public final class JobArrivalEvent extends JobEvent {
      */
     private static final long serialVersionUID = 1L;
 
+    /**
+     * The server whose arrival process created the job,
+     * or null if it came from the central arrival stream.
+     */
+    private Server arrivalServer;
+
     /**
      * The server at which the job arrives.
      */
@@ -54,24 +62,37 @@ public final class JobArrivalEvent extends JobEvent {
 
     private DataCenter dataCenter;
 
-    private ClusterScheduler clusterScheduler;
-
     /**
      * Constructs a job arriving at a server.
      *
      * @param time - the time the job arrives
      * @param experiment - the experiment the event happens in
      * @param job = the job that arrives
-     * @param aServer - the server the job arrives at
+     * @param aServer - the server whose arrival process created the job,
+     * or null if it came from the data center's central arrival stream
      */
     public JobArrivalEvent(final double time,
                            final Experiment experiment,
                            final Job job,
                            final Server aServer) {
         super(time, experiment, job);
+        this.arrivalServer = aServer;
         this.server = aServer;
         this.dataCenter = getExperiment().getDataCenter();
-        this.clusterScheduler = dataCenter.getClusterScheduler();
+    }
+
+    /**
+     * Resets a released arrival event so it can be reused.
+     *
+     * @param time - the time the job arrives
+     * @param job = the job that arrives
+     * @param aServer - the server whose arrival process created the job,
+     * or null if it came from the data center's central arrival stream
+     */
+    void reset(final double time, final Job job, final Server aServer) {
+        this.reset(time, job);
+        this.arrivalServer = aServer;
+        this.server = aServer;
     }
 
     /**
@@ -79,38 +100,18 @@ public final class JobArrivalEvent extends JobEvent {
      */
     @Override
     public void process() {
-        this.server.createNewArrival(this.getTime());
+        if (this.arrivalServer == null) {
+            this.dataCenter.createNewArrival(this.getTime());
+        } else {
+            this.arrivalServer.createNewArrival(this.getTime());
+        }
         // Redistribute job to another server. Default is uniform
-                 if(this.clusterScheduler != ClusterScheduler.UNIFORM)
-                                 selectServer();
+        this.server = this.dataCenter.getClusterScheduler().selectServer(
+                this.getTime(), this.getJob(), this.dataCenter,
+                this.arrivalServer);
         this.server.insertJob(this.getTime(), this.getJob());
         this.getJob().markArrival(this.getTime());
+        this.getExperiment().getJobPool().releaseArrivalEvent(this);
     }
 
-    protected void selectServer() {
-        //Server newTargetServer = null;
-        if(this.clusterScheduler == ClusterScheduler.PACK){
-	    this.server = dataCenter.getPackingTargetServer(this.server);
-            //newTargetServer = dataCenter.getPackingTargetServer(this.server);
-            //if( newTargetServer != this.server ){
-                //this.server.decrementInvariants();
-                //newTargetServer.incrementInvariants();
-                //this.server = newTargetServer;
-            //}
-        }
-        else if(this.clusterScheduler == ClusterScheduler.PEAK){
-	    //System.out.println(dataCenter.allServersAbovePeak());
-	    // If all servers above peak efficiency, fall back to uniform scheduling
-	    if (dataCenter.allServersAbovePeak())
-		return;	    
-
-	    // If some servers below peak, then sort by eff & util.
-            this.server = dataCenter.getPeakTargetServer(this.server);
-            //if( newTargetServer != this.server ) {
-                //this.server.decrementInvariants();
-                //newTargetServer.incrementInvariants();
-                //this.server = newTargetServer;
-            //}
-       }
-    }
 }
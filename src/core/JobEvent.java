@@ -49,6 +49,11 @@ public abstract class JobEvent extends AbstractEvent {
      */
     private Job job;
 
+    /**
+     * If the event has been released back to its {@link JobPool}.
+     */
+    private boolean released;
+
     /**
      * Creates a new job event.
      *
@@ -61,6 +66,7 @@ public abstract class JobEvent extends AbstractEvent {
                     final Job aJob) {
         super(time, experiment);
         this.job = aJob;
+        this.released = false;
     }
 
     /**
@@ -69,7 +75,40 @@ public abstract class JobEvent extends AbstractEvent {
      * @return the event's job
      */
     public final Job getJob() {
+        if (this.released) {
+            Sim.fatalError("Event for job " + this.job.getJobId()
+                           + " used after release");
+        }
         return this.job;
     }
 
+    /**
+     * Resets a released event so it can be reused for another job.
+     *
+     * @param theTime - the time the event takes place
+     * @param aJob - the job related to the event
+     */
+    final void reset(final double theTime, final Job aJob) {
+        this.time = theTime;
+        this.job = aJob;
+        this.released = false;
+    }
+
+    /**
+     * Marks the event as released to its {@link JobPool}.
+     * Fails the simulation if the event was already released
+     * or is still waiting to be processed.
+     */
+    final void release() {
+        if (this.released) {
+            Sim.fatalError("Event for job " + this.job.getJobId()
+                           + " released twice");
+        }
+        if (this.isQueued()) {
+            Sim.fatalError("Event for job " + this.job.getJobId()
+                           + " released while queued");
+        }
+        this.released = true;
+    }
+
 }
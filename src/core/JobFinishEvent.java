@@ -87,6 +87,27 @@ public final class JobFinishEvent extends JobEvent {
         this.finishingSpeed = theFinishSpeed;
     }
 
+    /**
+     * Resets a released finish event so it can be reused.
+     *
+     * @param time - the time the job finishes
+     * @param job - the finishing job
+     * @param aServer - the server the job finished on
+     * @param theFinishTimeSet - the time the finish time was calculated at
+     * @param theFinishSpeed - the normalized speed at which the job finishes
+     */
+    void reset(final double time,
+               final Job job,
+               final Server aServer,
+               final double theFinishTimeSet,
+               final double theFinishSpeed) {
+        this.reset(time, job);
+        this.server = aServer;
+        job.setJobFinishEvent(this);
+        this.finishTimeSet = theFinishTimeSet;
+        this.finishingSpeed = theFinishSpeed;
+    }
+
     // TODO (meisner@umich.edu) Figure out exactly how this works
     /**
      * ...
@@ -96,6 +117,25 @@ public final class JobFinishEvent extends JobEvent {
         return this.finishTimeSet;
     }
 
+    /**
+     * Sets the time the job finish time was calculated at.
+     * Used when the event is rescheduled rather than replaced.
+     *
+     * @param theFinishTimeSet - the time the finish time was calculated at
+     */
+    public void setFinishTimeSet(final double theFinishTimeSet) {
+        this.finishTimeSet = theFinishTimeSet;
+    }
+
+    /**
+     * Get the server on which the job finishes.
+     *
+     * @return the server on which the job finishes
+     */
+    public Server getServer() {
+        return this.server;
+    }
+
     /**
      * Sets the normalized speed at which the job finishes.
      * 1.0  is no change in speed. 2.0 is twice as fast etc...
@@ -150,6 +190,9 @@ public final class JobFinishEvent extends JobEvent {
                            + " This should never happen waitTime = "
                            + waitTime);
         }
+
+        // The statistics are recorded, so the job and event can be reused
+        this.getExperiment().getJobPool().releaseJob(this.getJob());
     }
 
 }
@@ -0,0 +1,240 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package core;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+
+import datacenter.Server;
+
+/**
+ * Recycles the jobs of an experiment along with their arrival and
+ * finish events. A job and its finish event are released once the
+ * finish event has recorded the job's statistics, and an arrival event
+ * is released once it has been processed. New jobs and events are then
+ * taken from the pool, so a simulation in steady state does not
+ * allocate anything per job.
+ *
+ * Released objects are marked, and using one fails the simulation.
+ * Normally a released object is handed out again, after which a stale
+ * reference to it can no longer be told apart from the new job. In
+ * debug mode released objects are never reused, so any use after
+ * release is caught.
+ *
+ * A pool belongs to one experiment and is not thread safe.
+ */
+public final class JobPool implements Serializable {
+
+    /**
+     * The serialization id.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /** The experiment the pooled jobs are part of. */
+    private Experiment experiment;
+
+    /** Released jobs waiting to be reused. */
+    private ArrayDeque<Job> freeJobs;
+
+    /** Released arrival events waiting to be reused. */
+    private ArrayDeque<JobArrivalEvent> freeArrivalEvents;
+
+    /** Released finish events waiting to be reused. */
+    private ArrayDeque<JobFinishEvent> freeFinishEvents;
+
+    /** If released objects are kept out of the pool to catch reuse. */
+    private boolean debug;
+
+    /** The number of jobs the pool has had to allocate. */
+    private long nJobsAllocated;
+
+    /**
+     * Creates a new, empty job pool.
+     *
+     * @param anExperiment - the experiment the pooled jobs are part of
+     */
+    public JobPool(final Experiment anExperiment) {
+        this.experiment = anExperiment;
+        this.freeJobs = new ArrayDeque<Job>();
+        this.freeArrivalEvents = new ArrayDeque<JobArrivalEvent>();
+        this.freeFinishEvents = new ArrayDeque<JobFinishEvent>();
+        this.debug = false;
+        this.nJobsAllocated = 0;
+    }
+
+    /**
+     * Sets if the pool is in debug mode. In debug mode released jobs
+     * and events are never reused, so using one after it is released
+     * is always detected.
+     *
+     * @param debugMode - if the pool should be in debug mode
+     */
+    public void setDebug(final boolean debugMode) {
+        this.debug = debugMode;
+        if (debugMode) {
+            this.freeJobs.clear();
+            this.freeArrivalEvents.clear();
+            this.freeFinishEvents.clear();
+        }
+    }
+
+    /**
+     * Checks if the pool is in debug mode.
+     *
+     * @return if the pool is in debug mode
+     */
+    public boolean isDebug() {
+        return this.debug;
+    }
+
+    /**
+     * Gets the number of jobs the pool has had to allocate because
+     * there was no released job to reuse.
+     *
+     * @return the number of jobs allocated
+     */
+    public long getNJobsAllocated() {
+        return this.nJobsAllocated;
+    }
+
+    /**
+     * Gets a job, reusing a released one if possible.
+     *
+     * @param jobSize - the size of the job in seconds
+     * @return a job with a new id
+     */
+    public Job acquireJob(final double jobSize) {
+        Job job = this.freeJobs.poll();
+        if (job == null) {
+            this.nJobsAllocated++;
+            return new Job(jobSize);
+        }
+        job.reset(jobSize);
+        return job;
+    }
+
+    /**
+     * Gets an event for a job arriving,
+     * reusing a released one if possible.
+     *
+     * @param time - the time the job arrives
+     * @param job - the job that arrives
+     * @param server - the server whose arrival process created the job,
+     * or null if it came from the data center's central arrival stream
+     * @return the arrival event
+     */
+    public JobArrivalEvent acquireArrivalEvent(final double time,
+                                               final Job job,
+                                               final Server server) {
+        JobArrivalEvent event = this.freeArrivalEvents.poll();
+        if (event == null) {
+            return new JobArrivalEvent(time, this.experiment, job, server);
+        }
+        event.reset(time, job, server);
+        return event;
+    }
+
+    /**
+     * Gets an event for a job finishing,
+     * reusing a released one if possible.
+     * If the job's previous finish event is no longer queued,
+     * it is released since the job now has a new one.
+     *
+     * @param time - the time the job finishes
+     * @param job - the finishing job
+     * @param server - the server the job finishes on
+     * @param finishTimeSet - the time the finish time was calculated at
+     * @param finishSpeed - the normalized speed at which the job finishes
+     * @return the finish event
+     */
+    public JobFinishEvent acquireFinishEvent(final double time,
+                                             final Job job,
+                                             final Server server,
+                                             final double finishTimeSet,
+                                             final double finishSpeed) {
+        JobFinishEvent previous = job.getJobFinishEvent();
+        if (previous != null && !previous.isQueued()) {
+            this.releaseFinishEvent(previous);
+        }
+
+        JobFinishEvent event = this.freeFinishEvents.poll();
+        if (event == null) {
+            return new JobFinishEvent(time, this.experiment, job, server,
+                                      finishTimeSet, finishSpeed);
+        }
+        event.reset(time, job, server, finishTimeSet, finishSpeed);
+        return event;
+    }
+
+    /**
+     * Releases an arrival event once it has been processed.
+     *
+     * @param event - the processed arrival event
+     */
+    void releaseArrivalEvent(final JobArrivalEvent event) {
+        event.release();
+        if (!this.debug) {
+            this.freeArrivalEvents.add(event);
+        }
+    }
+
+    /**
+     * Releases a job which has left the system, along with its
+     * finish event. The job's statistics must already be recorded.
+     *
+     * @param job - the finished job
+     */
+    void releaseJob(final Job job) {
+        JobFinishEvent finishEvent = job.getJobFinishEvent();
+        if (finishEvent != null) {
+            if (finishEvent.isQueued()) {
+                Sim.fatalError("Job " + job.getJobId()
+                               + " released with its finish event queued");
+            }
+            this.releaseFinishEvent(finishEvent);
+        }
+        job.release();
+        if (!this.debug) {
+            this.freeJobs.add(job);
+        }
+    }
+
+    /**
+     * Releases a finish event which will not be processed again.
+     *
+     * @param event - the finish event
+     */
+    private void releaseFinishEvent(final JobFinishEvent event) {
+        event.release();
+        if (!this.debug) {
+            this.freeFinishEvents.add(event);
+        }
+    }
+
+}
@@ -0,0 +1,160 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package core;
+
+import core.Constants.StatName;
+
+/**
+ * Samples the regulation market at a fixed interval: the cost of the data
+ * center's power and the reward for the regulation capacity it offers
+ * over the interval. Samples go to the {@link StatName#MARKET_COST} and
+ * {@link StatName#MARKET_REWARD} statistics, which
+ * {@link Experiment#sampleRegulationMarket(double, double)} adds as
+ * tracked outputs, and running totals are kept.
+ * The event reschedules itself, so experiments that don't sample the
+ * market pay nothing for it.
+ */
+public final class MarketSampleEvent extends AbstractEvent {
+
+    /** The serialization id. */
+    private static final long serialVersionUID = 1L;
+
+    /** The seconds in an hour. */
+    private static final double SECONDS_PER_HOUR = 3600.0;
+
+    /** The time between samples in seconds. */
+    private double interval;
+
+    /** The regulation capacity offered by the data center in MW. */
+    private double regulationCapacity;
+
+    /** The total cost of electricity so far in dollars. */
+    private double totalCost;
+
+    /** The total regulation reward so far in dollars. */
+    private double totalReward;
+
+    /** The number of samples taken. */
+    private long nSamples;
+
+    /**
+     * Creates a new MarketSampleEvent.
+     *
+     * @param time - the time of the first sample
+     * @param experiment - the experiment the event occurs in
+     * @param theInterval - the time between samples in seconds
+     * @param theRegulationCapacity - the regulation capacity offered by
+     * the data center in MW
+     */
+    public MarketSampleEvent(final double time,
+                             final Experiment experiment,
+                             final double theInterval,
+                             final double theRegulationCapacity) {
+        super(time, experiment);
+        if (theInterval <= 0) {
+            Sim.fatalError("Market sample interval must be positive");
+        }
+        this.interval = theInterval;
+        this.regulationCapacity = theRegulationCapacity;
+        this.totalCost = 0.0d;
+        this.totalReward = 0.0d;
+        this.nSamples = 0;
+    }
+
+    /**
+     * Accounts for the next interval and schedules the next sample.
+     */
+    @Override
+    public void process() {
+        Experiment experiment = this.getExperiment();
+        double time = this.getTime();
+        double hours = this.interval / SECONDS_PER_HOUR;
+
+        double power
+            = experiment.getDataCenter().getDataCenterPowerConsumption();
+        double cost = RegulationMarket.getCostofConsumption(power, time)
+                      * hours;
+        double reward = RegulationMarket.getReward(time)
+                        * this.regulationCapacity * hours;
+
+        this.totalCost += cost;
+        this.totalReward += reward;
+        this.nSamples++;
+        experiment.getStats().getStat(StatName.MARKET_COST).addSample(cost);
+        experiment.getStats().getStat(StatName.MARKET_REWARD)
+                .addSample(reward);
+
+        experiment.rescheduleEvent(this, time + this.interval);
+    }
+
+    /**
+     * Gets the regulation capacity offered by the data center.
+     *
+     * @return the regulation capacity in MW
+     */
+    public double getRegulationCapacity() {
+        return this.regulationCapacity;
+    }
+
+    /**
+     * Sets the regulation capacity offered by the data center.
+     *
+     * @param capacity - the regulation capacity in MW
+     */
+    public void setRegulationCapacity(final double capacity) {
+        this.regulationCapacity = capacity;
+    }
+
+    /**
+     * Gets the total cost of electricity so far.
+     *
+     * @return the total cost in dollars
+     */
+    public double getTotalCost() {
+        return this.totalCost;
+    }
+
+    /**
+     * Gets the total regulation reward so far.
+     *
+     * @return the total reward in dollars
+     */
+    public double getTotalReward() {
+        return this.totalReward;
+    }
+
+    /**
+     * Gets the number of samples taken.
+     *
+     * @return the number of samples taken
+     */
+    public long getNSamples() {
+        return this.nSamples;
+    }
+
+}
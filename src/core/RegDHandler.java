@@ -1,207 +1,427 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
 package core;
 
-import java.io.*;
-import java.util.*;
-import java.lang.*;
-import java.text.SimpleDateFormat;
-import java.text.ParseException;
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
 
-/** 
- * This class contains the functions used in fetching the regulation-D signals.
+/**
+ * A regulation-D signal: the normalized regulation request sent by the
+ * grid operator over time, and the mileage (sum of signal changes) of
+ * each hour.
+ * <p>
+ * The signal is stored in primitive arrays. When its samples are evenly
+ * spaced a lookup is a direct index computation; otherwise it is a
+ * binary search over the sample times. The signal repeats after its
+ * last sample, so a short trace can drive a long simulation.
+ * <p>
+ * The default signal ({@link #getDefault()}) is the three hour long
+ * regd_* files in workloads/, one hour each, loaded once per process.
  */
-public class RegDHandler {
-  /**
-   * An array of file names in 'workloads/' from which to pull regulation-D signals
-   * These files should contain 1800 entries (1 hour assuming interval of 2 seconds between each signal value)
-   */
-  private static String[] regDFiles = {"regd_midreg1","regd_midreg2","regd_highreg"};
-
-    /**
-     * An array containing the timestamps present in the regulation-D signal file.
-     */
-  private static ArrayList<Double> timeStamps = new ArrayList<Double>();
-
-    /**
-     * An array containing the regulation-D values present in the regulation-D signal file.
-     */
-  private static ArrayList<Double> regValues = new ArrayList<Double>();
-  
-  private static int curHour = 0;
-  private static double mileage = getNewMileage(nextRegDFile());
-  private static int index = 0;
-
-    /**
-     * Extracts regulation-D signals and corresponding timestamps from a file and populates
-     * the respective arrays <timeStamps, regValues>
-     *
-     * @param fileName - the file from which the data will be extracted. NOTE: The file must be 
-     * 			 present in the /workloads/ directory
-     */
-  public static void getRegDFromFile(String fileName) {
-        if (fileName.startsWith("regd_")) { 
-		BufferedReader bufReader = null;
-		String line = "";
-		double time = 0;
-
-		double interval = 2.0; // interval of timestamps (2 seconds for data in 'regd_' files)
-		try {
-			bufReader = new BufferedReader(new FileReader("workloads/"+fileName));
-			while( (line = bufReader.readLine()) != null) {
-				line = line.trim();
-				timeStamps.add(time);
-				regValues.add(Double.parseDouble(line));
-				time += interval;
-			}
-		} catch (Exception e) {
-			System.out.println("[getRegDFromFile]");
- 			e.printStackTrace();
-			System.exit(0);
-		}
+public final class RegDHandler implements Serializable {
+
+    /** The serialization id. */
+    private static final long serialVersionUID = 1L;
+
+    /** The directory signal files are read from. */
+    private static final String WORKLOAD_DIR = "workloads/";
+
+    /**
+     * The files of the default signal, one hour each, in order.
+     * Each has one value per line every {@link #REGD_FILE_INTERVAL}.
+     */
+    private static final String[] DEFAULT_FILES = {"regd_midreg1",
+                                                   "regd_midreg2",
+                                                   "regd_highreg"};
+
+    /** The time between values (in seconds) in regd_* files. */
+    public static final double REGD_FILE_INTERVAL = 2.0;
+
+    /** The seconds in an hour, the period mileage is computed over. */
+    private static final double SECONDS_PER_HOUR = 3600.0;
+
+    /** The default signal, loaded on first use. */
+    private static RegDHandler defaultSignal = null;
+
+    /**
+     * The time of each sample, or null if the samples are evenly spaced
+     * starting at time 0.
+     */
+    private final double[] times;
+
+    /** The signal value of each sample. */
+    private final double[] values;
+
+    /** The time between samples if they are evenly spaced. */
+    private final double interval;
+
+    /** The length of the signal (in seconds) before it repeats. */
+    private final double period;
+
+    /** The mileage of each hour of the signal. */
+    private final double[] hourlyMileage;
+
+    /**
+     * Creates a signal with evenly spaced samples starting at time 0.
+     *
+     * @param theValues - the signal value of each sample
+     * @param theInterval - the time (in seconds) between samples
+     */
+    public RegDHandler(final double[] theValues, final double theInterval) {
+        this(null, theValues, theInterval);
+    }
+
+    /**
+     * Creates a signal with arbitrary sample times. Sample i holds from
+     * times[i] until times[i + 1]. The last sample holds for as long
+     * as the gap before it.
+     *
+     * @param theTimes - the time of each sample, starting at 0
+     * and increasing
+     * @param theValues - the signal value of each sample
+     */
+    public RegDHandler(final double[] theTimes, final double[] theValues) {
+        this(theTimes, theValues, 0.0);
+    }
+
+    /**
+     * Creates a signal.
+     *
+     * @param theTimes - the time of each sample or null if they are
+     * evenly spaced
+     * @param theValues - the signal value of each sample
+     * @param theInterval - the time between samples if evenly spaced
+     */
+    private RegDHandler(final double[] theTimes,
+                        final double[] theValues,
+                        final double theInterval) {
+        if (theValues.length < 2) {
+            Sim.fatalError("A regulation signal needs at least two samples");
+        }
+        this.values = theValues;
+        if (theTimes == null) {
+            if (theInterval <= 0) {
+                Sim.fatalError("Regulation signal interval must be positive");
+            }
+            this.times = null;
+            this.interval = theInterval;
+            this.period = theInterval * theValues.length;
         } else {
-		String line = "";
-		String csvSplitChar = ",";
-		BufferedReader bufReader = null;
-		
-		String timeStr = "";
-		Date date = new Date();
-		SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-
-		try {
-			bufReader = new BufferedReader(new FileReader("workloads/" + fileName));
-			while( (line = bufReader.readLine()) != null) {
-				String[] getLine = line.split(csvSplitChar);
-				if(getLine[1].equals("RegDTest")) { //FIXME: prone to errors if file doesnt start with "RegDTest"
-					continue; // ignore this line
-				}
-				else {
-					//getLine[0] is in sec
-					timeStr = getLine[0];	
-					date = sdf.parse("1970-01-01 " + timeStr);
-					
-					timeStamps.add((double)(date.getTime() - 28800000)/1000); // subtract for timezone diff
-					regValues.add(Double.parseDouble(getLine[1]) );
-				}
-			}
-		} catch (IOException e) {
-			e.printStackTrace();
-			System.exit(0);
-		} catch (ParseException e) {
-			System.out.println("Problem reading date\n");
-			System.exit(0);
-		} catch (Exception e) {
-			System.out.println("Problem reading regulation data from file: <" + fileName + ">!");
-			e.printStackTrace();
-			System.exit(0);
-		}
-	}
-        /*
-	System.out.println("[getRegDFromFile] Contents:\n");
-	System.out.println(timeStamps.toString());
-	System.out.println(regValues.toString());
-	System.exit(0);
-        */
-    }
-	
-    /**
-     * Gets the regulation-D signal corresponding to the given time
-     * If no entry in map exists for the time, fetches regulation-D signal for next closest timeStamp
-     *
-     * @param time - the time in seconds for which we want to get the reg D signal
-     *
-     * @return the regD value corresponding to <time>
-     */
-     public static double getRegDSignal(double time) {
-	if(regValues.isEmpty() || timeStamps.isEmpty()) {
-		System.out.println("Error fetching regulation signal; array is empty!");
-		System.exit(1);
-	}
-	boolean done = false;
-	double diff = timeStamps.get(1) - timeStamps.get(0); // time difference between subsequent timeStamps
-	double maxTime = timeStamps.get(timeStamps.size() - 1);
-	double currentTime = 0.0;
-	int index = 0;
-
-	while(!done) {
-		if( (currentTime > maxTime + (3*diff)) ) {
-			System.out.println("Error: Unable to fetch accurate regualtion signal; maxTime exceeded!");
-			System.out.println("maxTime is: " + maxTime + "\ndiff is: " + diff);
-			System.exit(1);
-		}
-		if(currentTime > time) {
-			// return reg signal corresponding to the previous timestamp
-			return regValues.get(index - 1);
-		}
-		currentTime += diff; //increment currentTime to next timestamp
-		++index;
-	}
-	System.out.println("Error: Unable to fetch regulation signal; while loop has exited"); // this should never be reached but just in case
-	System.exit(1);
-	return -1000.0;
-    }
-
-  /**
-   * Returns mileage for the given time.
-   * Mileage is defined as the sum of the change in regulation signal over one hour.
-   * Mileage should be updated every hour.
-   * @param curTime The time for which to compute mileage
-   * @return The mileage for the given time.
-   */
-  public static double getCurrentMileage(double curTime) {
-    // check if time is on the hour
-    if(curTime % 3600 == 0) {
-      // verify that time is not the same hour
-      if(curTime / 3600 != curHour) {
-        curHour = (int)curTime / 3600;
-        mileage = getNewMileage(nextRegDFile());
-      }
-    }
-    return mileage;
-  }
-  /**
-   * Computes and returns mileage based on regulation signal data
-   * Note: The regulation data should be over the course of one hour
-   * @param fileName The name of the file containing regulation d signals
-   * @return The new mileage
-   */
-  public static double getNewMileage(String fileName) {
-    BufferedReader bufReader = null;
-    String line = "";
-
-    boolean initialFlag = true;
-    double newMileage = 0.0;
-    double absDifference = 0.0;
-    double newVal = 0.0;
-    double oldVal = 0.0;
-
-    if(!fileName.startsWith("regd_")) {
-      System.out.println("File used to update mileage should start with 'regd_'");
-      System.exit(0);
-    }
-
-    try {
-      bufReader = new BufferedReader(new FileReader("workloads/"+fileName));
-      while( (line = bufReader.readLine()) != null) {
-        line = line.trim();
-        newVal = Double.parseDouble(line);
-        if(initialFlag) { initialFlag = false;}  // don't compute mileage for inital regD value (no previous)
-        else { absDifference = Math.abs(newVal - oldVal);} 
-        newMileage += absDifference;
-        oldVal = newVal;
-      }
-    } 
-    catch (Exception e) {
-      e.printStackTrace();
-      System.exit(0);
-    }
-    return newMileage;
-  }
-
-  /** 
-   * Returns a string containing the name of a file containing regulation signals
-   * @return A string containing the name of a file containing regulation signals
-   */
-  public static String nextRegDFile() {
-    if(index > regDFiles.length-1) { index = 0; } // restart at the beginning of files array
-    return regDFiles[index++];
-  }
+            if (theTimes.length != theValues.length || theTimes[0] != 0) {
+                Sim.fatalError("Regulation signal times must start at 0"
+                               + " and match the values");
+            }
+            boolean even = true;
+            double gap = theTimes[1] - theTimes[0];
+            for (int i = 1; i < theTimes.length; i++) {
+                double thisGap = theTimes[i] - theTimes[i - 1];
+                if (thisGap <= 0) {
+                    Sim.fatalError("Regulation signal times must increase");
+                }
+                even &= Math.abs(thisGap - gap) < 1e-9;
+            }
+            int last = theTimes.length - 1;
+            this.times = even ? null : theTimes;
+            this.interval = even ? gap : 0.0;
+            this.period = theTimes[last] + (theTimes[last]
+                                            - theTimes[last - 1]);
+        }
+        this.hourlyMileage = this.computeHourlyMileage();
+    }
+
+    /**
+     * Gets the default signal, the regd_* files one hour after another.
+     *
+     * @return the default signal
+     */
+    public static synchronized RegDHandler getDefault() {
+        if (defaultSignal == null) {
+            defaultSignal = loadRegDFiles(DEFAULT_FILES);
+        }
+
+        return defaultSignal;
+    }
+
+    /**
+     * Loads a signal from regd_* style files in workloads/, which have
+     * one value per line every {@link #REGD_FILE_INTERVAL} seconds.
+     * The files are joined one after another.
+     *
+     * @param fileNames - the files to load
+     * @return the signal in the files
+     */
+    public static RegDHandler loadRegDFiles(final String... fileNames) {
+        ArrayList<double[]> columns = new ArrayList<double[]>();
+        int nValues = 0;
+        for (String fileName : fileNames) {
+            double[] fileValues = readColumn(fileName);
+            columns.add(fileValues);
+            nValues += fileValues.length;
+        }
+
+        double[] allValues = new double[nValues];
+        int offset = 0;
+        for (double[] fileValues : columns) {
+            System.arraycopy(fileValues, 0, allValues, offset,
+                             fileValues.length);
+            offset += fileValues.length;
+        }
+
+        return new RegDHandler(allValues, REGD_FILE_INTERVAL);
+    }
+
+    /**
+     * Loads a signal from a file in workloads/ with "H:MM:SS,value" lines
+     * (e.g., reg-d.csv). Lines without a time are skipped.
+     *
+     * @param fileName - the file to load
+     * @return the signal in the file
+     */
+    public static RegDHandler loadTimestampedFile(final String fileName) {
+        ArrayList<double[]> samples = new ArrayList<double[]>();
+        try {
+            BufferedReader reader
+                = new BufferedReader(new FileReader(WORKLOAD_DIR + fileName));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.trim().split(",");
+                if (parts.length < 2 || parts[0].length() == 0) {
+                    // The header
+                    continue;
+                }
+                String[] clock = parts[0].split(":");
+                double seconds = Integer.parseInt(clock[0]) * SECONDS_PER_HOUR
+                                 + Integer.parseInt(clock[1]) * 60
+                                 + Double.parseDouble(clock[2]);
+                samples.add(new double[] {seconds,
+                                          Double.parseDouble(parts[1])});
+            }
+            reader.close();
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            Sim.fatalError("Couldn't load regulation signal " + fileName);
+        } catch (RuntimeException e) {
+            System.err.println("Error: " + e.getMessage());
+            Sim.fatalError("Badly formatted regulation signal " + fileName);
+        }
+
+        double[] sampleTimes = new double[samples.size()];
+        double[] sampleValues = new double[samples.size()];
+        for (int i = 0; i < sampleTimes.length; i++) {
+            sampleTimes[i] = samples.get(i)[0];
+            sampleValues[i] = samples.get(i)[1];
+        }
+
+        return new RegDHandler(sampleTimes, sampleValues);
+    }
+
+    /**
+     * Reads a file in workloads/ with one value per line.
+     *
+     * @param fileName - the file to read
+     * @return the values in the file
+     */
+    private static double[] readColumn(final String fileName) {
+        double[] column = new double[0];
+        try {
+            BufferedReader reader
+                = new BufferedReader(new FileReader(WORKLOAD_DIR + fileName));
+            int n = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.length() == 0) {
+                    continue;
+                }
+                if (n == column.length) {
+                    column = Arrays.copyOf(column, Math.max(16, 2 * n));
+                }
+                column[n++] = Double.parseDouble(line);
+            }
+            reader.close();
+            column = Arrays.copyOf(column, n);
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            Sim.fatalError("Couldn't load regulation signal " + fileName);
+        } catch (NumberFormatException e) {
+            System.err.println("Error: " + e.getMessage());
+            Sim.fatalError("Badly formatted regulation signal " + fileName);
+        }
+
+        return column;
+    }
+
+    /**
+     * Computes the mileage of every hour of the signal: the sum of the
+     * absolute changes between consecutive samples in the hour.
+     *
+     * @return the mileage of each hour
+     */
+    private double[] computeHourlyMileage() {
+        int nHours = (int) Math.ceil(this.period / SECONDS_PER_HOUR);
+        double[] mileage = new double[nHours];
+        int lastHour = this.getHour(this.getSampleTime(0));
+        for (int i = 1; i < this.values.length; i++) {
+            int hour = this.getHour(this.getSampleTime(i));
+            if (hour == lastHour) {
+                mileage[hour] += Math.abs(this.values[i]
+                                          - this.values[i - 1]);
+            }
+            lastHour = hour;
+        }
+
+        return mileage;
+    }
+
+    /**
+     * Gets the time of a sample.
+     *
+     * @param index - the index of the sample
+     * @return the time of the sample
+     */
+    private double getSampleTime(final int index) {
+        if (this.times == null) {
+            return index * this.interval;
+        }
+
+        return this.times[index];
+    }
+
+    /**
+     * Gets the hour of the signal a time falls in.
+     *
+     * @param time - a time within one period of the signal
+     * @return the hour of the signal
+     */
+    private int getHour(final double time) {
+        return (int) (time / SECONDS_PER_HOUR);
+    }
+
+    /**
+     * Wraps a time into the first period of the signal.
+     *
+     * @param time - the time in seconds
+     * @return the equivalent time in the first period
+     */
+    private double wrap(final double time) {
+        if (time < this.period) {
+            return time;
+        }
+
+        return time % this.period;
+    }
+
+    /**
+     * Gets the index of the sample in effect at a time.
+     *
+     * @param time - the time in seconds
+     * @return the index of the sample in effect
+     */
+    public int getIndex(final double time) {
+        double wrapped = this.wrap(time);
+        int index;
+        if (this.times == null) {
+            index = (int) (wrapped / this.interval);
+        } else {
+            index = Arrays.binarySearch(this.times, wrapped);
+            if (index < 0) {
+                index = -index - 2;
+            }
+        }
+
+        return Math.max(0, Math.min(index, this.values.length - 1));
+    }
+
+    /**
+     * Gets the regulation signal at a time.
+     *
+     * @param time - the time in seconds
+     * @return the regulation signal at the time
+     */
+    public double getSignal(final double time) {
+        return this.values[this.getIndex(time)];
+    }
+
+    /**
+     * Gets the mileage of the hour a time falls in.
+     *
+     * @param time - the time in seconds
+     * @return the mileage of the hour
+     */
+    public double getMileage(final double time) {
+        int hour = this.getHour(this.wrap(time));
+
+        return this.hourlyMileage[Math.min(hour,
+                                           this.hourlyMileage.length - 1)];
+    }
+
+    /**
+     * Gets the number of samples in the signal.
+     *
+     * @return the number of samples in the signal
+     */
+    public int getNSamples() {
+        return this.values.length;
+    }
+
+    /**
+     * Gets the length of the signal (in seconds) before it repeats.
+     *
+     * @return the length of the signal in seconds
+     */
+    public double getPeriod() {
+        return this.period;
+    }
+
+    /**
+     * Gets the regulation-D signal of the default signal at a time.
+     *
+     * @param time - the time in seconds
+     * @return the regulation signal at the time
+     */
+    public static double getRegDSignal(final double time) {
+        return getDefault().getSignal(time);
+    }
+
+    /**
+     * Gets the mileage of the default signal for the hour a time is in.
+     * Mileage is the sum of the changes in the regulation signal over
+     * the hour.
+     *
+     * @param time - the time in seconds
+     * @return the mileage of the hour
+     */
+    public static double getCurrentMileage(final double time) {
+        return getDefault().getMileage(time);
+    }
+
 }
@@ -1,95 +1,252 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
 package core;
 
-import java.io.*;
-import java.util.HashMap;
-
-public class RegulationMarket {
-   /**
-    * A map storing timestamps and the cost of electricity for those times.
-    * Keys: <Double> timestamps in seconds 
-    * Values: <Double> Cost of electricity $/MWatt for this timestamp
-    */ 
-   private static HashMap<Double,Double> elecCostMap = new HashMap<Double,Double>();
-   
-   /**
-    * A map storing timestamps and an array of values including ccp, pcp, r, performance score.
-    * Keys: <Double> timestamps in seconds
-    * Values: <Double[]> CCP, PCP, Performance Score, R
-    */
-   private static HashMap<Double,Double[]> timeRewardMap = new HashMap<Double,Double[]>();
-   
-   /**
-    * Populates elecCostMap and timeRewardMap.
-    */
-   public static void importTraces() {
-      HashMap[] maps = new HashMap[2];
-      maps = DataImport.getTraceFromFile_RC("reward-cost.prn");
-      elecCostMap = maps[0];
-      timeRewardMap = maps[1];
-   }
-
-   /**
-    * Computes cost of power consumption.
-    * @param powerConsumption A value of power consumption in MWatts.
-    * @param timeInSec A time in seconds.
-    * @return The cost of consumption $/MWatt per hour. 
-    */
-   public static double getCostofConsumption(double powerConsumption, double timeInSec) {
-      // elecCostMap keys are in hours, so get current hour given timeInSec
-      double curHour = 0;
-      curHour = Math.floor(timeInSec / 3600); 
-      if(elecCostMap.containsKey(curHour)) {
-         return powerConsumption * elecCostMap.get(curHour);
-      }
-      else {
-         //return getCostofConsumption(powerConsumption, curHour+1); // check next highest time
-         System.out.println("[Error: RegulationMarket.getCostofConsumption] No electricity cost entry found for time:"+curHour+"!");
-         System.exit(0);
-      }
-      return -1;
-   }
-
-  /**
-   * Computes the reward for a given time and regulation D signals. 
-   * The time determines electricity cost which changes by the hour.
-   * Reward is computed using mileage which is computed as the difference between subsequent regulation D values.
-   * @param time The time in seconds.
-   * @param regD The current regulation D signal.
-   * @param regDprev The previous regulation D signal
-   * @return The reward in dollars.
-   */
-  public static double getReward(double time, double regD, double regDprev) {
-    Double[] rewardArr = new Double[4]; // CCP, PCP, PerfScore, R
-    Double ccp, pcp, mileage, r, performanceScore, reward;
-    ccp = pcp = mileage = r = performanceScore = reward = 0.0;
-
-    // Reward = (CCP + PCP * Mileage) * R * Performance Score
-    try {
-      time = Math.floor(time / 3600) * 3600; // normalize time to the hour for elecCostMap
-      rewardArr = timeRewardMap.get(time); // map get returns array [lmpVal, reward]
-      if(rewardArr == null) {
-        throw new NullPointerException("[getReward] No map entry for this time: "+time+"!");
-      }      
-      ccp = rewardArr[0];
-      pcp = rewardArr[1];
-      r = rewardArr[2];
-      performanceScore = rewardArr[3];
-      //mileage = regD - regDprev > 0 ? (regD - regDprev) : -1 * (regD - regDprev);
-      mileage = RegDHandler.getCurrentMileage(time);
-      if(mileage == 0) {
-        System.out.println("NOTE: No change in regulation D signal! Mileage = 0.");
-      }
-      System.out.println("Reward = ("+ccp+" + ("+pcp+" * "+mileage+")) * "+r+" * "+performanceScore);
-      reward = (ccp + (pcp * mileage)) * r * performanceScore;
-    } 
-    catch (NullPointerException e) {
-      System.out.println(e.getMessage());
-      System.exit(0);
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+
+/**
+ * Hourly prices of the regulation market: the cost of electricity and
+ * the terms of the regulation reward. Hour h of a simulation uses row h
+ * of the market trace, and the trace repeats after its last row.
+ * <p>
+ * The default market ({@link #getDefault()}) is workloads/reward-cost.prn,
+ * loaded once per process.
+ */
+public final class RegulationMarket implements Serializable {
+
+    /** The serialization id. */
+    private static final long serialVersionUID = 1L;
+
+    /** The default market trace in workloads/. */
+    private static final String DEFAULT_FILE = "reward-cost.prn";
+
+    /** The seconds in an hour. */
+    private static final double SECONDS_PER_HOUR = 3600.0;
+
+    /** The default market, loaded on first use. */
+    private static RegulationMarket defaultMarket = null;
+
+    /** The real time price of electricity ($/MWh) for each hour. */
+    private final double[] electricityCost;
+
+    /** The capability clearing price ($/MW) for each hour. */
+    private final double[] ccp;
+
+    /** The performance clearing price ($/MW) for each hour. */
+    private final double[] pcp;
+
+    /** The performance score for each hour. */
+    private final double[] performanceScore;
+
+    /** The benefit factor R for each hour. */
+    private final double[] r;
+
+    /**
+     * Creates a new RegulationMarket from hourly prices.
+     *
+     * @param theElectricityCost - the price of electricity ($/MWh)
+     * @param theCcp - the capability clearing price ($/MW)
+     * @param thePcp - the performance clearing price ($/MW)
+     * @param thePerformanceScore - the performance score
+     * @param theR - the benefit factor
+     */
+    public RegulationMarket(final double[] theElectricityCost,
+                            final double[] theCcp,
+                            final double[] thePcp,
+                            final double[] thePerformanceScore,
+                            final double[] theR) {
+        int nHours = theElectricityCost.length;
+        if (nHours == 0 || theCcp.length != nHours || thePcp.length != nHours
+                || thePerformanceScore.length != nHours
+                || theR.length != nHours) {
+            Sim.fatalError("Market prices must have the same, nonzero"
+                           + " number of hours");
+        }
+        this.electricityCost = theElectricityCost;
+        this.ccp = theCcp;
+        this.pcp = thePcp;
+        this.performanceScore = thePerformanceScore;
+        this.r = theR;
+    }
+
+    /**
+     * Gets the default market (workloads/reward-cost.prn).
+     *
+     * @return the default market
+     */
+    public static synchronized RegulationMarket getDefault() {
+        if (defaultMarket == null) {
+            defaultMarket = loadMarket(DEFAULT_FILE);
+        }
+
+        return defaultMarket;
+    }
+
+    /**
+     * Loads a market from a file in workloads/ formatted like
+     * reward-cost.prn: a header line, then one line per hour with the
+     * columns date, time, LMP, CCP, PCP, mileage, performance score, R,
+     * reward and average power, separated by spaces.
+     *
+     * @param fileName - the file to load
+     * @return the market in the file
+     */
+    public static RegulationMarket loadMarket(final String fileName) {
+        ArrayList<double[]> rows = new ArrayList<double[]>();
+        try {
+            BufferedReader reader
+                = new BufferedReader(new FileReader("workloads/" + fileName));
+            // Skip the header
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.length() == 0) {
+                    continue;
+                }
+                String[] columns = line.split("\\s+");
+                rows.add(new double[] {Double.parseDouble(columns[2]),
+                                       Double.parseDouble(columns[3]),
+                                       Double.parseDouble(columns[4]),
+                                       Double.parseDouble(columns[6]),
+                                       Double.parseDouble(columns[7])});
+            }
+            reader.close();
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            Sim.fatalError("Couldn't load market trace " + fileName);
+        } catch (RuntimeException e) {
+            System.err.println("Error: " + e.getMessage());
+            Sim.fatalError("Badly formatted market trace " + fileName);
+        }
+
+        int nHours = rows.size();
+        double[][] columns = new double[5][nHours];
+        for (int h = 0; h < nHours; h++) {
+            for (int c = 0; c < columns.length; c++) {
+                columns[c][h] = rows.get(h)[c];
+            }
+        }
+
+        return new RegulationMarket(columns[0], columns[1], columns[2],
+                                    columns[3], columns[4]);
     }
-    catch(Exception e) {
-      e.printStackTrace();
-      System.exit(0);
+
+    /**
+     * Gets the row of the trace for a time.
+     *
+     * @param time - the time in seconds
+     * @return the row of the trace
+     */
+    private int getHour(final double time) {
+        long hour = (long) (time / SECONDS_PER_HOUR);
+
+        return (int) (hour % this.electricityCost.length);
+    }
+
+    /**
+     * Gets the number of hours in the market trace.
+     *
+     * @return the number of hours in the market trace
+     */
+    public int getNHours() {
+        return this.electricityCost.length;
+    }
+
+    /**
+     * Gets the price of electricity at a time.
+     *
+     * @param time - the time in seconds
+     * @return the price of electricity in $/MWh
+     */
+    public double getElectricityCost(final double time) {
+        return this.electricityCost[this.getHour(time)];
+    }
+
+    /**
+     * Gets the rate of reward for providing regulation at a time:
+     * (CCP + PCP * mileage) * R * performance score, where the mileage is
+     * that of the regulation signal in the same hour.
+     *
+     * @param time - the time in seconds
+     * @param signal - the regulation signal
+     * @return the reward in $/MWh of regulation capacity
+     */
+    public double getRewardRate(final double time, final RegDHandler signal) {
+        return this.getRewardRate(time, signal,
+                                  this.performanceScore[this.getHour(time)]);
     }
-    return reward;
-  }
-} 
+
+    /**
+     * Gets the rate of reward for providing regulation at a time with a
+     * given performance score instead of the one in the market trace.
+     *
+     * @param time - the time in seconds
+     * @param signal - the regulation signal
+     * @param score - the performance score (0-1)
+     * @return the reward in $/MWh of regulation capacity
+     */
+    public double getRewardRate(final double time,
+                                final RegDHandler signal,
+                                final double score) {
+        int hour = this.getHour(time);
+        double mileage = signal.getMileage(time);
+
+        return (this.ccp[hour] + this.pcp[hour] * mileage) * this.r[hour]
+               * score;
+    }
+
+    /**
+     * Computes the hourly cost of power consumption under the default
+     * market.
+     *
+     * @param powerConsumption - a power consumption in MW
+     * @param timeInSec - a time in seconds
+     * @return the cost of the consumption in $ per hour
+     */
+    public static double getCostofConsumption(final double powerConsumption,
+                                              final double timeInSec) {
+        return powerConsumption * getDefault().getElectricityCost(timeInSec);
+    }
+
+    /**
+     * Computes the hourly reward rate for regulation under the default
+     * market and regulation signal.
+     *
+     * @param time - the time in seconds
+     * @return the reward in $/MWh of regulation capacity
+     */
+    public static double getReward(final double time) {
+        return getDefault().getRewardRate(time, RegDHandler.getDefault());
+    }
+
+}
@@ -30,6 +30,13 @@
  */
 package core;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
 /**
  * Contains helper functions for debugging the simulator.
  *
@@ -138,6 +145,36 @@ public final class Sim {
         }
     }
 
+    /**
+     * Makes a deep copy of an object by serializing and deserializing it.
+     * This is the same copy an object gets when it is sent to a slave.
+     * @param <T> - the type of the object
+     * @param object - the object to copy
+     * @return the copy
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Serializable> T deepCopy(final T object) {
+        T copy = null;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+            out.writeObject(object);
+            out.close();
+            ObjectInputStream in = new ObjectInputStream(
+                    new ByteArrayInputStream(bytes.toByteArray()));
+            copy = (T) in.readObject();
+            in.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+            Sim.fatalError("Couldn't copy " + object.getClass());
+        } catch (ClassNotFoundException e) {
+            e.printStackTrace();
+            Sim.fatalError("Couldn't copy " + object.getClass());
+        }
+
+        return copy;
+    }
+
     /**
      * Prints a fatal error and ends the simulation.
      * @param message - the fatal error to print
@@ -0,0 +1,60 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package datacenter;
+
+import java.io.Serializable;
+
+import core.Job;
+
+/**
+ * Decides which server in a data center an arriving job goes to.
+ *
+ * Jobs either come from each server's own arrival process, in which case
+ * the scheduler may redirect them away from that server, or from the
+ * data center's central arrival stream (see
+ * {@link DataCenter#setArrivalProcess}), in which case there is no
+ * arrival server and the scheduler must pick one.
+ */
+public interface ClusterScheduler extends Serializable {
+
+    /**
+     * Picks the server a job goes to.
+     *
+     * @param time - the time the job arrives
+     * @param job - the arriving job
+     * @param dataCenter - the data center the job arrives at
+     * @param arrivalServer - the server whose arrival process created the
+     * job, or null if it came from the central arrival stream
+     * @return the server the job goes to
+     */
+    Server selectServer(double time,
+                        Job job,
+                        DataCenter dataCenter,
+                        Server arrivalServer);
+
+}
@@ -224,13 +224,15 @@ public final class Core implements Powerable, Serializable {
             double slowdown = (1 - alpha) + alpha / this.speed;
             double finishTime = time + this.job.getSize() * slowdown; //used to be divide?
             Server server = this.socket.getServer();
-            JobFinishEvent finishEvent = new JobFinishEvent(finishTime,
-                    experiment, aJob, server, time, this.speed);
+            JobFinishEvent finishEvent = this.experiment.getJobPool()
+                    .acquireFinishEvent(finishTime, aJob, server, time,
+                                        this.speed);
             aJob.setLastResumeTime(time);
             this.experiment.addEvent(finishEvent);
             // Core now goes into full power state
             this.powerState = PowerState.ACTIVE;
         }
+        this.stateChanged();
     }
 
     /**
@@ -275,6 +277,7 @@ public final class Core implements Powerable, Serializable {
                 this.powerState = PowerState.HALT;
             }
         }
+        this.stateChanged();
     }
 
     /**
@@ -330,6 +333,7 @@ public final class Core implements Powerable, Serializable {
      */
     public void enterPark(final double time) {
         this.powerState = PowerState.LOW_POWER_IDLE;
+        this.stateChanged();
     }
 
     /**
@@ -343,12 +347,10 @@ public final class Core implements Powerable, Serializable {
         }
 
         double finishTime = time + this.job.getSize();
-        Server server = this.socket.getServer();
-        JobFinishEvent finishEvent = new JobFinishEvent(finishTime, experiment,
-                job, server, time, this.speed);
+        this.scheduleJobFinish(time, finishTime);
         job.setLastResumeTime(time);
-        this.experiment.addEvent(finishEvent);
         this.powerState = PowerState.ACTIVE;
+        this.stateChanged();
     }
 
     /**
@@ -363,7 +365,10 @@ public final class Core implements Powerable, Serializable {
         if (this.job != null) {
 
             JobFinishEvent finishEvent = this.job.getJobFinishEvent();
-            this.experiment.cancelEvent(finishEvent);
+            if (!finishEvent.isQueued()) {
+                Sim.fatalError("Tried to change the speed of a job"
+                               + " that isn't scheduled to finish");
+            }
 
             Job theJob = finishEvent.getJob();
             double finishSpeed = finishEvent.getFinishSpeed();
@@ -380,11 +385,9 @@ public final class Core implements Powerable, Serializable {
 		+ (theJob.getSize() - theJob.getAmountCompleted())
 		* slowdown; // Originally divide?? Incorrect??
 
-            JobFinishEvent newFinishEvent = new JobFinishEvent(finishTime,
-                    this.experiment, finishEvent.getJob(),
-                    this.socket.getServer(), time, this.speed);
-            this.experiment.addEvent(newFinishEvent);
+            this.scheduleJobFinish(time, finishTime);
         }
+        this.stateChanged();
     }
 
     /**
@@ -444,7 +447,6 @@ public final class Core implements Powerable, Serializable {
                     .getAmountCompleted()) / this.speed;
 
             double finishTime = time + timeLeft;
-            Server server = this.socket.getServer();
 
             if (this.job.getAmountCompleted() < 0) {
                 System.out.println("At time " + time + " job "
@@ -465,10 +467,30 @@ public final class Core implements Powerable, Serializable {
                 Sim.fatalError("time left has been miscalculated");
             }
 
-            JobFinishEvent finishEvent = new JobFinishEvent(finishTime,
-                    experiment, job, server, time, this.speed);
+            this.scheduleJobFinish(time, finishTime);
             job.setLastResumeTime(time);
+        }
+    }
+
+    /**
+     * Schedules the current job to finish at a new time.
+     * The job's existing finish event is moved if there is one,
+     * rather than replaced with a new event.
+     *
+     * @param time - the time the finish time is calculated
+     * @param finishTime - the time the job will finish
+     */
+    private void scheduleJobFinish(final double time, final double finishTime) {
+        Server server = this.socket.getServer();
+        JobFinishEvent finishEvent = this.job.getJobFinishEvent();
+        if (finishEvent == null || finishEvent.getServer() != server) {
+            finishEvent = this.experiment.getJobPool().acquireFinishEvent(
+                    finishTime, this.job, server, time, this.speed);
             this.experiment.addEvent(finishEvent);
+        } else {
+            finishEvent.setFinishTimeSet(time);
+            finishEvent.setFinishSpeed(this.speed);
+            this.experiment.rescheduleEvent(finishEvent, finishTime);
         }
     }
 
@@ -479,6 +501,7 @@ public final class Core implements Powerable, Serializable {
      */
     public void setIdlePower(final double coreIdlePower) {
         this.idlePower = coreIdlePower;
+        this.stateChanged();
     }
 
     /**
@@ -488,6 +511,7 @@ public final class Core implements Powerable, Serializable {
      */
     public void setParkPower(final double coreParkPower) {
         this.parkPower = coreParkPower;
+        this.stateChanged();
     }
 
     /**
@@ -498,6 +522,14 @@ public final class Core implements Powerable, Serializable {
      */
     public void setActivePower(final double coreDynamicPower) {
         this.dynamicPower = coreDynamicPower;
+        this.stateChanged();
+    }
+
+    /**
+     * Tells the socket the state of the core may have changed.
+     */
+    private void stateChanged() {
+        this.socket.stateChanged();
     }
 
     /**
@@ -31,11 +31,15 @@
 package datacenter;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.Vector;
-import java.util.Comparator;
-import java.util.Collections;
 import core.Experiment;
+import core.Job;
+import core.JobArrivalEvent;
+import core.JobPool;
+import core.Constants.StatName;
+import generator.Generator;
 import stat.TimeWeightedStatistic;
 import core.Constants.TimeWeightedStatName;
 import core.Constants;
@@ -58,20 +62,87 @@ public final class DataCenter implements Serializable {
     private Vector<Server> servers;
 
     /**
-     * The experiment the server is running in.
+     * The servers whose power may have changed since it was last
+     * accounted for in the cluster power.
      */
-    protected Experiment experiment;
+    private ArrayList<Server> changedServers;
 
     /**
-     * The scheduling algorithm for assigning jobs to servers.
+     * The total power of the servers as of the last accounting (in watts).
      */
-    public static enum ClusterScheduler {
+    private double clusterPower;
 
-        UNIFORM,
+    /**
+     * The servers in PACK or PEAK order, or null if not needed yet.
+     */
+    private ServerIndex index;
 
-        PACK,
+    /**
+     * The experiment the server is running in.
+     */
+    protected Experiment experiment;
 
-        PEAK
+    /**
+     * The built-in scheduling algorithms for assigning jobs to servers.
+     */
+    public static enum SchedulingPolicy implements ClusterScheduler {
+
+        /**
+         * Jobs stay at the server that generated them. Jobs from the
+         * central arrival stream go to a server picked uniformly at random.
+         */
+        UNIFORM {
+            @Override
+            public Server selectServer(final double time,
+                                       final Job job,
+                                       final DataCenter dataCenter,
+                                       final Server arrivalServer) {
+                if (arrivalServer != null) {
+                    return arrivalServer;
+                }
+                return dataCenter.getRandomServer();
+            }
+        },
+
+        /** Jobs go to the most utilized server with room. */
+        PACK {
+            @Override
+            public Server selectServer(final double time,
+                                       final Job job,
+                                       final DataCenter dataCenter,
+                                       final Server arrivalServer) {
+                Server server
+                    = dataCenter.getPackingTargetServer(arrivalServer);
+                if (server == null) {
+                    return UNIFORM.selectServer(time, job, dataCenter,
+                                                arrivalServer);
+                }
+                return server;
+            }
+        },
+
+        /**
+         * Jobs go to the most efficient server below its peak efficiency
+         * utilization. Falls back to UNIFORM once every server is above
+         * its peak.
+         */
+        PEAK {
+            @Override
+            public Server selectServer(final double time,
+                                       final Job job,
+                                       final DataCenter dataCenter,
+                                       final Server arrivalServer) {
+                Server server = null;
+                if (!dataCenter.allServersAbovePeak()) {
+                    server = dataCenter.getPeakTargetServer(arrivalServer);
+                }
+                if (server == null) {
+                    return UNIFORM.selectServer(time, job, dataCenter,
+                                                arrivalServer);
+                }
+                return server;
+            }
+        }
 
     };
 
@@ -81,6 +152,17 @@ public final class DataCenter implements Serializable {
      */
     private ClusterScheduler scheduler;
 
+    /**
+     * The interarrival time generator of the central arrival stream,
+     * or null if each server generates its own arrivals.
+     */
+    private Generator arrivalGenerator;
+
+    /**
+     * The service time generator of the central arrival stream.
+     */
+    private Generator serviceGenerator;
+
     /**
      * Sets load balancing scheme
      * @param sched  - the load balancing schduling scheme
@@ -93,6 +175,60 @@ public final class DataCenter implements Serializable {
         return this.scheduler;
     }
 
+    /**
+     * Makes jobs arrive at the data center as a whole, from a single
+     * arrival stream, instead of at each server. Every job is then placed
+     * by the cluster scheduler and the servers' own generators are unused.
+     *
+     * @param anArrivalGenerator - the cluster-wide interarrival time
+     * generator
+     * @param aServiceGenerator - the service time generator
+     */
+    public void setArrivalProcess(final Generator anArrivalGenerator,
+                                  final Generator aServiceGenerator) {
+        this.arrivalGenerator = anArrivalGenerator;
+        this.serviceGenerator = aServiceGenerator;
+    }
+
+    /**
+     * Gets if jobs arrive from a central arrival stream.
+     *
+     * @return if jobs arrive from a central arrival stream
+     */
+    public boolean hasArrivalProcess() {
+        return this.arrivalGenerator != null;
+    }
+
+    /**
+     * Creates the next arrival of the central arrival stream.
+     *
+     * @param time - the time the new arrival is created
+     */
+    public void createNewArrival(final double time) {
+        double interarrivalTime = this.arrivalGenerator.next(time);
+        double arrivalTime = time + interarrivalTime;
+        double serviceTime = this.serviceGenerator.next();
+        this.experiment.getStats().getStat(StatName.GENERATED_ARRIVAL_TIME)
+                .addSample(interarrivalTime);
+        this.experiment.getStats().getStat(StatName.GENERATED_SERVICE_TIME)
+                .addSample(serviceTime);
+
+        JobPool jobPool = this.experiment.getJobPool();
+        Job job = jobPool.acquireJob(serviceTime);
+        JobArrivalEvent jobArrivalEvent
+                = jobPool.acquireArrivalEvent(arrivalTime, job, null);
+        this.experiment.addEvent(jobArrivalEvent);
+    }
+
+    /**
+     * Gets a server picked uniformly at random.
+     *
+     * @return a random server
+     */
+    Server getRandomServer() {
+        int index = this.experiment.getRandom().nextInt(this.servers.size());
+        return this.servers.get(index);
+    }
 
     /**
      * Creates a new datacenter.
@@ -100,6 +236,12 @@ public final class DataCenter implements Serializable {
     public DataCenter(final Experiment anExperiment) {
 	this.experiment = anExperiment;
         this.servers = new Vector<Server>();
+        this.changedServers = new ArrayList<Server>();
+        this.clusterPower = 0.0d;
+        this.index = null;
+        this.scheduler = SchedulingPolicy.UNIFORM;
+        this.arrivalGenerator = null;
+        this.serviceGenerator = null;
     }
 
     /**
@@ -109,6 +251,70 @@ public final class DataCenter implements Serializable {
      */
     public void addServer(final Server server) {
         this.servers.add(server);
+        server.setDataCenter(this, this.servers.size() - 1);
+        if (this.index != null) {
+            this.index.add(server);
+        }
+    }
+
+    /**
+     * Notes that the power of a server may have changed.
+     * Called by the server the first time its power may have changed
+     * since it was last accounted for.
+     *
+     * @param server - the server whose power may have changed
+     */
+    void serverPowerChanged(final Server server) {
+        this.changedServers.add(server);
+    }
+
+    /**
+     * Notes that the load or availability of a server may have changed.
+     *
+     * @param server - the server whose load may have changed
+     */
+    void serverLoadChanged(final Server server) {
+        if (this.index != null) {
+            this.index.changed(server);
+        }
+    }
+
+    /**
+     * Gets the index of servers in PACK or PEAK order, building it
+     * if there isn't one with that order.
+     *
+     * @param byEfficiency - if servers are ordered by peak efficiency
+     * before utilization
+     * @return the index of the servers
+     */
+    private ServerIndex getIndex(final boolean byEfficiency) {
+        if (this.index == null
+            || this.index.isOrderedByEfficiency() != byEfficiency) {
+            this.index = new ServerIndex(byEfficiency);
+            Iterator<Server> iter = this.servers.iterator();
+            while (iter.hasNext()) {
+                this.index.add(iter.next());
+            }
+        }
+
+        return this.index;
+    }
+
+    /**
+     * Gets the total power of the servers in the datacenter (in watts).
+     * Only servers whose power may have changed since the last call are
+     * looked at, so this is O(1) in the number of servers for an event.
+     *
+     * @return the total power of the servers (in watts)
+     */
+    public double getClusterPower() {
+        int nChanged = this.changedServers.size();
+        for (int i = 0; i < nChanged; i++) {
+            this.clusterPower += this.changedServers.get(i).accountPower();
+        }
+        this.changedServers.clear();
+
+        return this.clusterPower;
     }
 
     /**
@@ -127,174 +333,45 @@ public final class DataCenter implements Serializable {
      *            - the time the statistics are updated
      */
     public void updateStatistics(final double time) {
-	double clusterPower = 0.0;
-
-	// Update each server's statistics (utilization, power, idleness
-        Iterator<Server> iter = this.servers.iterator();
-	Server server;
-        while (iter.hasNext()) {
-	    server = iter.next();
-	    //server.updateStatistics(time);
-            //iter.next().updateStatistics(time);
-	    clusterPower += server.getPower();
-        }
-
 	// Update datacenter level statistics (cluster power)	
         TimeWeightedStatistic clusterPowerStat
             = this.experiment.getStats().getTimeWeightedStat(
                     Constants.TimeWeightedStatName.CLUSTER_POWER);
-        clusterPowerStat.addSample(clusterPower, time);
+        clusterPowerStat.addSample(this.getClusterPower(), time);
     }
 
+   /**
+    * Gets the server a job should go to under the PACK scheduler: the
+    * most utilized running server with room for it. If no server is idle,
+    * a paused server without jobs is woken up instead. If every running
+    * server is full, the least utilized one gets the job.
+    *
+    * @param originalServer - the server the job arrived at
+    * @return the server the job should go to
+    */
    public Server getPackingTargetServer(final Server originalServer){
-
-
-
-	// First sort servers based on efficiency and utilization
-	// Ascending order. Lowest util to highest util
-	Collections.sort(this.servers,new ServerCompareUtilOnly());
-	// Reverse order so highest util and efficiency is first
-	//Collections.reverse(this.servers);
-/*
-	for(int i = 0; i <  this.servers.size(); i++){
-		System.out.print(String.valueOf(servers.get(i).getInstantUtilization()) + "(" + String.valueOf(servers.get(i).getRemainingCapacity()) + ") ");
-	}
-	System.out.print("\n");
-*/
-
-
-   	Iterator<Server> iter = this.servers.iterator();
-	Server server;
-	Server lastActiveServer = originalServer;
-
-	// Ensure at least a single standy-by server is on
-	// if no idle server exists, find first paused server and issue
-	if(numServersIdle() == 0){
-		while(iter.hasNext()){
-			server = iter.next();
-			if( server.isPaused() ){
-			    if ( (server.getJobsInService() > 0) || (server.getQueueLength() > 0) ) {
-				// A server is sleeping and have job. already waking up
-				break;
-			    }
-			    else {
-				// A server is sleeping and have no jobs. 
-				// Send request here to wake up server
-			 	return server;
- 			    }
-			}
-		}
-	}
-
-	iter = this.servers.iterator();
-        while (iter.hasNext()) {
-            server = iter.next();
-	    if( !server.isPaused() )
-		lastActiveServer = server;
-	    if( (server.getRemainingCapacity() > 0) && !server.isPaused())
-		return server;
-        }
-
-	return lastActiveServer;
-
-  }
-
-   class ServerCompareUtilOnly implements Comparator<Server> {
-
-	@Override
-	public int compare(Server s1, Server s2) {
-		return Double.compare(s2.getInstantUtilizationWithQueue(),s1.getInstantUtilizationWithQueue());
-	}
-
-   }
-   class ServerCompare implements Comparator<Server> {
-
-	@Override
-	public int compare(Server s1, Server s2) {
-		
-	    // First compare peak efficiency
-	    // Then compare utilization
-	    if ( Double.compare(s1.getPeakEfficiency(),s2.getPeakEfficiency()) == 0){
-		return Double.compare(s2.getInstantUtilizationWithQueue(),s1.getInstantUtilizationWithQueue());
-	    }
-	    else {
-		return Double.compare(s2.getPeakEfficiency(),s1.getPeakEfficiency()); 	   
-	    }
-	}
-
+	return this.getIndex(false).getPackingTarget(originalServer);
    }
 
+   /**
+    * Gets the server a job should go to under the PEAK scheduler: the
+    * running server below its peak efficiency utilization with the
+    * highest peak efficiency and utilization. If no server is idle, a
+    * paused server without jobs is woken up instead. Failing that, the
+    * job goes to the least efficient and utilized server above peak
+    * with room for it, or the last running server.
+    *
+    * @param originalServer - the server the job arrived at
+    * @return the server the job should go to
+    */
    public Server getPeakTargetServer(final Server originalServer){
-
-	// First sort servers based on efficiency and utilization
-	// Ascending order. Lowest util and efficiency to highest util and efficiency
-	Collections.sort(this.servers,new ServerCompare());
-	// Reverse order so highest util and efficiency is first
-	//Collections.reverse(this.servers);
-
-	Server server;
-	Server lowestAbovePeakServer = originalServer;
-	Server lastActiveServer = originalServer;
-   	Iterator<Server> iter = this.servers.iterator();
-
-	// Ensure at least a single standy-by server is on
-	// if no idle server exists, find first paused server and issue
-	if(numServersIdle() == 0){
-		while(iter.hasNext()){
-			server = iter.next();
-			if( server.isPaused() ){
-			    if ( (server.getJobsInService() > 0) || (server.getQueueLength() > 0) ) {
-				// A server is sleeping and have job. already waking up
-				break;
-			    }
-			    else {
-				// A server is sleeping and have no jobs. 
-				// Send request here to wake up server
-			 	return server;
- 			    }
-			}
-		}
-	}
-
-	lowestAbovePeakServer = null;	
-	iter = this.servers.iterator();
-        while (iter.hasNext()) {
-            server = iter.next();
-
-	    if(!server.isPaused())
-		lastActiveServer = server;
-
-	    if(server.isAbovePeakEfficiencyUtilization() ){
-		if(server.getRemainingCapacity() > 0)
-			lowestAbovePeakServer = server; // may not be set if all servers are low/mid EP
-		continue; // Skip issue to above peak. We know there exist some below peak.
-	    }
-	    // At this point, server is below peak, and has highest util and efficiency. Issue here.
-	    //if (server.getRemainingCapacity() > 0) // Sanity check: make sure it has free slots
-	    if(!server.isPaused() && server.getRemainingCapacity() > 0)
-	    	return server; 
-        }
-
-	// No idle servers under peak left and a idle server is waking up
-	// All servers are running 
-	// 
-	// No servers less than peak efficiency is available.  
-	// A server is already waking up
-	//
-	// 1. Wakeup a server (isPaused() && queue=0
-	// 2. Issue to lowest above peak server
-
-	// Issue to lowest above peak server
-	if(lowestAbovePeakServer != null) {
-		return lowestAbovePeakServer;
-	}else{
-		return lastActiveServer;
-	}
-	
-	//return originalServer;	
+	return this.getIndex(true).getPeakTarget(originalServer);
    }
 
    public boolean allServersAbovePeak(){
+	if (this.index != null) {
+		return this.index.allAbovePeak();
+	}
 
 	Iterator<Server> iter = this.servers.iterator();
 	Server server;
@@ -307,6 +384,10 @@ public final class DataCenter implements Serializable {
    }
 
    public int numServersIdle(){
+	if (this.index != null) {
+		return this.index.getNIdle();
+	}
+
 	int idleServers = 0;
 	Iterator<Server> iter = this.servers.iterator();
 	Server server;
@@ -154,6 +154,7 @@ public class DreamWeaverServer extends PowerNapServer {
                 this.timeouteventMap.put(job, timeoutEvent);
             } else {
                 this.queue.add(job);
+                this.stateChanged();
             }
 
         }
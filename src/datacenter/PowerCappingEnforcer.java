@@ -71,6 +71,9 @@ public class PowerCappingEnforcer implements Serializable {
     /** the experiment the enforcer is part of. */
     private Experiment experiment;
 
+    /** The pending recalculation, or null if something else drives it. */
+    private RecalculateCapsEvent nextRecalculation;
+
     /**
      * Creates a new PowerCappingEnforcer.
      *
@@ -92,11 +95,32 @@ public class PowerCappingEnforcer implements Serializable {
         this.globalCap = theGlobalCap;
         this.minPower = theMinPower;
         this.maxPower = theMaxPower;
-        this.experiment.addEvent(
-                new RecalculateCapsEvent(
-                        this.capPeriod,
-                        this.experiment,
-                        this));
+        this.nextRecalculation = new RecalculateCapsEvent(this.capPeriod,
+                                                          this.experiment,
+                                                          this);
+        this.experiment.addEvent(this.nextRecalculation);
+    }
+
+    /**
+     * Gets the period at which caps are recalculated.
+     *
+     * @return the period (in seconds) at which caps are recalculated
+     */
+    public double getCapPeriod() {
+        return this.capPeriod;
+    }
+
+    /**
+     * Stops the enforcer scheduling its own recalculations.
+     * Something else must then call {@link #recalculateCaps(double)}
+     * every cap period, e.g., at the barriers of a sharded experiment
+     * whose servers are spread over several event queues.
+     */
+    public void disableSelfScheduling() {
+        if (this.nextRecalculation != null) {
+            this.experiment.cancelEvent(this.nextRecalculation);
+            this.nextRecalculation = null;
+        }
     }
 
     /**
@@ -108,6 +132,42 @@ public class PowerCappingEnforcer implements Serializable {
         this.servers.add(server);
     }
 
+    /**
+     * Gets the total power cap across all servers.
+     *
+     * @return the total power cap (in watts)
+     */
+    public double getGlobalCap() {
+        return this.globalCap;
+    }
+
+    /**
+     * Sets the total power cap across all servers.
+     * The new cap is distributed at the next recalculation.
+     *
+     * @param theGlobalCap - the total power cap (in watts)
+     */
+    public void setGlobalCap(final double theGlobalCap) {
+        this.globalCap = theGlobalCap;
+    }
+
+    /**
+     * Checks if the enforcer has slowed every server to the lowest
+     * DVFS speed, i.e. it can't lower their power any further.
+     *
+     * @return if every server is at the lowest DVFS speed
+     */
+    public boolean isAtMinimumSpeed() {
+        Iterator<Server> iter = this.servers.iterator();
+        while (iter.hasNext()) {
+            if (iter.next().getDvfsSpeed() > Server.MIN_DVFS_SPEED) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     /**
      * Recalculates power caps for all servers.
      *
@@ -148,8 +208,10 @@ public class PowerCappingEnforcer implements Serializable {
                 .addSample(Math.max(serverCapStat.getAverage(), 0));
         this.experiment.getStats().getStat(StatName.TOTAL_CAPPING)
                 .addSample(serverCapStat.getTotalAccumulation());
-        this.experiment.addEvent(new RecalculateCapsEvent(time
-                + this.capPeriod, this.experiment, this));
+        if (this.nextRecalculation != null) {
+            this.experiment.rescheduleEvent(this.nextRecalculation,
+                                            time + this.capPeriod);
+        }
     }
 
 }
@@ -0,0 +1,165 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package datacenter;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import core.DataImport;
+import core.Sim;
+
+/**
+ * A server's power consumption as a piecewise-linear function of its
+ * utilization (0-1). The points are kept in parallel primitive arrays
+ * so a lookup is a binary search and one interpolation.
+ *
+ * Curves are loaded from rows of a power consumption file
+ * (see {@link DataImport#importPowerConsumptionData(String, String)})
+ * once per server model and shared by all servers of that model.
+ */
+public final class PowerCurve implements Serializable {
+
+    /** The serialization id. */
+    private static final long serialVersionUID = 1L;
+
+    /** The default power consumption file in workloads/. */
+    public static final String DEFAULT_POWER_FILE = "AvgPower.csv";
+
+    /** Curves which have already been loaded, keyed by file and model. */
+    private static final Map<String, PowerCurve> CACHE
+        = new ConcurrentHashMap<String, PowerCurve>();
+
+    /** The utilizations of the points, in increasing order. */
+    private final double[] utilizations;
+
+    /** The power consumption at each point (in MWatts). */
+    private final double[] powers;
+
+    /**
+     * Creates a new PowerCurve from a map of utilization to power
+     * consumption. A point at zero utilization and zero power is added
+     * if the map doesn't have one.
+     *
+     * @param points - the power consumption (in MWatts) keyed by
+     * utilization (0-1)
+     */
+    public PowerCurve(final TreeMap<Double, Double> points) {
+        if (points.isEmpty()) {
+            Sim.fatalError("A power curve needs at least one point");
+        }
+        boolean hasZero = points.firstKey() <= 0.0;
+        int n = points.size() + (hasZero ? 0 : 1);
+        this.utilizations = new double[n];
+        this.powers = new double[n];
+        int i = 0;
+        if (!hasZero) {
+            this.utilizations[0] = 0.0;
+            this.powers[0] = 0.0;
+            i++;
+        }
+        for (Map.Entry<Double, Double> entry : points.entrySet()) {
+            this.utilizations[i] = entry.getKey();
+            this.powers[i] = entry.getValue();
+            i++;
+        }
+    }
+
+    /**
+     * Gets the curve for the default server model in the default file.
+     *
+     * @return the default power curve
+     */
+    public static PowerCurve getDefault() {
+        return load(DEFAULT_POWER_FILE, DataImport.DEFAULT_POWER_MODEL);
+    }
+
+    /**
+     * Gets the curve for a server model, loading it on first use.
+     *
+     * @param fileName - the power consumption file in workloads/
+     * @param model - the label of the model's row (e.g. "2.0GHz")
+     * @return the power curve for the model
+     */
+    public static PowerCurve load(final String fileName, final String model) {
+        String key = fileName + "#" + model;
+        PowerCurve curve = CACHE.get(key);
+        if (curve == null) {
+            curve = new PowerCurve(
+                    DataImport.importPowerConsumptionData(fileName, model));
+            PowerCurve previous = CACHE.putIfAbsent(key, curve);
+            if (previous != null) {
+                curve = previous;
+            }
+        }
+
+        return curve;
+    }
+
+    /**
+     * Gets the power consumption at a utilization, interpolating linearly
+     * between the neighbouring points.
+     *
+     * @param util - a utilization between 0 and 1
+     * @return the power consumption (in MWatts)
+     */
+    public double getPower(final double util) {
+        if (util == 0.0) {
+            return this.powers[0];
+        }
+        int last = this.utilizations.length - 1;
+        if (util < 0.0 || util > this.utilizations[last]) {
+            Sim.fatalError("Unexpected utilization for power curve: " + util);
+        }
+
+        int index = Arrays.binarySearch(this.utilizations, util);
+        if (index >= 0) {
+            return this.powers[index];
+        }
+        int top = -index - 1;
+        int bottom = top - 1;
+        double x1 = this.utilizations[bottom];
+        double x2 = this.utilizations[top];
+        double y1 = this.powers[bottom];
+        double y2 = this.powers[top];
+
+        return y1 + (y2 - y1) * (util - x1) / (x2 - x1);
+    }
+
+    /**
+     * Gets the number of points in the curve.
+     *
+     * @return the number of points in the curve
+     */
+    public int getNPoints() {
+        return this.utilizations.length;
+    }
+
+}
@@ -162,6 +162,7 @@ public class PowerNapServer extends Server {
 
             this.transistionToActive(time);
             this.queue.add(job);
+            this.stateChanged();
 
             // Job has entered the system
             this.jobsInServerInvariant++;
@@ -170,6 +171,7 @@ public class PowerNapServer extends Server {
                     == PowerNapState.TRANSITIONING_TO_ACTIVE) {
 
             this.queue.add(job);
+            this.stateChanged();
             // Job has entered the system
             this.jobsInServerInvariant++;
 
@@ -177,6 +179,7 @@ public class PowerNapServer extends Server {
 
             this.transistionToActive(time);
             this.queue.add(job);
+            this.stateChanged();
             // Job has entered the system
             this.jobsInServerInvariant++;
 
@@ -220,6 +223,7 @@ public class PowerNapServer extends Server {
         }
         this.transitioningToActive = true;
         this.powerNapState = PowerNapState.TRANSITIONING_TO_ACTIVE;
+        this.stateChanged();
         double napTime = time + extraDelay + this.napTransitionTime;
         PowerNapTransitionedToActiveEvent napEvent
             = new PowerNapTransitionedToActiveEvent(napTime,
@@ -244,6 +248,7 @@ public class PowerNapServer extends Server {
             Sim.fatalError("Trying to transition to nap when paused");
         }
         this.powerNapState = PowerNapState.TRANSITIONING_TO_NAP;
+        this.stateChanged();
         this.transitioningToNap = true;
         double napTime = time + this.napTransitionTime;
         PowerNapTransitionedToNapEvent napEvent
@@ -293,6 +298,7 @@ public class PowerNapServer extends Server {
         this.transitioningToActive = false;
         // Server is now fully in the active mode
         this.powerNapState = PowerNapState.ACTIVE;
+        this.stateChanged();
         // Start all the jobs possible and queue the ones that aren't
         this.resumeProcessing(time);
 	//System.out.println("Server active");
@@ -326,6 +332,7 @@ public class PowerNapServer extends Server {
         //System.out.println("Server napping");
         this.transitioningToNap = false;
         this.powerNapState = PowerNapState.NAP;
+        this.stateChanged();
         this.transitionEvent = null;
     }
 
@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package datacenter;
+
+import java.util.Random;
+import java.util.Vector;
+
+import core.Job;
+import core.Sim;
+
+/**
+ * Power-of-d-choices: samples d servers uniformly at random (with
+ * replacement) and sends the job to the one with the fewest jobs.
+ * Ties go to the first sampled. Each dispatch costs O(d) no matter
+ * how big the data center is.
+ */
+public final class PowerOfDChoicesScheduler implements ClusterScheduler {
+
+    /** The serialization id. */
+    private static final long serialVersionUID = 1L;
+
+    /** The source of randomness for sampling servers. */
+    private Random random;
+
+    /** The number of servers sampled per job. */
+    private int nChoices;
+
+    /**
+     * Creates a new PowerOfDChoicesScheduler.
+     *
+     * @param aRandom - the source of randomness for sampling servers
+     * @param theNChoices - the number of servers sampled per job (d)
+     */
+    public PowerOfDChoicesScheduler(final Random aRandom,
+                                    final int theNChoices) {
+        if (theNChoices < 1) {
+            Sim.fatalError("Power of d choices needs at least one choice");
+        }
+        this.random = aRandom;
+        this.nChoices = theNChoices;
+    }
+
+    /**
+     * Gets the number of servers sampled per job.
+     *
+     * @return the number of servers sampled per job
+     */
+    public int getNChoices() {
+        return this.nChoices;
+    }
+
+    @Override
+    public Server selectServer(final double time,
+                               final Job job,
+                               final DataCenter dataCenter,
+                               final Server arrivalServer) {
+        Vector<Server> servers = dataCenter.getServers();
+        int nServers = servers.size();
+        Server best = null;
+        int fewestJobs = Integer.MAX_VALUE;
+        for (int i = 0; i < this.nChoices; i++) {
+            Server server = servers.get(this.random.nextInt(nServers));
+            int nJobs = server.getJobsInService() + server.getQueueLength();
+            if (nJobs < fewestJobs) {
+                best = server;
+                fewestJobs = nJobs;
+            }
+        }
+
+        return best;
+    }
+
+}
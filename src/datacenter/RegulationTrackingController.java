@@ -0,0 +1,382 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package datacenter;
+
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.Vector;
+
+import core.Experiment;
+import core.RegDHandler;
+import core.RegulationMarket;
+import core.Sim;
+import core.Constants.StatName;
+
+/**
+ * Makes a set of servers track a regulation signal. Every period the
+ * controller compares the servers' power against a target of
+ * baseline + signal * capacity and nudges them towards it:
+ * it moves a common DVFS speed in proportion to the error (or, when a
+ * {@link PowerCappingEnforcer} is attached, moves the enforcer's global
+ * cap to the target and lets it assign budgets), and parks idle sockets
+ * while the servers remain above the target at the lowest speed.
+ *
+ * Each period records the tracking error (relative to the capacity),
+ * a precision-style performance score of 1 - |error| / capacity and the
+ * regulation reward earned with that score. These are added to the
+ * experiment as tracked outputs, which don't need to converge.
+ */
+public class RegulationTrackingController implements Serializable {
+
+    /**
+     * The serialization id.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /** The seconds in an hour. */
+    private static final double SECONDS_PER_HOUR = 3600.0;
+
+    /** Watts in a MW. */
+    private static final double WATTS_PER_MW = 1e6;
+
+    /** The servers the controller adjusts. */
+    private Vector<Server> servers;
+
+    /** The experiment the controller is part of. */
+    private Experiment experiment;
+
+    /** The time period at which the servers are adjusted. */
+    private double period;
+
+    /** The power drawn when the signal is zero (in watts). */
+    private double baselinePower;
+
+    /** The regulation capacity offered (in watts). */
+    private double regulationCapacity;
+
+    /** The regulation signal to track. */
+    private RegDHandler signal;
+
+    /** The market paying for regulation. */
+    private RegulationMarket market;
+
+    /** The enforcer whose cap follows the target, if any. */
+    private PowerCappingEnforcer enforcer;
+
+    /** The change in speed per unit of relative tracking error. */
+    private double gain;
+
+    /** The lowest DVFS speed the controller will set. */
+    private double minSpeed;
+
+    /** The current DVFS speed of the servers. */
+    private double speed;
+
+    /** The relative error above which sockets are parked. */
+    private double parkingThreshold;
+
+    /** The number of sockets left active on a parked server. */
+    private int activeSocketsWhenParked;
+
+    /** If sockets are currently parked. */
+    private boolean parked;
+
+    /** The number of tracking periods so far. */
+    private long nSamples;
+
+    /** The sum of the relative tracking errors so far. */
+    private double totalTrackingError;
+
+    /** The sum of the performance scores so far. */
+    private double totalScore;
+
+    /** The total regulation reward so far (in dollars). */
+    private double totalReward;
+
+    /** The controller's next adjustment. */
+    private TrackRegulationEvent nextTracking;
+
+    /**
+     * Creates a new RegulationTrackingController that follows the default
+     * regulation signal and market. The first adjustment happens one
+     * period into the experiment.
+     *
+     * @param anExperiment - the experiment the controller is part of
+     * @param thePeriod - the period (in seconds) at which servers
+     * are adjusted
+     * @param theBaselinePower - the power drawn when the signal is zero
+     * (in watts)
+     * @param theRegulationCapacity - the regulation capacity offered
+     * (in watts)
+     */
+    public RegulationTrackingController(final Experiment anExperiment,
+                                        final double thePeriod,
+                                        final double theBaselinePower,
+                                        final double theRegulationCapacity) {
+        if (thePeriod <= 0) {
+            Sim.fatalError("Regulation tracking period must be positive");
+        }
+        if (theRegulationCapacity <= 0) {
+            Sim.fatalError("Regulation capacity must be positive");
+        }
+        this.servers = new Vector<Server>();
+        this.experiment = anExperiment;
+        this.period = thePeriod;
+        this.baselinePower = theBaselinePower;
+        this.regulationCapacity = theRegulationCapacity;
+        this.signal = RegDHandler.getDefault();
+        this.market = RegulationMarket.getDefault();
+        this.enforcer = null;
+        this.gain = 0.5;
+        this.minSpeed = 0.5;
+        this.speed = 1.0;
+        this.parkingThreshold = 0.1;
+        this.activeSocketsWhenParked = 1;
+        this.parked = false;
+        this.experiment.addTrackedOutput(StatName.REGULATION_TRACKING_ERROR);
+        this.experiment.addTrackedOutput(
+                StatName.REGULATION_PERFORMANCE_SCORE);
+        this.experiment.addTrackedOutput(StatName.REGULATION_REWARD);
+        this.nextTracking = new TrackRegulationEvent(this.period,
+                                                     this.experiment,
+                                                     this);
+        this.experiment.addEvent(this.nextTracking);
+    }
+
+    /**
+     * Adds a server to this controller.
+     *
+     * @param server - the server to add to the controller
+     */
+    public void addServer(final Server server) {
+        this.servers.add(server);
+    }
+
+    /**
+     * Attaches a power capping enforcer. Its global cap is then set to
+     * the target every period and it, rather than the controller,
+     * assigns DVFS speeds.
+     *
+     * @param anEnforcer - the enforcer to attach (null to detach)
+     */
+    public void setPowerCappingEnforcer(final PowerCappingEnforcer anEnforcer) {
+        this.enforcer = anEnforcer;
+    }
+
+    /**
+     * Sets the regulation signal to track.
+     *
+     * @param theSignal - the regulation signal
+     */
+    public void setSignal(final RegDHandler theSignal) {
+        this.signal = theSignal;
+    }
+
+    /**
+     * Sets the market paying for regulation.
+     *
+     * @param theMarket - the regulation market
+     */
+    public void setMarket(final RegulationMarket theMarket) {
+        this.market = theMarket;
+    }
+
+    /**
+     * Sets the change in DVFS speed per unit of relative tracking error.
+     *
+     * @param theGain - the proportional gain
+     */
+    public void setGain(final double theGain) {
+        this.gain = theGain;
+    }
+
+    /**
+     * Sets the lowest DVFS speed the controller will set.
+     *
+     * @param theMinSpeed - the lowest speed (relative to 1.0)
+     */
+    public void setMinSpeed(final double theMinSpeed) {
+        if (theMinSpeed <= 0 || theMinSpeed > 1.0) {
+            Sim.fatalError("Minimum DVFS speed must be in (0, 1]");
+        }
+        this.minSpeed = theMinSpeed;
+    }
+
+    /**
+     * Sets when sockets are parked: once the servers are above the target
+     * by more than the threshold (relative to the capacity) with nothing
+     * else left to turn down, all but the given number of sockets are
+     * parked on each server if idle.
+     *
+     * @param threshold - the relative error above which sockets are parked
+     * @param activeSockets - the number of sockets left active
+     */
+    public void setSocketParking(final double threshold,
+                                 final int activeSockets) {
+        this.parkingThreshold = threshold;
+        this.activeSocketsWhenParked = activeSockets;
+    }
+
+    /**
+     * Gets the power target at a time.
+     *
+     * @param time - the time in seconds
+     * @return the power target (in watts)
+     */
+    public double getTarget(final double time) {
+        return this.baselinePower
+               + this.signal.getSignal(time) * this.regulationCapacity;
+    }
+
+    /**
+     * Adjusts the servers to track the regulation signal and records
+     * how well they tracked it over the last period.
+     *
+     * @param time - the time at which the adjustment takes place
+     */
+    public void track(final double time) {
+        double totalPower = 0.0d;
+        Iterator<Server> iter = this.servers.iterator();
+        while (iter.hasNext()) {
+            totalPower += iter.next().getPower();
+        }
+
+        double target = this.getTarget(time);
+        double error = (totalPower - target) / this.regulationCapacity;
+        double score = Math.max(1.0 - Math.abs(error), 0.0);
+        double reward = this.market.getRewardRate(time, this.signal, score)
+                        * this.regulationCapacity / WATTS_PER_MW
+                        * this.period / SECONDS_PER_HOUR;
+
+        this.nSamples++;
+        this.totalTrackingError += Math.abs(error);
+        this.totalScore += score;
+        this.totalReward += reward;
+        this.experiment.getStats().getStat(StatName.REGULATION_TRACKING_ERROR)
+                .addSample(Math.abs(error));
+        this.experiment.getStats()
+                .getStat(StatName.REGULATION_PERFORMANCE_SCORE)
+                .addSample(score);
+        this.experiment.getStats().getStat(StatName.REGULATION_REWARD)
+                .addSample(reward);
+
+        boolean turnedDown;
+        if (this.enforcer != null) {
+            this.enforcer.setGlobalCap(target);
+            turnedDown = this.enforcer.isAtMinimumSpeed();
+        } else {
+            this.speed = Math.min(Math.max(this.speed - this.gain * error,
+                                           this.minSpeed), 1.0);
+            iter = this.servers.iterator();
+            while (iter.hasNext()) {
+                iter.next().setDvfsSpeed(time, this.speed);
+            }
+            turnedDown = this.speed == this.minSpeed;
+        }
+
+        if (!this.parked && turnedDown && error > this.parkingThreshold) {
+            iter = this.servers.iterator();
+            while (iter.hasNext()) {
+                iter.next().disableSockets(time,
+                                           this.activeSocketsWhenParked);
+            }
+            this.parked = true;
+        } else if (this.parked && error < 0) {
+            iter = this.servers.iterator();
+            while (iter.hasNext()) {
+                iter.next().enableSockets(time);
+            }
+            this.parked = false;
+        }
+
+        this.experiment.rescheduleEvent(this.nextTracking,
+                                        time + this.period);
+    }
+
+    /**
+     * Gets the current DVFS speed set by the controller.
+     *
+     * @return the current DVFS speed (relative to 1.0)
+     */
+    public double getSpeed() {
+        return this.speed;
+    }
+
+    /**
+     * Gets if sockets are currently parked.
+     *
+     * @return if sockets are currently parked
+     */
+    public boolean isParked() {
+        return this.parked;
+    }
+
+    /**
+     * Gets the number of tracking periods so far.
+     *
+     * @return the number of tracking periods
+     */
+    public long getNSamples() {
+        return this.nSamples;
+    }
+
+    /**
+     * Gets the mean tracking error so far, relative to the capacity.
+     *
+     * @return the mean relative tracking error
+     */
+    public double getMeanTrackingError() {
+        if (this.nSamples == 0) {
+            return 0.0d;
+        }
+        return this.totalTrackingError / this.nSamples;
+    }
+
+    /**
+     * Gets the performance score so far, the mean of the per-period
+     * scores.
+     *
+     * @return the performance score (0-1)
+     */
+    public double getPerformanceScore() {
+        if (this.nSamples == 0) {
+            return 0.0d;
+        }
+        return this.totalScore / this.nSamples;
+    }
+
+    /**
+     * Gets the total regulation reward so far.
+     *
+     * @return the total reward in dollars
+     */
+    public double getTotalReward() {
+        return this.totalReward;
+    }
+
+}
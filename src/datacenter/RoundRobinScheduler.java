@@ -0,0 +1,68 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package datacenter;
+
+import java.util.Vector;
+
+import core.Job;
+
+/**
+ * Sends jobs to the servers in turn, in the order they were added to
+ * the data center.
+ */
+public final class RoundRobinScheduler implements ClusterScheduler {
+
+    /** The serialization id. */
+    private static final long serialVersionUID = 1L;
+
+    /** The position of the next server to get a job. */
+    private int next;
+
+    /**
+     * Creates a new RoundRobinScheduler starting at the first server.
+     */
+    public RoundRobinScheduler() {
+        this.next = 0;
+    }
+
+    @Override
+    public Server selectServer(final double time,
+                               final Job job,
+                               final DataCenter dataCenter,
+                               final Server arrivalServer) {
+        Vector<Server> servers = dataCenter.getServers();
+        if (this.next >= servers.size()) {
+            this.next = 0;
+        }
+        Server server = servers.get(this.next);
+        this.next++;
+
+        return server;
+    }
+
+}
@@ -33,9 +33,7 @@ package datacenter;
 import generator.Generator;
 
 import java.io.Serializable;
-import java.util.HashMap;
-import java.util.TreeMap;
-import java.util.LinkedList;
+import java.util.ArrayDeque;
 import java.util.ArrayList; 
 import java.util.Iterator;
 import java.lang.Double;
@@ -46,8 +44,8 @@ import core.Constants;
 import core.Experiment;
 import core.Job;
 import core.JobArrivalEvent;
+import core.JobPool;
 import core.Sim;
-import core.DataImport;
 import core.Constants.StatName;
 import datacenter.Core.CorePowerPolicy;
 import datacenter.Socket.SocketPowerPolicy;
@@ -67,6 +65,9 @@ public class Server implements Powerable, Serializable {
      */
     private static final long serialVersionUID = 1L;
 
+    /** The lowest DVFS speed a power budget will slow the server to. */
+    public static final double MIN_DVFS_SPEED = .5;
+
     /**
      * The scheduling algorithm for assigning jobs to sockets.
      */
@@ -101,11 +102,6 @@ public class Server implements Powerable, Serializable {
     private ArrayList<Socket> disabledSockets;
     //private int[] disabledSockets; //0 = active, 1 = disabled
 
-    /**
-     * Map that saves which socket has a job to avoid searching.
-     */
-    protected HashMap<Job, Socket> jobToSocketMap;
-
     /**
      * The experiment the server is running in.
      */
@@ -119,7 +115,7 @@ public class Server implements Powerable, Serializable {
     /**
      * Queue to put jobs in when cores are busy.
      */
-    protected LinkedList<Job> queue;
+    protected ArrayDeque<Job> queue;
 
     /**
      * A generator to provide arrival times for jobs for the server.
@@ -150,12 +146,26 @@ public class Server implements Powerable, Serializable {
 
     public boolean searchWorkload;
 
+    /** The data center the server reports state changes to, if any. */
+    private DataCenter dataCenter;
+
+    /** The position of the server in its data center. */
+    private int dataCenterId;
+
+    /** The power of the server when it was last accounted for. */
+    private double accountedPower;
+
+    /** If the power of the server may have changed since it was accounted. */
+    private boolean powerChanged;
+
     /**
-     * A lookup table for power consumption given a utilization of 0-1; used in getDynamicPower()
-     * Keys: utilization values (0-1)
-     * Values: power consumption (in MWatts)
+     * The power consumption of the server given a utilization of 0-1;
+     * used in getDynamicPower(). Shared by servers of the same model.
      */
-     private static TreeMap<Double, Double> powerConsumptionTable = new TreeMap(); 
+    private PowerCurve powerCurve; 
+
+    /** The DVFS speed last set on the server's cores (relative to 1.0). */
+    private double dvfsSpeed;
 
 
     /**
@@ -175,7 +185,7 @@ public class Server implements Powerable, Serializable {
         this.experiment = anExperiment;
         this.arrivalGenerator = anArrivalGenerator;
         this.serviceGenerator = aServiceGenerator;
-        this.queue = new LinkedList<Job>();
+        this.queue = new ArrayDeque<Job>();
         this.sockets = new ArrayList<Socket>();
 	this.disabledSockets = new ArrayList<Socket>();
 	//this.disabledSockets = new int[theNumberOfSockets];
@@ -183,18 +193,17 @@ public class Server implements Powerable, Serializable {
             sockets.add(new Socket(experiment, this, theCoresPerSocket));
 	    //disabledsockets.get(i) = 0;
         }
-        this.jobToSocketMap = new HashMap<Job, Socket>();
         this.scheduler = Scheduler.BIN_PACK;
         this.jobsInServerInvariant = 0;
         this.paused = false;
+        this.dvfsSpeed = 1.0;
 
 	this.peakEfficiencyUtilization = 1.0;
 	this.peakEfficiency = 100.0/this.getMaxPower();
 	this.searchWorkload = this.experiment.getSearchWorkload();
 
 	// Power Consumption data comes from "Medusa Data" folder which has average power consumption in watts
-	powerConsumptionTable = DataImport.importPowerConsumptionData("AvgPower.csv");
-	powerConsumptionTable.put(0.0,0.0); // file data does not include util=0, so add manually
+	this.powerCurve = PowerCurve.getDefault();
     }
 
     /**
@@ -202,6 +211,7 @@ public class Server implements Powerable, Serializable {
      */
     public final void pause() {
         this.paused = true;
+        this.stateChanged();
     }
 
     /**
@@ -209,6 +219,7 @@ public class Server implements Powerable, Serializable {
      */
     public final void unpause() {
         this.paused = false;
+        this.stateChanged();
     }
 
 
@@ -226,7 +237,7 @@ public class Server implements Powerable, Serializable {
      * @param time - the time the new arrival lis created
      */
     public final void createNewArrival(final double time) {
-        double interarrivalTime = this.arrivalGenerator.next();
+        double interarrivalTime = this.arrivalGenerator.next(time);
         double arrivalTime = time + interarrivalTime;
         double serviceTime = this.serviceGenerator.next();
         Statistic arrivalStat
@@ -238,12 +249,10 @@ public class Server implements Powerable, Serializable {
                                 StatName.GENERATED_SERVICE_TIME);
         serviceStat.addSample(serviceTime);
 
-        Job job = new Job(serviceTime);
+        JobPool jobPool = this.experiment.getJobPool();
+        Job job = jobPool.acquireJob(serviceTime);
         JobArrivalEvent jobArrivalEvent
-                = new JobArrivalEvent(arrivalTime,
-                                      experiment,
-                                      job,
-                                      this);
+                = jobPool.acquireArrivalEvent(arrivalTime, job, this);
         this.experiment.addEvent(jobArrivalEvent);
     }
 
@@ -270,6 +279,7 @@ public class Server implements Powerable, Serializable {
         if (this.getRemainingCapacity() == 0) {
             // There was no room in the server, put it in the queue
             this.queue.add(job);
+            this.stateChanged();
         } else {
             // The job can start service immediately
             this.startJobService(time, job);
@@ -352,6 +362,26 @@ public class Server implements Powerable, Serializable {
         return this.getJobsInSystem() > 0;
     }
 
+    /**
+     * Gets the unfinished work at the server: the time left for the jobs
+     * in service plus the size of the queued jobs.
+     *
+     * @param time - the current time
+     * @return the unfinished work at the server (in seconds)
+     */
+    public double getRemainingWork(final double time) {
+        double work = 0.0d;
+        for (int i = 0; i < this.sockets.size(); i++) {
+            work += this.sockets.get(i).getRemainingWork(time);
+        }
+        Iterator<Job> iter = this.queue.iterator();
+        while (iter.hasNext()) {
+            work += iter.next().getSize();
+        }
+
+        return work;
+    }
+
     /**
      * Get the length of the server queue.
      *
@@ -461,7 +491,7 @@ public class Server implements Powerable, Serializable {
 
         job.markStart(time);
         targetSocket.insertJob(time, job);
-        this.jobToSocketMap.put(job, targetSocket);
+        job.setSocket(targetSocket);
     }
 
     /**
@@ -474,7 +504,8 @@ public class Server implements Powerable, Serializable {
     public void removeJob(final double time, final Job job) {
 
         // Remove the job from the socket it is running on
-        Socket socket = this.jobToSocketMap.remove(job);
+        Socket socket = job.getSocket();
+        job.setSocket(null);
 
         // Error check we could resolve which socket the job was on
         if (socket == null) {
@@ -551,6 +582,61 @@ public class Server implements Powerable, Serializable {
         }
     }
 
+    /**
+     * Notes that the state of the server (its power, load or whether it is
+     * paused) may have changed, so the data center accounts for it again
+     * the next time it needs it. Any change to the server's state that
+     * affects getPower() or the scheduling keys must call this, which is
+     * what keeps cluster power and PACK/PEAK dispatch cheap per event.
+     */
+    protected final void stateChanged() {
+        if (this.dataCenter == null) {
+            return;
+        }
+        if (!this.powerChanged) {
+            this.powerChanged = true;
+            this.dataCenter.serverPowerChanged(this);
+        }
+        this.dataCenter.serverLoadChanged(this);
+    }
+
+    /**
+     * Sets the data center the server reports state changes to.
+     *
+     * @param aDataCenter - the data center the server is part of
+     * @param id - the position of the server in the data center
+     */
+    void setDataCenter(final DataCenter aDataCenter, final int id) {
+        this.dataCenter = aDataCenter;
+        this.dataCenterId = id;
+        this.accountedPower = 0.0d;
+        this.powerChanged = false;
+        this.stateChanged();
+    }
+
+    /**
+     * Gets the position of the server in its data center.
+     *
+     * @return the position of the server in its data center
+     */
+    int getDataCenterId() {
+        return this.dataCenterId;
+    }
+
+    /**
+     * Accounts for the current power of the server.
+     *
+     * @return the change in power since it was last accounted for
+     */
+    double accountPower() {
+        double power = this.getPower();
+        double delta = power - this.accountedPower;
+        this.accountedPower = power;
+        this.powerChanged = false;
+
+        return delta;
+    }
+
     /**
      * Gets the current power consumption of the server (in watts).
      *
@@ -595,66 +681,28 @@ public class Server implements Powerable, Serializable {
      * @param util A utilization value between 0-1
      * @return the power consumption of the cpu (in MWatts)
      */
-     public double getPowerConsumption(double util) {
-	if(powerConsumptionTable.containsKey(util)) {
-		return powerConsumptionTable.get(util);
-	}
-	else if(util > 1.0) {
-		//FIXME: How to handle util > 1.0?
-		System.out.print("WARNING: UNEXPECTED UTILIZATION GREATER THAN 1: " + util);
-		System.exit(0);
-		return -1; // max cpu power consumption from table
-	}
-	else if(util < 0) {
-		//FIXME: How to handle util < 0?
-		System.out.print("WARNING: UNEXPECTED UTILIZATION LESS THAN 0: " + util);
-		System.exit(0);
-		return -1; 
-	}
-	else {
-	// we have an 'ugly' util value
-	// so return an approximated value assuming linear utilization-consumption relationship
-	        //System.out.println("ugly util:"+util);
-                //System.out.println(powerConsumptionTable.toString());
-		double arrOfLimits[] = getLimits(util);
-		double top = arrOfLimits[0];
-		double bottom = arrOfLimits[1];
-		//System.out.println("bottom:"+bottom+", top:"+top);
-		// find slope of line
-		double y2 = powerConsumptionTable.get(top); // y2 stores powerCons of top util 
-		double y1 = powerConsumptionTable.get(bottom); // y1 stores powerCons of bottom util
-		double x2 = top;
-		double x1 = bottom;
-		double slope = (y2 - y1) / (x2 - x1);
-		return slope * (util - x1) + y1;
-	}
+    public double getPowerConsumption(final double util) {
+        return this.powerCurve.getPower(util);
     }
 
     /**
-     * Helper function used in getPowerConsumption() that gets the nearest util values from 
-     * powerConsumptionTable that are closest to <target>. 
-     * @param target The value for which we find upper and lower limits (or bounds)
-     * @return an array of doubles containing the closest util values greater than and less than <target>
+     * Sets the power curve of the server, e.g. for another server model:
+     * PowerCurve.load("AvgPower.csv", "1.2GHz").
+     *
+     * @param aPowerCurve - the power consumption given a utilization
      */
-    private double[] getLimits(double target) {
-	double top = 0;
-	double bottom = 0;
-	double prevMapEntry = 0;
-	double arrOfLimits[] = new double[2];
+    public void setPowerCurve(final PowerCurve aPowerCurve) {
+        this.powerCurve = aPowerCurve;
+        this.stateChanged();
+    }
 
-	// iterates through hashmap until current entry is larger than target, then
-	// saves current/previous entries as top/lower limits of target respectively
-	for(double mapEntry: powerConsumptionTable.keySet() ) {
-		if(mapEntry > target) {
-			top = mapEntry; 
-			bottom = prevMapEntry;
-			break;	
-		}
-		prevMapEntry = mapEntry; // prevMapEntry is updated at end of loop to save the prev entry
-	}  
-	arrOfLimits[0] = top;
-	arrOfLimits[1] = bottom;
-	return arrOfLimits;
+    /**
+     * Gets the power curve of the server.
+     *
+     * @return the power consumption given a utilization
+     */
+    public PowerCurve getPowerCurve() {
+        return this.powerCurve;
     }
 
     //TODO get rid of magic numbers
@@ -716,6 +764,7 @@ public class Server implements Powerable, Serializable {
             Job job = this.queue.poll();
             this.startJobService(time, job);
         }
+        this.stateChanged();
     }
 
     /**
@@ -729,6 +778,7 @@ public class Server implements Powerable, Serializable {
         for (int i = 0; i < this.sockets.size(); i++) {
             this.sockets.get(i).pauseProcessing(time);
         }
+        this.stateChanged();
     }
 
     /**
@@ -809,11 +859,21 @@ public class Server implements Powerable, Serializable {
      * @param speed - the speed to set the cores to (relative to 1.0)
      */
     public void setDvfsSpeed(final double time, final double speed) {
+        this.dvfsSpeed = speed;
         for (int i = 0; i < this.sockets.size(); i++) {
             this.sockets.get(i).setDvfsSpeed(time, speed);
         }
     }
 
+    /**
+     * Gets the DVFS speed last set on the server's cores.
+     *
+     * @return the DVFS speed (relative to 1.0)
+     */
+    public double getDvfsSpeed() {
+        return this.dvfsSpeed;
+    }
+
     /**
      * Disable sockets
      *
@@ -832,6 +892,7 @@ public class Server implements Powerable, Serializable {
 		    break;
 	    }
 	}
+        this.stateChanged();
     }
 
     /**
@@ -846,6 +907,7 @@ public class Server implements Powerable, Serializable {
 	    this.sockets.add(it.next());
 	    it.remove();
 	}
+        this.stateChanged();
     }
 
     /**
@@ -861,14 +923,14 @@ public class Server implements Powerable, Serializable {
         double nonScalablePower = this.getMaxPower()
                 - this.getMaxCpuDynamicPower();
         if (allocatedPower < nonScalablePower) {
-            dvfsSpeed = 0.5;
+            dvfsSpeed = MIN_DVFS_SPEED;
         } else if (allocatedPower > this.getMaxPower()) {
             dvfsSpeed = 1.0;
         } else {
             double targetCpuPower = allocatedPower - nonScalablePower;
             dvfsSpeed = Math.pow(targetCpuPower / this.getMaxCpuDynamicPower(),
                     1 / 3.0);
-            dvfsSpeed = Math.max(dvfsSpeed, .5);
+            dvfsSpeed = Math.max(dvfsSpeed, MIN_DVFS_SPEED);
         }
 
         this.setDvfsSpeed(time, dvfsSpeed);
@@ -0,0 +1,373 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package datacenter;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.TreeSet;
+
+import core.Sim;
+
+/**
+ * An index of a data center's servers in the order the PACK and PEAK
+ * cluster schedulers consider them: by utilization (including the queue)
+ * from highest to lowest, optionally preceded by peak efficiency from
+ * highest to lowest. Ties go to the server added first.
+ *
+ * Servers report state changes (see {@link Server#stateChanged()}), which
+ * only mark them as changed. Before a query every changed server is
+ * taken out of the ordered sets under its old key and put back under its
+ * new one, so a dispatch costs O(log S) per changed server instead of a
+ * full sort of the servers.
+ */
+final class ServerIndex implements Serializable {
+
+    /** The serialization id. */
+    private static final long serialVersionUID = 1L;
+
+    /** The initial number of servers to allocate space for. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Orders servers by their indexed keys.
+     */
+    private final class KeyComparator implements Comparator<Server>,
+                                                 Serializable {
+
+        /** The serialization id. */
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public int compare(final Server s1, final Server s2) {
+            int id1 = s1.getDataCenterId();
+            int id2 = s2.getDataCenterId();
+            int result = 0;
+            if (ServerIndex.this.byEfficiency) {
+                result = Double.compare(ServerIndex.this.efficiency[id2],
+                                        ServerIndex.this.efficiency[id1]);
+            }
+            if (result == 0) {
+                result = Double.compare(ServerIndex.this.load[id2],
+                                        ServerIndex.this.load[id1]);
+            }
+            if (result == 0) {
+                result = id1 - id2;
+            }
+
+            return result;
+        }
+
+    }
+
+    /** If servers are ordered by peak efficiency before utilization. */
+    private final boolean byEfficiency;
+
+    /** The indexed servers by data center id. */
+    private final ArrayList<Server> servers;
+
+    /** The indexed utilization (with queue) of each server. */
+    private double[] load;
+
+    /** The indexed peak efficiency of each server. */
+    private double[] efficiency;
+
+    /** If each server was paused when indexed. */
+    private boolean[] paused;
+
+    /** If each server had remaining capacity when indexed. */
+    private boolean[] hasCapacity;
+
+    /** If each server was above its peak efficiency when indexed. */
+    private boolean[] abovePeak;
+
+    /** If each server was idle (running with no jobs) when indexed. */
+    private boolean[] idle;
+
+    /** If each server has changed since it was indexed. */
+    private boolean[] changed;
+
+    /** The servers which have changed since they were indexed. */
+    private final ArrayList<Server> changedServers;
+
+    /** Servers that aren't paused. */
+    private final TreeSet<Server> active;
+
+    /** Servers that are paused. */
+    private final TreeSet<Server> sleeping;
+
+    /**
+     * Servers that aren't paused and have remaining capacity
+     * (and, when ordered by efficiency, are below peak).
+     */
+    private final TreeSet<Server> available;
+
+    /**
+     * Servers above peak with remaining capacity, when ordered by
+     * efficiency.
+     */
+    private final TreeSet<Server> availableAbovePeak;
+
+    /** The number of idle servers. */
+    private int nIdle;
+
+    /** The number of servers below their peak efficiency utilization. */
+    private int nBelowPeak;
+
+    /**
+     * Creates a new, empty ServerIndex.
+     *
+     * @param orderByEfficiency - if servers are ordered by peak efficiency
+     * before utilization (for PEAK) or only by utilization (for PACK)
+     */
+    ServerIndex(final boolean orderByEfficiency) {
+        this.byEfficiency = orderByEfficiency;
+        this.servers = new ArrayList<Server>();
+        this.load = new double[INITIAL_CAPACITY];
+        this.efficiency = new double[INITIAL_CAPACITY];
+        this.paused = new boolean[INITIAL_CAPACITY];
+        this.hasCapacity = new boolean[INITIAL_CAPACITY];
+        this.abovePeak = new boolean[INITIAL_CAPACITY];
+        this.idle = new boolean[INITIAL_CAPACITY];
+        this.changed = new boolean[INITIAL_CAPACITY];
+        this.changedServers = new ArrayList<Server>();
+        KeyComparator comparator = new KeyComparator();
+        this.active = new TreeSet<Server>(comparator);
+        this.sleeping = new TreeSet<Server>(comparator);
+        this.available = new TreeSet<Server>(comparator);
+        this.availableAbovePeak = new TreeSet<Server>(comparator);
+        this.nIdle = 0;
+        this.nBelowPeak = 0;
+    }
+
+    /**
+     * Gets if servers are ordered by peak efficiency before utilization.
+     *
+     * @return if servers are ordered by peak efficiency
+     */
+    boolean isOrderedByEfficiency() {
+        return this.byEfficiency;
+    }
+
+    /**
+     * Adds a server to the index. Servers must be added in order of
+     * their data center id.
+     *
+     * @param server - the server to add
+     */
+    void add(final Server server) {
+        int id = server.getDataCenterId();
+        if (id != this.servers.size()) {
+            Sim.fatalError("Servers must be indexed in id order");
+        }
+        if (id == this.load.length) {
+            int length = 2 * id;
+            this.load = Arrays.copyOf(this.load, length);
+            this.efficiency = Arrays.copyOf(this.efficiency, length);
+            this.paused = Arrays.copyOf(this.paused, length);
+            this.hasCapacity = Arrays.copyOf(this.hasCapacity, length);
+            this.abovePeak = Arrays.copyOf(this.abovePeak, length);
+            this.idle = Arrays.copyOf(this.idle, length);
+            this.changed = Arrays.copyOf(this.changed, length);
+        }
+        this.servers.add(server);
+        this.insert(server);
+    }
+
+    /**
+     * Notes that the state of a server may have changed.
+     *
+     * @param server - the server that may have changed
+     */
+    void changed(final Server server) {
+        int id = server.getDataCenterId();
+        if (!this.changed[id]) {
+            this.changed[id] = true;
+            this.changedServers.add(server);
+        }
+    }
+
+    /**
+     * Re-indexes every server that changed since it was last indexed.
+     */
+    private void update() {
+        int nChanged = this.changedServers.size();
+        for (int i = 0; i < nChanged; i++) {
+            Server server = this.changedServers.get(i);
+            this.remove(server);
+            this.insert(server);
+            this.changed[server.getDataCenterId()] = false;
+        }
+        this.changedServers.clear();
+    }
+
+    /**
+     * Takes a server out of the ordered sets under its indexed keys.
+     *
+     * @param server - the server to take out
+     */
+    private void remove(final Server server) {
+        int id = server.getDataCenterId();
+        if (this.paused[id]) {
+            this.sleeping.remove(server);
+        } else {
+            this.active.remove(server);
+        }
+        this.available.remove(server);
+        this.availableAbovePeak.remove(server);
+        if (this.idle[id]) {
+            this.nIdle--;
+        }
+        if (!this.abovePeak[id]) {
+            this.nBelowPeak--;
+        }
+    }
+
+    /**
+     * Records a server's current keys and puts it in the ordered sets.
+     *
+     * @param server - the server to put in
+     */
+    private void insert(final Server server) {
+        int id = server.getDataCenterId();
+        this.load[id] = server.getInstantUtilizationWithQueue();
+        this.efficiency[id] = server.getPeakEfficiency();
+        this.paused[id] = server.isPaused();
+        this.hasCapacity[id] = server.getRemainingCapacity() > 0;
+        this.abovePeak[id] = server.isAbovePeakEfficiencyUtilization();
+        this.idle[id] = server.getJobsInService() == 0
+                        && server.getQueueLength() == 0
+                        && !this.paused[id];
+
+        if (this.paused[id]) {
+            this.sleeping.add(server);
+        } else {
+            this.active.add(server);
+        }
+        if (this.hasCapacity[id]) {
+            if (this.byEfficiency && this.abovePeak[id]) {
+                this.availableAbovePeak.add(server);
+            } else if (!this.paused[id]) {
+                this.available.add(server);
+            }
+        }
+        if (this.idle[id]) {
+            this.nIdle++;
+        }
+        if (!this.abovePeak[id]) {
+            this.nBelowPeak++;
+        }
+    }
+
+    /**
+     * Gets the number of idle servers (running with no jobs).
+     *
+     * @return the number of idle servers
+     */
+    int getNIdle() {
+        this.update();
+        return this.nIdle;
+    }
+
+    /**
+     * Gets if every server is above its peak efficiency utilization.
+     *
+     * @return if every server is above its peak efficiency utilization
+     */
+    boolean allAbovePeak() {
+        this.update();
+        return this.nBelowPeak == 0;
+    }
+
+    /**
+     * Gets the first paused server in order if there are no idle servers
+     * and it has no jobs, i.e. a server that should be woken up.
+     *
+     * @return the server to wake up or null
+     */
+    private Server getServerToWake() {
+        if (this.nIdle == 0 && !this.sleeping.isEmpty()) {
+            Server server = this.sleeping.first();
+            if (server.getJobsInService() == 0
+                && server.getQueueLength() == 0) {
+                return server;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets the server a job should go to under the PACK scheduler.
+     *
+     * @param originalServer - the server the job arrived at
+     * @return the server the job should go to
+     */
+    Server getPackingTarget(final Server originalServer) {
+        this.update();
+        Server server = this.getServerToWake();
+        if (server != null) {
+            return server;
+        }
+        if (!this.available.isEmpty()) {
+            return this.available.first();
+        }
+        if (!this.active.isEmpty()) {
+            return this.active.last();
+        }
+
+        return originalServer;
+    }
+
+    /**
+     * Gets the server a job should go to under the PEAK scheduler.
+     *
+     * @param originalServer - the server the job arrived at
+     * @return the server the job should go to
+     */
+    Server getPeakTarget(final Server originalServer) {
+        this.update();
+        Server server = this.getServerToWake();
+        if (server != null) {
+            return server;
+        }
+        if (!this.available.isEmpty()) {
+            return this.available.first();
+        }
+        if (!this.availableAbovePeak.isEmpty()) {
+            return this.availableAbovePeak.last();
+        }
+        if (!this.active.isEmpty()) {
+            return this.active.last();
+        }
+
+        return originalServer;
+    }
+
+}
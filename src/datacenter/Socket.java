@@ -31,7 +31,6 @@
 package datacenter;
 
 import java.io.Serializable;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Vector;
 
@@ -39,6 +38,7 @@ import core.Constants;
 import core.Event;
 import core.Experiment;
 import core.Job;
+import core.JobFinishEvent;
 import core.Sim;
 import core.SocketEnteredParkEvent;
 import core.SocketExitedParkEvent;
@@ -71,12 +71,6 @@ public final class Socket implements Powerable, Serializable {
      */
     private Experiment experiment;
 
-    /**
-     * A mapping of jobs to cores.
-     * This allows bookeeping of cores when jobs finish.
-     */
-    private HashMap<Job, Core> jobToCoreMap;
-
     /**
      * Available socket power states.
      */
@@ -172,7 +166,6 @@ public final class Socket implements Powerable, Serializable {
         this.server = aServer;
         this.nCores = theNCores;
 
-        this.jobToCoreMap = new HashMap<Job, Core>();
         this.availableCores = new Vector<Core>();
         this.busyCores = new Vector<Core>();
         this.transitionQueue = new Vector<Job>();
@@ -203,7 +196,7 @@ public final class Socket implements Powerable, Serializable {
             this.busyCores.add(core);
 
             // Save the core the job is on so we can remove it later
-            this.jobToCoreMap.put(job, core);
+            job.setCore(core);
         } else if (this.powerState
                    == SocketPowerState.TRANSITIONG_TO_LOW_POWER_IDLE) {
             this.transitionQueue.add(job);
@@ -232,6 +225,7 @@ public final class Socket implements Powerable, Serializable {
             this.experiment.addEvent(socketExitedParkEvent);
         }
 
+        this.stateChanged();
     }
 
     /**
@@ -246,7 +240,8 @@ public final class Socket implements Powerable, Serializable {
                           final boolean jobWaiting) {
 
         // Find out which socket this job was running on
-        Core core = this.jobToCoreMap.remove(job);
+        Core core = job.getCore();
+        job.setCore(null);
 
         // Error check we got a real socket
         if (core == null) {
@@ -281,6 +276,7 @@ public final class Socket implements Powerable, Serializable {
             }
             // Otherwise the socket stays active
         }
+        this.stateChanged();
     }
 
     /**
@@ -375,6 +371,7 @@ public final class Socket implements Powerable, Serializable {
         }
 
         this.powerState = SocketPowerState.LOW_POWER_IDLE;
+        this.stateChanged();
     }
 
     /**
@@ -390,6 +387,36 @@ public final class Socket implements Powerable, Serializable {
             this.insertJob(time, job);
         }
         this.transitionQueue.clear();
+        this.stateChanged();
+    }
+
+    /**
+     * Gets the unfinished work on the socket: the time left for the jobs
+     * running on its cores plus the size of the jobs waiting for it to
+     * transition.
+     *
+     * @param time - the current time
+     * @return the unfinished work on the socket (in seconds)
+     */
+    public double getRemainingWork(final double time) {
+        double work = 0.0d;
+        for (int i = 0; i < this.busyCores.size(); i++) {
+            Job job = this.busyCores.get(i).getJob();
+            if (job == null) {
+                continue;
+            }
+            JobFinishEvent finishEvent = job.getJobFinishEvent();
+            if (finishEvent != null && finishEvent.isQueued()) {
+                work += finishEvent.getTime() - time;
+            } else {
+                work += job.getSize() - job.getAmountCompleted();
+            }
+        }
+        for (int i = 0; i < this.transitionQueue.size(); i++) {
+            work += this.transitionQueue.get(i).getSize();
+        }
+
+        return work;
     }
 
     /**
@@ -436,6 +463,7 @@ public final class Socket implements Powerable, Serializable {
      */
     public void setSocketActivePower(final double socketActivePower) {
         this.socketActiveIdlePower = socketActivePower;
+        this.stateChanged();
     }
 
     /**
@@ -445,6 +473,7 @@ public final class Socket implements Powerable, Serializable {
      */
     public void setSocketParkPower(final double theSocketParkPower) {
         this.socketParkPower = theSocketParkPower;
+        this.stateChanged();
     }
 
     /**
@@ -500,6 +529,13 @@ public final class Socket implements Powerable, Serializable {
         }
     }
 
+    /**
+     * Tells the server the state of the socket may have changed.
+     */
+    void stateChanged() {
+        this.server.stateChanged();
+    }
+
     /**
      * Get the current power consumption of the socket (dynamic + leakage).
      *
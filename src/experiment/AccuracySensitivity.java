@@ -41,7 +41,7 @@ import generator.EmpiricalGenerator;
 import generator.ExponentialGenerator;
 import generator.GammaGenerator;
 import generator.Generator;
-import generator.MTRandom;
+import generator.MersenneTwister;
 import master.Master;
 import math.EmpiricalDistribution;
 import core.Experiment;
@@ -79,7 +79,7 @@ public class AccuracySensitivity {
 		EmpiricalDistribution serviceDistribution = EmpiricalDistribution.loadDistribution(serviceFile, 1e-3);
 		double averageInterarrival = arrivalDistribution.getMean();
 		double averageServiceTime = serviceDistribution.getMean();
-		MTRandom rand = new MTRandom(1);
+		MersenneTwister rand = new MersenneTwister(1);
 		
 //		double arrivalK = 1.0;  
 //		double arrivalTheta =1.0;
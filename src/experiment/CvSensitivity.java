@@ -37,7 +37,7 @@ package experiment;
 //TODO delete this
 import generator.GammaGenerator;
 import generator.Generator;
-import generator.MTRandom;
+import generator.MersenneTwister;
 import core.Experiment;
 import core.ExperimentInput;
 import core.ExperimentOutput;
@@ -71,7 +71,7 @@ public class CvSensitivity {
 
 		//		Distribution arrivalDistribution = Distribution.loadDistribution(arrivalFile, 1e-3);
 		//		Distribution serviceDistribution = Distribution.loadDistribution(serviceFile, 1e-3);
-		MTRandom rand = new MTRandom(1);
+		MersenneTwister rand = new MersenneTwister(1);
 
 		//		double arrivalK = 1.0;  
 		//		double arrivalTheta =1.0;
@@ -34,7 +34,7 @@ package experiment;
 import java.util.Vector;
 
 import generator.EmpiricalGenerator;
-import generator.MTRandom;
+import generator.MersenneTwister;
 import master.Master;
 import math.EmpiricalDistribution;
 import core.Experiment;
@@ -95,7 +95,7 @@ public class DistributedPowerCappingExperiment {
 		System.out.println("Service rate x" + cores + " is: "+ (serviceRate)*cores);
 		System.out.println("\n------------------\n");
 
-		MTRandom rand = new MTRandom(1);
+		MersenneTwister rand = new MersenneTwister(1);
 		
 		EmpiricalGenerator arrivalGenerator  = new EmpiricalGenerator(rand, arrivalDistribution, "arrival", arrivalScale);
 		EmpiricalGenerator serviceGenerator  = new EmpiricalGenerator(rand, serviceDistribution, "service", 1.0);
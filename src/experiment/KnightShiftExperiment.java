@@ -32,7 +32,7 @@
 package experiment;
 
 import generator.EmpiricalGenerator;
-import generator.MTRandom;
+import generator.MersenneTwister;
 import math.EmpiricalDistribution;
 import core.Experiment;
 import core.ExperimentInput;
@@ -89,7 +89,7 @@ public class KnightShiftExperiment {
 		// setup experiment
 		ExperimentInput experimentInput = new ExperimentInput();		
 
-		MTRandom rand = new MTRandom(1);
+		MersenneTwister rand = new MersenneTwister(1);
 		EmpiricalGenerator arrivalGenerator  = new EmpiricalGenerator(rand, arrivalDistribution, "arrival", arrivalScale);
 		EmpiricalGenerator serviceGenerator  = new EmpiricalGenerator(rand, serviceDistribution, "service", 1.0);
 
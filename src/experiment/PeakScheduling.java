@@ -37,7 +37,7 @@ package experiment;
 
 //TODO delete this
 import generator.EmpiricalGenerator;
-import generator.MTRandom;
+import generator.MersenneTwister;
 import math.EmpiricalDistribution;
 import core.Experiment;
 import core.ExperimentInput;
@@ -47,7 +47,11 @@ import core.Constants.TimeWeightedStatName;
 import datacenter.DataCenter;
 import datacenter.PowerCappingEnforcer;
 import datacenter.PowerNapServer;
-import datacenter.DataCenter.ClusterScheduler;
+import datacenter.DataCenter.SchedulingPolicy;
+import datacenter.JoinShortestQueueScheduler;
+import datacenter.LeastWorkLeftScheduler;
+import datacenter.PowerOfDChoicesScheduler;
+import datacenter.RoundRobinScheduler;
 import datacenter.Server;
 import datacenter.ServerLowEP;
 import datacenter.ServerMidEP;
@@ -64,6 +68,19 @@ public class PeakScheduling {
 
 	
 	public void run(String workloadDir, String workload, double targetRho, String epLevel, String loadPolicy, int numServers, double transition) {
+		run(workloadDir, workload, targetRho, epLevel, loadPolicy, numServers, transition, false);
+	}
+
+	/**
+	 * Runs the experiment.
+	 *
+	 * Uniform, Pack and Peak normally see one arrival stream per server,
+	 * while the dispatching policies (JSQ, PowerOfTwo, LWL, RoundRobin)
+	 * always see a single central stream. Setting centralArrivals gives
+	 * every policy the same central stream so they can be compared like
+	 * for like.
+	 */
+	public void run(String workloadDir, String workload, double targetRho, String epLevel, String loadPolicy, int numServers, double transition, boolean centralArrivals) {
 		
 		ExperimentInput experimentInput = new ExperimentInput();		
 
@@ -98,7 +115,7 @@ public class PeakScheduling {
 		System.out.println("Service rate x" + cores*sockets + " is: "+ (serviceRate)*cores*sockets);
 		System.out.println("\n------------------\n");
 
-		MTRandom rand = new MTRandom(1);
+		MersenneTwister rand = new MersenneTwister(1);
 		
 		EmpiricalGenerator arrivalGenerator  = new EmpiricalGenerator(rand, arrivalDistribution, "arrival", arrivalScale);
 		EmpiricalGenerator serviceGenerator  = new EmpiricalGenerator(rand, serviceDistribution, "service", 1.0);
@@ -120,16 +137,39 @@ public class PeakScheduling {
 
 		DataCenter dataCenter = new DataCenter(experiment);		
                 if ( loadPolicy.equals("Uniform") )
-                dataCenter.setClusterScheduler(ClusterScheduler.UNIFORM);
+                dataCenter.setClusterScheduler(SchedulingPolicy.UNIFORM);
                 else if (loadPolicy.equals("Pack") )
-                dataCenter.setClusterScheduler(ClusterScheduler.PACK);
+                dataCenter.setClusterScheduler(SchedulingPolicy.PACK);
                 else if (loadPolicy.equals("Peak") )
-                dataCenter.setClusterScheduler(ClusterScheduler.PEAK);
+                dataCenter.setClusterScheduler(SchedulingPolicy.PEAK);
+                else if (loadPolicy.equals("JSQ") )
+                dataCenter.setClusterScheduler(new JoinShortestQueueScheduler());
+                else if (loadPolicy.equals("PowerOfTwo") )
+                // Its own stream, so it sees the same jobs as the other policies
+                dataCenter.setClusterScheduler(new PowerOfDChoicesScheduler(new MersenneTwister(2), 2));
+                else if (loadPolicy.equals("LWL") )
+                dataCenter.setClusterScheduler(new LeastWorkLeftScheduler());
+                else if (loadPolicy.equals("RoundRobin") )
+                dataCenter.setClusterScheduler(new RoundRobinScheduler());
                 else{
-                System.out.println(loadPolicy + " Must select a cluster management scheme: Balance, Pack, Peak. Using default.");
+                System.out.println(loadPolicy + " Must select a cluster management scheme: Uniform, Pack, Peak, JSQ, PowerOfTwo, LWL, RoundRobin.");
 		System.exit(0);
 		}
-                System.out.println("Cluster management " + dataCenter.getClusterScheduler() + "\n");
+                System.out.println("Cluster management " + dataCenter.getClusterScheduler());
+                System.out.println("Central arrival stream " + (centralArrivals || !(dataCenter.getClusterScheduler() instanceof SchedulingPolicy)) + "\n");
+		// Dispatchers place jobs from one cluster-wide arrival stream.
+		// Scaling the interarrival times by 1/numServers gives the same
+		// total rate as numServers per-server streams, but it is not their
+		// superposition: merging many per-server streams tends toward a
+		// Poisson process, while the scaled stream keeps the workload's
+		// interarrival variability.
+		// Results are only like for like across policies fed by the same
+		// kind of stream, so pass centralArrivals to use this one for
+		// Uniform, Pack and Peak too.
+		if ( centralArrivals || !(dataCenter.getClusterScheduler() instanceof SchedulingPolicy) ) {
+			EmpiricalGenerator clusterArrivalGenerator = new EmpiricalGenerator(rand, arrivalDistribution, "arrival", arrivalScale/numServers);
+			dataCenter.setArrivalProcess(clusterArrivalGenerator, serviceGenerator);
+		}
 		System.out.println("Server transition time " + String.valueOf(transition));
 
 		//double primaryPeakPower = 17;
@@ -226,7 +266,8 @@ public class PeakScheduling {
 	
 	public static void main(String[] args) {
 		PeakScheduling exp  = new PeakScheduling();
-		exp.run(args[0],args[1],Double.valueOf(args[2]),args[3],args[4],Integer.parseInt(args[5]),Double.valueOf(args[6]));
+		boolean centralArrivals = args.length > 7 && Boolean.parseBoolean(args[7]);
+		exp.run(args[0],args[1],Double.valueOf(args[2]),args[3],args[4],Integer.parseInt(args[5]),Double.valueOf(args[6]),centralArrivals);
 	}
 	
 }
@@ -32,11 +32,14 @@
 package experiment;
 
 import generator.EmpiricalGenerator;
-import generator.MTRandom;
+import generator.RandomStreamFactory;
+import master.ShardedExperimentRunner;
 import math.EmpiricalDistribution;
+import stat.StatisticsCollection;
 import core.Experiment;
 import core.ExperimentInput;
 import core.ExperimentOutput;
+import core.MarketSampleEvent;
 import core.Constants.StatName;
 import core.Constants.TimeWeightedStatName;
 import datacenter.DataCenter;
@@ -89,9 +92,8 @@ public class PowerCappingExperiment {
 		// setup experiment
 		ExperimentInput experimentInput = new ExperimentInput();		
 
-		MTRandom rand = new MTRandom(1);
-		EmpiricalGenerator arrivalGenerator  = new EmpiricalGenerator(rand, arrivalDistribution, "arrival", arrivalScale);
-		EmpiricalGenerator serviceGenerator  = new EmpiricalGenerator(rand, serviceDistribution, "service", 1.0);
+		// every server gets its own non-overlapping random streams
+		RandomStreamFactory streams = new RandomStreamFactory(1);
 
 		// add experiment outputs
 		ExperimentOutput experimentOutput = new ExperimentOutput();
@@ -99,7 +101,8 @@ public class PowerCappingExperiment {
 		experimentOutput.addOutput(StatName.SERVER_LEVEL_CAP, .05, .95, .05, 5000);
 		//experimentOutput.addTimeWeightedOutput(TimeWeightedStatName.SERVER_POWER, .01, .5, .01, 50000, .001);
 		//experimentOutput.addTimeWeightedOutput(TimeWeightedStatName.SERVER_UTILIZATION, .01, .5, .01, 50000, .001);
-		Experiment experiment = new Experiment("Power capping test", rand, experimentInput, experimentOutput);
+		Experiment experiment = new Experiment("Power capping test", streams.newStream(), experimentInput, experimentOutput);
+		experiment.setRandomStreams(streams);
 		
 		// setup datacenter
 		DataCenter dataCenter = new DataCenter(experiment);
@@ -110,30 +113,17 @@ public class PowerCappingExperiment {
 		double minPower = 59*nServers;
 		PowerCappingEnforcer enforcer = new PowerCappingEnforcer(experiment, capPeriod, globalCap, maxPower, minPower);
 		for(int i = 0; i < nServers; i++) {
-			Server server = new Server(sockets, cores, experiment, arrivalGenerator, serviceGenerator);
-//			Server server = new PowerNapServer(sockets, cores, experiment, arrivalGenerator, serviceGenerator, 0.001, 5);
-
-			server.setSocketPolicy(SocketPowerPolicy.NO_MANAGEMENT);
-			server.setCorePolicy(CorePowerPolicy.NO_MANAGEMENT);	
-			double coreActivePower = 40 * (4.0/5)/cores;
-			double coreHaltPower = coreActivePower*.2;
-			double coreParkPower = 0;
-
-			double socketActivePower = 40 * (1.0/5)/sockets;
-			double socketParkPower = 0;
-
-			server.setCoreActivePower(coreActivePower);
-			server.setCoreParkPower(coreParkPower);
-			server.setCoreIdlePower(coreHaltPower);
-
-			server.setSocketActivePower(socketActivePower);
-			server.setSocketParkPower(socketParkPower);
+			Server server = createServer(experiment, streams, arrivalDistribution, serviceDistribution, arrivalScale, sockets, cores);
 			enforcer.addServer(server);
 			dataCenter.addServer(server);
 		}//End for i
 		
 		experimentInput.setDataCenter(dataCenter);
 
+		// offer the power capping range (in MW) as regulation capacity
+		double regulationCapacity = (maxPower - minPower) / 2 * 1e-6;
+		MarketSampleEvent market = experiment.sampleRegulationMarket(5.0, regulationCapacity);
+
 		// run the experiment
 		experiment.run();
 
@@ -147,11 +137,109 @@ public class PowerCappingExperiment {
 		System.out.println("Average Server Cap : " + averageServerLevelCap);
 		double averageUtilization = experiment.getStats().getTimeWeightedStat(TimeWeightedStatName.SERVER_UTILIZATION).getAverage();
 		System.out.println("Average Utilization : " + averageUtilization);
+		System.out.println("Electricity Cost ($) : " + market.getTotalCost());
+		System.out.println("Regulation Reward ($) : " + market.getTotalReward());
 	}//End run()
 	
+	/**
+	 * Creates a capped server with its own random streams.
+	 */
+	private Server createServer(Experiment experiment, RandomStreamFactory streams, EmpiricalDistribution arrivalDistribution, EmpiricalDistribution serviceDistribution, double arrivalScale, int sockets, int cores) {
+		EmpiricalGenerator arrivalGenerator  = new EmpiricalGenerator(streams.newStream(), arrivalDistribution, "arrival", arrivalScale);
+		EmpiricalGenerator serviceGenerator  = new EmpiricalGenerator(streams.newStream(), serviceDistribution, "service", 1.0);
+		Server server = new Server(sockets, cores, experiment, arrivalGenerator, serviceGenerator);
+//		Server server = new PowerNapServer(sockets, cores, experiment, arrivalGenerator, serviceGenerator, 0.001, 5);
+
+		server.setSocketPolicy(SocketPowerPolicy.NO_MANAGEMENT);
+		server.setCorePolicy(CorePowerPolicy.NO_MANAGEMENT);	
+		double coreActivePower = 40 * (4.0/5)/cores;
+		double coreHaltPower = coreActivePower*.2;
+		double coreParkPower = 0;
+
+		double socketActivePower = 40 * (1.0/5)/sockets;
+		double socketParkPower = 0;
+
+		server.setCoreActivePower(coreActivePower);
+		server.setCoreParkPower(coreParkPower);
+		server.setCoreIdlePower(coreHaltPower);
+
+		server.setSocketActivePower(socketActivePower);
+		server.setSocketParkPower(socketParkPower);
+
+		return server;
+	}//End createServer()
+
+	/**
+	 * Runs the same experiment with the servers split into shards,
+	 * which run on their own threads and meet every cap period.
+	 */
+	public void runSharded(String workloadDir, String workload, int nServers, int nShards) {
+
+		String arrivalFile = workloadDir+"workloads/"+workload+".arrival.cdf";
+		String serviceFile = workloadDir+"workloads/"+workload+".service.cdf";
+
+		int cores = 4;
+		int sockets = 1;
+		double targetRho = .5;
+
+		EmpiricalDistribution arrivalDistribution = EmpiricalDistribution.loadDistribution(arrivalFile, 1e-3);
+		EmpiricalDistribution serviceDistribution = EmpiricalDistribution.loadDistribution(serviceFile, 1e-3);
+
+		double averageServiceTime = serviceDistribution.getMean();
+		double qps = 1/arrivalDistribution.getMean();
+		double rho = qps/(cores*(1/averageServiceTime));
+		double arrivalScale = rho/targetRho;
+
+		// every server gets its own non-overlapping random streams
+		RandomStreamFactory streams = new RandomStreamFactory(1);
+
+		double capPeriod = 1.0;
+		double globalCap = 65*nServers;
+		double maxPower = 100*nServers;
+		double minPower = 59*nServers;
+
+		Experiment[] shards = new Experiment[nShards];
+		PowerCappingEnforcer enforcer = null;
+		for(int shard = 0; shard < nShards; shard++) {
+			ExperimentInput experimentInput = new ExperimentInput();
+			ExperimentOutput experimentOutput = new ExperimentOutput();
+			experimentOutput.addOutput(StatName.SOJOURN_TIME, .05, .95, .05, 5000);
+			experimentOutput.addOutput(StatName.SERVER_LEVEL_CAP, .05, .95, .05, 5000);
+			Experiment experiment = new Experiment("Power capping shard " + shard, streams.newStream(), experimentInput, experimentOutput);
+			DataCenter dataCenter = new DataCenter(experiment);
+
+			// the enforcer's statistics go to the first shard
+			if (enforcer == null) {
+				enforcer = new PowerCappingEnforcer(experiment, capPeriod, globalCap, maxPower, minPower);
+			}
+			for(int i = shard; i < nServers; i += nShards) {
+				Server server = createServer(experiment, streams, arrivalDistribution, serviceDistribution, arrivalScale, sockets, cores);
+				enforcer.addServer(server);
+				dataCenter.addServer(server);
+			}//End for i
+
+			experimentInput.setDataCenter(dataCenter);
+			shards[shard] = experiment;
+		}//End for shard
+
+		ShardedExperimentRunner runner = new ShardedExperimentRunner(shards, capPeriod);
+		runner.addPowerCappingEnforcer(enforcer);
+		StatisticsCollection stats = runner.run();
+
+		// display results
+		System.out.println("====== Results ======");
+		System.out.println("Response Mean: " + stats.getStat(StatName.SOJOURN_TIME).getAverage());
+		System.out.println("Response 95: " + stats.getStat(StatName.SOJOURN_TIME).getQuantile(.95));
+		System.out.println("Average Server Cap : " + stats.getStat(StatName.SERVER_LEVEL_CAP).getAverage());
+	}//End runSharded()
+	
 	public static void main(String[] args) {
 		PowerCappingExperiment exp  = new PowerCappingExperiment();
-		exp.run(args[0],args[1],Integer.valueOf(args[2]));
+		if (args.length > 3) {
+			exp.runSharded(args[0],args[1],Integer.valueOf(args[2]),Integer.valueOf(args[3]));
+		} else {
+			exp.run(args[0],args[1],Integer.valueOf(args[2]));
+		}
 	}
 	
 }//End PowerCappingExperiment
@@ -38,7 +38,7 @@ package experiment;
 
 //TODO delete this
 import generator.EmpiricalGenerator;
-import generator.MTRandom;
+import generator.MersenneTwister;
 import math.EmpiricalDistribution;
 import core.Experiment;
 import core.ExperimentInput;
@@ -98,7 +98,7 @@ public class SingleMachine {
 		System.out.println("Service rate x" + cores*sockets + " is: "+ (serviceRate)*cores*sockets);
 		System.out.println("\n------------------\n");
 
-		MTRandom rand = new MTRandom(1);
+		MersenneTwister rand = new MersenneTwister(1);
 		
 		EmpiricalGenerator arrivalGenerator  = new EmpiricalGenerator(rand, arrivalDistribution, "arrival", arrivalScale);
 		EmpiricalGenerator serviceGenerator  = new EmpiricalGenerator(rand, serviceDistribution, "service", 1.0);
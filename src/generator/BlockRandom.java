@@ -0,0 +1,134 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package generator;
+
+import java.util.Random;
+
+/**
+ * A random number generator that produces uniform doubles a block
+ * at a time. Calls to {@link #nextDouble()} are served from the block
+ * and the block is refilled in one tight loop when it runs out.
+ * None of the methods are synchronized, so an instance must only be used
+ * by one thread (one experiment) at a time.
+ * <p>
+ * The sequence of values is completely determined by the seed.
+ * Values drawn with methods other than {@link #nextDouble()} and
+ * {@link #nextDoubles(double[], int, int)} come after the doubles
+ * already in the block.
+ */
+public abstract class BlockRandom extends Random {
+
+    /** The serialization id. */
+    private static final long serialVersionUID = 1L;
+
+    /** Scales 53 random bits to a double in [0, 1). */
+    protected static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    /** The number of doubles generated at a time. */
+    private final int blockSize;
+
+    /** The block of pregenerated doubles. */
+    private double[] block;
+
+    /** The index of the next unused double in the block. */
+    private int blockIndex;
+
+    /**
+     * Creates a new BlockRandom.
+     *
+     * @param seed - the seed for the generator
+     * @param theBlockSize - the number of doubles to generate at a time
+     */
+    protected BlockRandom(final long seed, final int theBlockSize) {
+        super(seed);
+        this.blockSize = theBlockSize;
+        this.block = new double[theBlockSize];
+        this.blockIndex = theBlockSize;
+    }
+
+    /**
+     * Fills part of an array with uniform doubles in [0, 1),
+     * advancing the generator.
+     *
+     * @param values - the array to fill
+     * @param offset - the first index to fill
+     * @param length - the number of values to fill
+     */
+    protected abstract void fillDoubles(double[] values,
+                                        int offset,
+                                        int length);
+
+    /**
+     * Throws away any pregenerated doubles. Must be called whenever
+     * the generator state is changed outside of generating values
+     * (e.g., on reseeding).
+     */
+    protected final void discardBlock() {
+        // Random's constructor reseeds before our fields are set
+        if (this.block != null) {
+            this.blockIndex = this.blockSize;
+        }
+    }
+
+    /**
+     * Gets the next uniform double in [0, 1).
+     *
+     * @return the next uniform double
+     */
+    @Override
+    public final double nextDouble() {
+        if (this.blockIndex == this.blockSize) {
+            this.fillDoubles(this.block, 0, this.blockSize);
+            this.blockIndex = 0;
+        }
+
+        return this.block[this.blockIndex++];
+    }
+
+    /**
+     * Fills part of an array with the next uniform doubles in [0, 1).
+     * The values are the same as calling {@link #nextDouble()}
+     * length times.
+     *
+     * @param values - the array to fill
+     * @param offset - the first index to fill
+     * @param length - the number of values to fill
+     */
+    public final void nextDoubles(final double[] values,
+                                  final int offset,
+                                  final int length) {
+        int buffered = Math.min(length, this.blockSize - this.blockIndex);
+        System.arraycopy(this.block, this.blockIndex, values, offset,
+                         buffered);
+        this.blockIndex += buffered;
+        if (buffered < length) {
+            this.fillDoubles(values, offset + buffered, length - buffered);
+        }
+    }
+
+}
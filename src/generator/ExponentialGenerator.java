@@ -30,6 +30,8 @@
  */
 package generator;
 
+import java.util.Random;
+
 /**
  * Creates random numbers from an exponential distribution.
  *
@@ -50,7 +52,7 @@ public class ExponentialGenerator extends Generator {
      * get uniform random number from.
      * @param theLambda - the exponential distribution's lambda parameter
      */
-    public ExponentialGenerator(final MTRandom mtRandom,
+    public ExponentialGenerator(final Random mtRandom,
                                 final double theLambda) {
         super(mtRandom);
         this.lambda = theLambda;
@@ -31,6 +31,7 @@
 package generator;
 
 import java.io.Serializable;
+import java.util.Random;
 
 /**
  * A Generator creates sequences of number based on distributions
@@ -46,14 +47,14 @@ public abstract class Generator implements Serializable {
     private static final long serialVersionUID = 1L;
 
     /** The random number generator to feed this generator. */
-    protected MTRandom generator;
+    protected Random generator;
 
     /**
      * Creates a new Generator.
      *
      * @param aGenerator - the random number generator to feed this generator.
      */
-    public Generator(final MTRandom aGenerator) {
+    public Generator(final Random aGenerator) {
         this.generator = aGenerator;
     }
 
@@ -70,4 +71,15 @@ public abstract class Generator implements Serializable {
      * @return the next values
      */
     public abstract double next();
+
+    /**
+     * Generates the next value at a point in simulated time.
+     * Time-varying generators override this, others ignore the time.
+     *
+     * @param time - the simulated time the value is drawn at
+     * @return the next value
+     */
+    public double next(final double time) {
+        return this.next();
+    }
 }
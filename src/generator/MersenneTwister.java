@@ -0,0 +1,202 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package generator;
+
+/**
+ * An unsynchronized MT19937 (Mersenne Twister) generator
+ * (Matsumoto and Nishimura 1998) that generates doubles a block at a time.
+ * For the same seed it produces exactly the same integers and doubles as
+ * {@link MTRandom}, so it can replace it without changing results, but
+ * without taking a lock for every value.
+ */
+public final class MersenneTwister extends BlockRandom {
+
+    /** The serialization id. */
+    private static final long serialVersionUID = 1L;
+
+    /** The number of words in the state. */
+    private static final int N = 624;
+
+    /** The offset of the word mixed in by the twist. */
+    private static final int M = 397;
+
+    /** The most significant bit of a word. */
+    private static final int UPPER_MASK = 0x80000000;
+
+    /** The least significant 31 bits of a word. */
+    private static final int LOWER_MASK = 0x7fffffff;
+
+    /** The twist matrix constant. */
+    private static final int MATRIX_A = 0x9908b0df;
+
+    /** The seed used to initialize the state before an array seed. */
+    private static final int ARRAY_SEED = 19650218;
+
+    /** The number of doubles generated at a time (one twist's worth). */
+    private static final int BLOCK_SIZE = N / 2;
+
+    /** The generator state. */
+    private int[] mt;
+
+    /** The index of the next word of the state to temper. */
+    private int mti;
+
+    /**
+     * Creates a new MersenneTwister.
+     *
+     * @param seed - the seed for the generator
+     */
+    public MersenneTwister(final long seed) {
+        super(seed, BLOCK_SIZE);
+    }
+
+    /**
+     * Reseeds the generator. Seeds the state the same way as
+     * {@link MTRandom#setSeed(long)}.
+     *
+     * @param seed - the new seed
+     */
+    @Override
+    public void setSeed(final long seed) {
+        // Random's constructor reseeds before our fields are set
+        if (this.mt == null) {
+            this.mt = new int[N];
+        }
+
+        int[] key = {(int) seed, (int) (seed >>> 32)};
+        this.mt[0] = ARRAY_SEED;
+        for (int i = 1; i < N; i++) {
+            this.mt[i] = 1812433253 * (this.mt[i - 1] ^ (this.mt[i - 1] >>> 30))
+                         + i;
+        }
+
+        int i = 1;
+        int j = 0;
+        for (int k = Math.max(N, key.length); k > 0; k--) {
+            this.mt[i] = (this.mt[i]
+                          ^ ((this.mt[i - 1] ^ (this.mt[i - 1] >>> 30))
+                             * 1664525))
+                         + key[j] + j;
+            i++;
+            j++;
+            if (i >= N) {
+                this.mt[0] = this.mt[N - 1];
+                i = 1;
+            }
+            if (j >= key.length) {
+                j = 0;
+            }
+        }
+        for (int k = N - 1; k > 0; k--) {
+            this.mt[i] = (this.mt[i]
+                          ^ ((this.mt[i - 1] ^ (this.mt[i - 1] >>> 30))
+                             * 1566083941))
+                         - i;
+            i++;
+            if (i >= N) {
+                this.mt[0] = this.mt[N - 1];
+                i = 1;
+            }
+        }
+        this.mt[0] = UPPER_MASK;
+        this.mti = N;
+        this.discardBlock();
+    }
+
+    /**
+     * Generates the next N words of the state.
+     */
+    private void twist() {
+        int[] state = this.mt;
+        int kk;
+        int y;
+        for (kk = 0; kk < N - M; kk++) {
+            y = (state[kk] & UPPER_MASK) | (state[kk + 1] & LOWER_MASK);
+            state[kk] = state[kk + M] ^ (y >>> 1) ^ ((y & 1) * MATRIX_A);
+        }
+        for (; kk < N - 1; kk++) {
+            y = (state[kk] & UPPER_MASK) | (state[kk + 1] & LOWER_MASK);
+            state[kk] = state[kk + (M - N)] ^ (y >>> 1)
+                        ^ ((y & 1) * MATRIX_A);
+        }
+        y = (state[N - 1] & UPPER_MASK) | (state[0] & LOWER_MASK);
+        state[N - 1] = state[M - 1] ^ (y >>> 1) ^ ((y & 1) * MATRIX_A);
+        this.mti = 0;
+    }
+
+    /**
+     * Gets the next tempered 32 bit word.
+     *
+     * @return the next word
+     */
+    private int nextWord() {
+        if (this.mti >= N) {
+            this.twist();
+        }
+        int y = this.mt[this.mti++];
+        y ^= (y >>> 11);
+        y ^= (y << 7) & 0x9d2c5680;
+        y ^= (y << 15) & 0xefc60000;
+        y ^= (y >>> 18);
+
+        return y;
+    }
+
+    /**
+     * Gets the next random bits.
+     *
+     * @param bits - the number of random bits
+     * @return the random bits in the low bits of an int
+     */
+    @Override
+    protected int next(final int bits) {
+        return this.nextWord() >>> (32 - bits);
+    }
+
+    /**
+     * Fills part of an array with uniform doubles in [0, 1).
+     * Each double uses two words the same way as
+     * {@link java.util.Random#nextDouble()}.
+     *
+     * @param values - the array to fill
+     * @param offset - the first index to fill
+     * @param length - the number of values to fill
+     */
+    @Override
+    protected void fillDoubles(final double[] values,
+                               final int offset,
+                               final int length) {
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            long high = this.nextWord() >>> 6;
+            long low = this.nextWord() >>> 5;
+            values[i] = ((high << 27) + low) * DOUBLE_UNIT;
+        }
+    }
+
+}
@@ -0,0 +1,286 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package generator;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import core.Sim;
+
+/**
+ * Modulates the interarrival times of another generator with a
+ * utilization (rho) trace, e.g., workloads/RhoTrace1.csv, to simulate
+ * load that varies over time.
+ * <p>
+ * The wrapped generator gives interarrival times at a reference load.
+ * At time t the arrival rate is scaled by rho(t) / referenceRho, where
+ * rho(t) is the trace value of the slot containing t. Interarrival times
+ * are mapped through the integrated rate (time warping): a base
+ * interarrival time x starting at t ends at the time t' where the
+ * integral of rho(s) / referenceRho from t to t' equals x. With an
+ * exponential base this is exactly a non-homogeneous Poisson process.
+ * <p>
+ * The trace has fixed-width slots so the rate at any time is one array
+ * lookup. The trace repeats after its last slot.
+ */
+public final class ModulatedArrivalGenerator extends Generator {
+
+    /** The serialization id. */
+    private static final long serialVersionUID = 1L;
+
+    /** The generator of interarrival times at the reference load. */
+    private Generator baseGenerator;
+
+    /** The rate multiplier (rho / referenceRho) of each slot. */
+    private double[] rates;
+
+    /** The width of a trace slot in seconds. */
+    private double slotWidth;
+
+    /** The end time of the last arrival generated. */
+    private double lastArrivalTime;
+
+    /**
+     * Creates a new ModulatedArrivalGenerator from a rho trace file.
+     *
+     * @param aBaseGenerator - the generator of interarrival times at the
+     * reference load
+     * @param traceFileName - a trace of "HH:MM:SS,rho" lines at a fixed
+     * granularity, each time being the end of its slot
+     * @param referenceRho - the load the base generator corresponds to
+     */
+    public ModulatedArrivalGenerator(final Generator aBaseGenerator,
+                                     final String traceFileName,
+                                     final double referenceRho) {
+        this(aBaseGenerator, readTrace(traceFileName), traceFileName,
+             referenceRho);
+    }
+
+    /**
+     * Creates a new ModulatedArrivalGenerator from the points of a
+     * rho trace.
+     *
+     * @param aBaseGenerator - the generator of interarrival times at the
+     * reference load
+     * @param points - the time and rho of each line of the trace
+     * @param traceFileName - the trace file
+     * @param referenceRho - the load the base generator corresponds to
+     */
+    private ModulatedArrivalGenerator(final Generator aBaseGenerator,
+                                      final ArrayList<double[]> points,
+                                      final String traceFileName,
+                                      final double referenceRho) {
+        this(aBaseGenerator, getRho(points),
+             getSlotWidth(points, traceFileName), referenceRho);
+    }
+
+    /**
+     * Creates a new ModulatedArrivalGenerator.
+     *
+     * @param aBaseGenerator - the generator of interarrival times at the
+     * reference load
+     * @param rho - the load of each slot of the trace
+     * @param theSlotWidth - the width of a trace slot in seconds
+     * @param referenceRho - the load the base generator corresponds to
+     */
+    public ModulatedArrivalGenerator(final Generator aBaseGenerator,
+                                     final double[] rho,
+                                     final double theSlotWidth,
+                                     final double referenceRho) {
+        super(aBaseGenerator.generator);
+        if (theSlotWidth <= 0 || referenceRho <= 0) {
+            Sim.fatalError("Slot width and reference rho must be positive");
+        }
+        this.baseGenerator = aBaseGenerator;
+        this.slotWidth = theSlotWidth;
+        this.rates = new double[rho.length];
+        boolean anyLoad = false;
+        for (int i = 0; i < rho.length; i++) {
+            if (rho[i] < 0) {
+                Sim.fatalError("Negative rho in slot " + i);
+            }
+            this.rates[i] = rho[i] / referenceRho;
+            anyLoad |= rho[i] > 0;
+        }
+        if (!anyLoad) {
+            Sim.fatalError("The rho trace never has any load");
+        }
+        this.lastArrivalTime = 0.0d;
+    }
+
+    /**
+     * Gets the rate multiplier at a time.
+     *
+     * @param time - the simulated time
+     * @return the rate multiplier (rho / referenceRho) at the time
+     */
+    public double getRateMultiplier(final double time) {
+        return this.rates[this.getSlot(time)];
+    }
+
+    /**
+     * Gets the trace slot containing a time.
+     *
+     * @param time - the simulated time
+     * @return the index of the trace slot
+     */
+    private int getSlot(final double time) {
+        long slot = (long) (time / this.slotWidth);
+
+        return (int) (slot % this.rates.length);
+    }
+
+    /**
+     * Generates the next interarrival time, continuing from the end of
+     * the last one generated.
+     *
+     * @return the next interarrival time
+     */
+    @Override
+    public double next() {
+        return this.next(this.lastArrivalTime);
+    }
+
+    /**
+     * Generates the next interarrival time for an arrival process
+     * that is at a time.
+     *
+     * @param time - the simulated time the interarrival starts at
+     * @return the next interarrival time
+     */
+    @Override
+    public double next(final double time) {
+        double remaining = this.baseGenerator.next();
+        long slot = (long) (time / this.slotWidth);
+        double current = time;
+        while (true) {
+            double rate = this.rates[(int) (slot % this.rates.length)];
+            double slotEnd = (slot + 1) * this.slotWidth;
+            double capacity = rate * (slotEnd - current);
+            if (rate > 0 && remaining <= capacity) {
+                current += remaining / rate;
+                break;
+            }
+            remaining -= capacity;
+            current = slotEnd;
+            slot++;
+        }
+        this.lastArrivalTime = current;
+
+        return current - time;
+    }
+
+    /**
+     * Gets the rho values of a trace.
+     *
+     * @param points - the time and rho of each line of the trace
+     * @return the rho of each slot
+     */
+    private static double[] getRho(final ArrayList<double[]> points) {
+        double[] rho = new double[points.size()];
+        for (int i = 0; i < rho.length; i++) {
+            rho[i] = points.get(i)[1];
+        }
+
+        return rho;
+    }
+
+    /**
+     * Finds the slot width of a trace. The slots must be evenly spaced.
+     *
+     * @param points - the time and rho of each line of the trace
+     * @param fileName - the trace file
+     * @return the slot width in seconds
+     */
+    private static double getSlotWidth(final ArrayList<double[]> points,
+                                       final String fileName) {
+        double width = points.get(0)[0];
+        for (int i = 1; i < points.size(); i++) {
+            double gap = points.get(i)[0] - points.get(i - 1)[0];
+            if (Math.abs(gap - width) > 1e-9) {
+                Sim.fatalError("Trace " + fileName + " isn't evenly spaced"
+                               + " at line " + (i + 1));
+            }
+        }
+
+        return width;
+    }
+
+    /**
+     * Reads a trace of "HH:MM:SS,rho" lines.
+     *
+     * @param fileName - the trace file
+     * @return the time (in seconds) and rho of each line
+     */
+    private static ArrayList<double[]> readTrace(final String fileName) {
+        ArrayList<double[]> points = new ArrayList<double[]>();
+        try {
+            BufferedReader reader
+                = new BufferedReader(new FileReader(fileName));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.length() == 0) {
+                    continue;
+                }
+                String[] parts = line.split(",");
+                String[] clock = parts[0].split(":");
+                double seconds = Integer.parseInt(clock[0]) * 3600
+                                 + Integer.parseInt(clock[1]) * 60
+                                 + Double.parseDouble(clock[2]);
+                points.add(new double[] {seconds,
+                                         Double.parseDouble(parts[1])});
+            }
+            reader.close();
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            Sim.fatalError("Couldn't load rho trace " + fileName);
+        } catch (RuntimeException e) {
+            System.err.println("Error: " + e.getMessage());
+            Sim.fatalError("Badly formatted rho trace " + fileName);
+        }
+        if (points.isEmpty()) {
+            Sim.fatalError("Rho trace " + fileName + " is empty");
+        }
+
+        return points;
+    }
+
+    /**
+     * Gets the name of the generator.
+     *
+     * @return the name of the generator
+     */
+    @Override
+    public String getName() {
+        return "Modulated " + this.baseGenerator.getName();
+    }
+
+}
@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package generator;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+import core.Sim;
+
+/**
+ * Hands out random number streams that are guaranteed not to overlap,
+ * using the jump-ahead of {@link Xoshiro256StarStar}.
+ * Every replica of an experiment owns a block of 2^192 values
+ * (one long jump) and every stream handed out within a replica
+ * (e.g., one per server) owns 2^128 values of that block (one jump).
+ * Substream s of replica r is the same for a given seed no matter how
+ * many other streams or replicas are used.
+ * <p>
+ * The factory remembers the streams it hands out, so an experiment
+ * that is copied (with the factory) can be turned into another replica
+ * with {@link #setReplica(int)} without rebuilding its generators.
+ */
+public final class RandomStreamFactory implements Serializable {
+
+    /** The serialization id. */
+    private static final long serialVersionUID = 1L;
+
+    /** The seed all streams are derived from. */
+    private long seed;
+
+    /** The replica the streams currently belong to. */
+    private int replica;
+
+    /** The streams handed out, indexed by substream. */
+    private ArrayList<Xoshiro256StarStar> streams;
+
+    /** The start of the next substream to hand out. */
+    private Xoshiro256StarStar nextSubstream;
+
+    /**
+     * Creates a new RandomStreamFactory for replica 0.
+     *
+     * @param theSeed - the seed all streams are derived from
+     */
+    public RandomStreamFactory(final long theSeed) {
+        this.seed = theSeed;
+        this.streams = new ArrayList<Xoshiro256StarStar>();
+        this.replica = 0;
+        this.nextSubstream = this.getReplicaStart(0);
+    }
+
+    /**
+     * Gets a generator at the start of a replica's block of values.
+     *
+     * @param theReplica - the replica
+     * @return a generator at the start of the replica's block
+     */
+    private Xoshiro256StarStar getReplicaStart(final int theReplica) {
+        if (theReplica < 0) {
+            Sim.fatalError("Replica can't be negative: " + theReplica);
+        }
+        Xoshiro256StarStar start = new Xoshiro256StarStar(this.seed);
+        for (int i = 0; i < theReplica; i++) {
+            start.longJump();
+        }
+
+        return start;
+    }
+
+    /**
+     * Gets a new stream for the current replica, which does not overlap
+     * any other stream from this factory.
+     *
+     * @return a new random number stream
+     */
+    public Xoshiro256StarStar newStream() {
+        Xoshiro256StarStar stream = this.nextSubstream.split();
+        this.streams.add(stream);
+
+        return stream;
+    }
+
+    /**
+     * Moves every stream handed out so far to the start of the matching
+     * substream of another replica.
+     *
+     * @param theReplica - the replica to move the streams to
+     */
+    public void setReplica(final int theReplica) {
+        Xoshiro256StarStar substream = this.getReplicaStart(theReplica);
+        for (Xoshiro256StarStar stream : this.streams) {
+            stream.setState(substream);
+            substream.jump();
+        }
+        this.nextSubstream = substream;
+        this.replica = theReplica;
+    }
+
+    /**
+     * Gets the replica the streams currently belong to.
+     *
+     * @return the replica the streams currently belong to
+     */
+    public int getReplica() {
+        return this.replica;
+    }
+
+    /**
+     * Gets the number of streams handed out.
+     *
+     * @return the number of streams handed out
+     */
+    public int getNStreams() {
+        return this.streams.size();
+    }
+
+}
@@ -0,0 +1,500 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package generator;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import core.Sim;
+
+/**
+ * Replays interarrival and service times from a trace file.
+ * Each line of the trace holds an "interarrivalTime serviceTime" pair;
+ * blank lines and lines starting with '#' are skipped.
+ * <p>
+ * The trace is never loaded into memory. A background thread parses the
+ * file into blocks of records while the simulation consumes the previous
+ * block (double buffering), so traces can be far larger than the heap.
+ * <p>
+ * A TraceGenerator is the arrival generator and
+ * {@link #getServiceGenerator()} is the matching service generator for a
+ * server. Each call to {@link #next()} moves to the next record and
+ * the service generator returns the service time of that record,
+ * which is how {@link datacenter.Server} draws them.
+ * Copies made by serialization (e.g., replicas) resume the trace at the
+ * record they were copied at.
+ */
+public final class TraceGenerator extends Generator {
+
+    /** The serialization id. */
+    private static final long serialVersionUID = 1L;
+
+    /** The default number of records read at a time. */
+    public static final int DEFAULT_BLOCK_SIZE = 8192;
+
+    /** The trace file. */
+    private String fileName;
+
+    /** The factor interarrival times are multiplied by. */
+    private double arrivalScale;
+
+    /** The factor service times are multiplied by. */
+    private double serviceScale;
+
+    /** If the trace starts over when it runs out. */
+    private boolean loop;
+
+    /** The number of records read at a time. */
+    private int blockSize;
+
+    /** The number of records consumed so far. */
+    private long recordsConsumed;
+
+    /** The service time of the current record. */
+    private double serviceTime;
+
+    /** The generator for the service times of the trace. */
+    private Generator serviceGenerator;
+
+    /** The background reader, started on the first value. */
+    private transient Prefetcher prefetcher;
+
+    /** The block of records being consumed. */
+    private transient Block block;
+
+    /** The index of the next record in the block. */
+    private transient int blockIndex;
+
+    /**
+     * A block of records parsed from the trace.
+     */
+    private static final class Block {
+
+        /** Interleaved interarrival and service times. */
+        private final double[] values;
+
+        /** The number of records in the block. */
+        private int nRecords;
+
+        /** The error that ended the trace, if any. */
+        private String error;
+
+        /**
+         * Creates a new Block.
+         *
+         * @param size - the maximum number of records in the block
+         */
+        Block(final int size) {
+            this.values = new double[2 * size];
+            this.nRecords = 0;
+            this.error = null;
+        }
+
+    }
+
+    /**
+     * Reads the trace in the background, one block ahead of the generator.
+     * An empty block marks the end of the trace.
+     */
+    private static final class Prefetcher extends Thread {
+
+        /** The trace file. */
+        private final String fileName;
+
+        /** If the trace starts over when it runs out. */
+        private final boolean loop;
+
+        /** The number of records read at a time. */
+        private final int blockSize;
+
+        /** The number of records to skip before the first block. */
+        private long skip;
+
+        /** The blocks read ahead of the generator. */
+        private final ArrayBlockingQueue<Block> full;
+
+        /** Consumed blocks to reuse. */
+        private final ArrayBlockingQueue<Block> empty;
+
+        /**
+         * Creates a new Prefetcher.
+         *
+         * @param theFileName - the trace file
+         * @param theLoop - if the trace starts over when it runs out
+         * @param theBlockSize - the number of records read at a time
+         * @param theSkip - the number of records to skip first
+         */
+        Prefetcher(final String theFileName,
+                   final boolean theLoop,
+                   final int theBlockSize,
+                   final long theSkip) {
+            super("TraceGenerator " + theFileName);
+            this.fileName = theFileName;
+            this.loop = theLoop;
+            this.blockSize = theBlockSize;
+            this.skip = theSkip;
+            this.full = new ArrayBlockingQueue<Block>(1);
+            this.empty = new ArrayBlockingQueue<Block>(2);
+            this.empty.add(new Block(theBlockSize));
+            this.empty.add(new Block(theBlockSize));
+            this.setDaemon(true);
+        }
+
+        /**
+         * Reads blocks until the trace ends or the generator is closed.
+         */
+        @Override
+        public void run() {
+            try {
+                boolean done = false;
+                while (!done) {
+                    Block next = this.empty.take();
+                    try {
+                        done = this.readTrace(next);
+                    } catch (IOException e) {
+                        next.nRecords = 0;
+                        next.error = e.getMessage();
+                        this.full.put(next);
+                        done = true;
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Closed by the generator
+                return;
+            }
+        }
+
+        /**
+         * Reads the trace from the start, handing full blocks to the
+         * generator.
+         *
+         * @param first - the block to fill first
+         * @return if the trace has ended
+         * @throws IOException if the trace can't be read
+         * @throws InterruptedException if the generator is closed
+         */
+        private boolean readTrace(final Block first)
+                throws IOException, InterruptedException {
+            BufferedReader reader
+                = new BufferedReader(new FileReader(this.fileName), 1 << 16);
+            Block current = first;
+            current.nRecords = 0;
+            long recordsInFile = 0;
+            String line;
+            try {
+                while ((line = reader.readLine()) != null) {
+                    int start = skipSpace(line, 0);
+                    if (start == line.length() || line.charAt(start) == '#') {
+                        continue;
+                    }
+                    int end = skipToken(line, start);
+                    double interarrival
+                        = Double.parseDouble(line.substring(start, end));
+                    start = skipSpace(line, end);
+                    end = skipToken(line, start);
+                    if (start == end) {
+                        throw new IOException("Missing service time in \""
+                                              + line + "\"");
+                    }
+                    double service
+                        = Double.parseDouble(line.substring(start, end));
+                    recordsInFile++;
+                    if (this.skip > 0) {
+                        this.skip--;
+                        continue;
+                    }
+
+                    int index = 2 * current.nRecords;
+                    current.values[index] = interarrival;
+                    current.values[index + 1] = service;
+                    current.nRecords++;
+                    if (current.nRecords == this.blockSize) {
+                        this.full.put(current);
+                        current = this.empty.take();
+                        current.nRecords = 0;
+                    }
+                }
+            } catch (NumberFormatException e) {
+                throw new IOException("Bad number in " + this.fileName
+                                      + ": " + e.getMessage());
+            } finally {
+                reader.close();
+            }
+
+            if (recordsInFile == 0) {
+                throw new IOException(this.fileName + " has no records");
+            }
+            if (this.loop) {
+                // Only whole passes can be skipped, keep the remainder
+                this.skip = this.skip % recordsInFile;
+                if (current.nRecords > 0) {
+                    this.full.put(current);
+                } else {
+                    this.empty.put(current);
+                }
+                return false;
+            }
+
+            if (current.nRecords > 0) {
+                this.full.put(current);
+                current = this.empty.take();
+                current.nRecords = 0;
+            }
+            // The empty block marks the end of the trace
+            this.full.put(current);
+
+            return true;
+        }
+
+        /**
+         * Finds the first non-whitespace character.
+         *
+         * @param line - the line to search
+         * @param from - the index to start at
+         * @return the index of the first non-whitespace character at or
+         * after from (the line length if there is none)
+         */
+        private static int skipSpace(final String line, final int from) {
+            int i = from;
+            while (i < line.length()
+                   && Character.isWhitespace(line.charAt(i))) {
+                i++;
+            }
+
+            return i;
+        }
+
+        /**
+         * Finds the end of a token.
+         *
+         * @param line - the line to search
+         * @param from - the index the token starts at
+         * @return the index after the last character of the token
+         */
+        private static int skipToken(final String line, final int from) {
+            int i = from;
+            while (i < line.length()
+                   && !Character.isWhitespace(line.charAt(i))) {
+                i++;
+            }
+
+            return i;
+        }
+
+    }
+
+    /**
+     * Gives the service times of the trace's current record.
+     */
+    private static final class ServiceGenerator extends Generator {
+
+        /** The serialization id. */
+        private static final long serialVersionUID = 1L;
+
+        /** The trace the service times come from. */
+        private TraceGenerator trace;
+
+        /**
+         * Creates a new ServiceGenerator.
+         *
+         * @param theTrace - the trace the service times come from
+         */
+        ServiceGenerator(final TraceGenerator theTrace) {
+            super(null);
+            this.trace = theTrace;
+        }
+
+        /**
+         * Gets the service time of the trace's current record.
+         *
+         * @return the service time of the current record
+         */
+        @Override
+        public double next() {
+            return this.trace.serviceTime;
+        }
+
+        /**
+         * Gets the name of the generator.
+         *
+         * @return the name of the generator
+         */
+        @Override
+        public String getName() {
+            return "Trace service times " + this.trace.fileName;
+        }
+
+    }
+
+    /**
+     * Creates a new TraceGenerator which loops the trace.
+     *
+     * @param theFileName - the trace file
+     * @param theArrivalScale - the factor interarrival times are
+     * multiplied by
+     */
+    public TraceGenerator(final String theFileName,
+                          final double theArrivalScale) {
+        this(theFileName, theArrivalScale, 1.0, true, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Creates a new TraceGenerator.
+     *
+     * @param theFileName - the trace file
+     * @param theArrivalScale - the factor interarrival times are
+     * multiplied by
+     * @param theServiceScale - the factor service times are multiplied by
+     * @param theLoop - if the trace starts over when it runs out,
+     * otherwise running out is a fatal error
+     * @param theBlockSize - the number of records read at a time
+     */
+    public TraceGenerator(final String theFileName,
+                          final double theArrivalScale,
+                          final double theServiceScale,
+                          final boolean theLoop,
+                          final int theBlockSize) {
+        // Trace values aren't random
+        super(null);
+        this.fileName = theFileName;
+        this.arrivalScale = theArrivalScale;
+        this.serviceScale = theServiceScale;
+        this.loop = theLoop;
+        this.blockSize = theBlockSize;
+        this.recordsConsumed = 0;
+        this.serviceTime = 0.0d;
+        this.serviceGenerator = new ServiceGenerator(this);
+    }
+
+    /**
+     * Gets the generator for the service times of the trace.
+     *
+     * @return the generator for the service times of the trace
+     */
+    public Generator getServiceGenerator() {
+        return this.serviceGenerator;
+    }
+
+    /**
+     * Gets the number of records consumed so far.
+     *
+     * @return the number of records consumed so far
+     */
+    public long getRecordsConsumed() {
+        return this.recordsConsumed;
+    }
+
+    /**
+     * Moves to the next record of the trace.
+     *
+     * @return the interarrival time of the record
+     */
+    @Override
+    public double next() {
+        if (this.block == null || this.blockIndex == this.block.nRecords) {
+            this.nextBlock();
+        }
+        int index = 2 * this.blockIndex;
+        this.blockIndex++;
+        this.recordsConsumed++;
+        this.serviceTime = this.serviceScale * this.block.values[index + 1];
+
+        return this.arrivalScale * this.block.values[index];
+    }
+
+    /**
+     * Swaps in the next block read by the prefetcher.
+     */
+    private void nextBlock() {
+        if (this.prefetcher == null) {
+            this.prefetcher = new Prefetcher(this.fileName, this.loop,
+                                             this.blockSize,
+                                             this.recordsConsumed);
+            this.prefetcher.start();
+        } else {
+            this.prefetcher.empty.add(this.block);
+        }
+
+        try {
+            this.block = this.prefetcher.full.take();
+        } catch (InterruptedException e) {
+            Sim.fatalError("Interrupted reading trace " + this.fileName);
+        }
+        this.blockIndex = 0;
+        if (this.block.error != null) {
+            Sim.fatalError("Couldn't read trace " + this.fileName + ": "
+                           + this.block.error);
+        }
+        if (this.block.nRecords == 0) {
+            Sim.fatalError("Trace " + this.fileName + " ran out after "
+                           + this.recordsConsumed + " records");
+        }
+    }
+
+    /**
+     * Stops the background reader. The trace is reopened (at the same
+     * record) if more values are needed.
+     */
+    public void close() {
+        if (this.prefetcher != null) {
+            this.prefetcher.interrupt();
+            this.prefetcher = null;
+            this.block = null;
+        }
+    }
+
+    /**
+     * Restores a serialized generator, which resumes the trace at the
+     * record it was copied at.
+     *
+     * @param in - the stream to read from
+     * @throws IOException if the generator can't be read
+     * @throws ClassNotFoundException if a class can't be found
+     */
+    private void readObject(final ObjectInputStream in)
+            throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.prefetcher = null;
+        this.block = null;
+        this.blockIndex = 0;
+    }
+
+    /**
+     * Gets the name of the generator.
+     *
+     * @return the name of the generator
+     */
+    @Override
+    public String getName() {
+        return "Trace " + this.fileName;
+    }
+
+}
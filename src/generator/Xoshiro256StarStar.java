@@ -0,0 +1,246 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package generator;
+
+/**
+ * An unsynchronized xoshiro256** generator (Blackman and Vigna 2018)
+ * that generates doubles a block at a time. It is much faster than
+ * MT19937, has a period of 2^256 - 1 and can jump ahead 2^128 or 2^192
+ * values in constant time to split off non-overlapping streams.
+ */
+public final class Xoshiro256StarStar extends BlockRandom {
+
+    /** The serialization id. */
+    private static final long serialVersionUID = 1L;
+
+    /** The number of doubles generated at a time. */
+    private static final int BLOCK_SIZE = 256;
+
+    /** The polynomial to jump ahead 2^128 values. */
+    private static final long[] JUMP = {0x180ec6d33cfd0abaL,
+                                        0xd5a61266f0c9392cL,
+                                        0xa9582618e03fc9aaL,
+                                        0x39abdc4529b1661cL};
+
+    /** The polynomial to jump ahead 2^192 values. */
+    private static final long[] LONG_JUMP = {0x76e15d3efefdcbbfL,
+                                             0xc5004e441c522fb3L,
+                                             0x77710069854ee241L,
+                                             0x39109bb02acbe635L};
+
+    /** The first word of the state. */
+    private long s0;
+
+    /** The second word of the state. */
+    private long s1;
+
+    /** The third word of the state. */
+    private long s2;
+
+    /** The fourth word of the state. */
+    private long s3;
+
+    /**
+     * Creates a new Xoshiro256StarStar.
+     *
+     * @param seed - the seed for the generator
+     */
+    public Xoshiro256StarStar(final long seed) {
+        super(seed, BLOCK_SIZE);
+    }
+
+    /**
+     * Creates a new Xoshiro256StarStar with the same state as another.
+     *
+     * @param other - the generator to copy the state of
+     */
+    private Xoshiro256StarStar(final Xoshiro256StarStar other) {
+        super(0L, BLOCK_SIZE);
+        this.setState(other);
+    }
+
+    /**
+     * Reseeds the generator. The state is filled from the seed with
+     * SplitMix64 as recommended by the xoshiro authors.
+     *
+     * @param seed - the new seed
+     */
+    @Override
+    public void setSeed(final long seed) {
+        long x = seed;
+        x += 0x9e3779b97f4a7c15L;
+        this.s0 = mix(x);
+        x += 0x9e3779b97f4a7c15L;
+        this.s1 = mix(x);
+        x += 0x9e3779b97f4a7c15L;
+        this.s2 = mix(x);
+        x += 0x9e3779b97f4a7c15L;
+        this.s3 = mix(x);
+        this.discardBlock();
+    }
+
+    /**
+     * The SplitMix64 output function.
+     *
+     * @param value - the value to mix
+     * @return the mixed value
+     */
+    private static long mix(final long value) {
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Gets the next random long.
+     *
+     * @return the next random long
+     */
+    @Override
+    public long nextLong() {
+        long result = Long.rotateLeft(this.s1 * 5, 7) * 9;
+        long t = this.s1 << 17;
+        this.s2 ^= this.s0;
+        this.s3 ^= this.s1;
+        this.s1 ^= this.s2;
+        this.s0 ^= this.s3;
+        this.s2 ^= t;
+        this.s3 = Long.rotateLeft(this.s3, 45);
+
+        return result;
+    }
+
+    /**
+     * Gets the next random bits.
+     *
+     * @param bits - the number of random bits
+     * @return the random bits in the low bits of an int
+     */
+    @Override
+    protected int next(final int bits) {
+        return (int) (this.nextLong() >>> (64 - bits));
+    }
+
+    /**
+     * Fills part of an array with uniform doubles in [0, 1)
+     * using the top 53 bits of each long.
+     *
+     * @param values - the array to fill
+     * @param offset - the first index to fill
+     * @param length - the number of values to fill
+     */
+    @Override
+    protected void fillDoubles(final double[] values,
+                               final int offset,
+                               final int length) {
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            values[i] = (this.nextLong() >>> 11) * DOUBLE_UNIT;
+        }
+    }
+
+    /**
+     * Advances the generator as if nextLong() had been called 2^128 times.
+     * Can be used to make 2^128 non-overlapping streams.
+     * Any pregenerated doubles are discarded.
+     */
+    public void jump() {
+        this.jump(JUMP);
+    }
+
+    /**
+     * Advances the generator as if nextLong() had been called 2^192 times.
+     * Can be used to make 2^64 starting points, each of which can be split
+     * with {@link #jump()}.
+     * Any pregenerated doubles are discarded.
+     */
+    public void longJump() {
+        this.jump(LONG_JUMP);
+    }
+
+    /**
+     * Advances the generator by the jump polynomial.
+     *
+     * @param polynomial - the jump polynomial
+     */
+    private void jump(final long[] polynomial) {
+        long t0 = 0;
+        long t1 = 0;
+        long t2 = 0;
+        long t3 = 0;
+        for (int i = 0; i < polynomial.length; i++) {
+            for (int b = 0; b < 64; b++) {
+                if ((polynomial[i] & (1L << b)) != 0) {
+                    t0 ^= this.s0;
+                    t1 ^= this.s1;
+                    t2 ^= this.s2;
+                    t3 ^= this.s3;
+                }
+                this.nextLong();
+            }
+        }
+        this.s0 = t0;
+        this.s1 = t1;
+        this.s2 = t2;
+        this.s3 = t3;
+        this.discardBlock();
+    }
+
+    /**
+     * Sets the state of this generator to the state of another, so it
+     * produces the same values from then on.
+     * Any pregenerated doubles are discarded.
+     *
+     * @param other - the generator to copy the state of
+     */
+    void setState(final Xoshiro256StarStar other) {
+        this.s0 = other.s0;
+        this.s1 = other.s1;
+        this.s2 = other.s2;
+        this.s3 = other.s3;
+        this.discardBlock();
+    }
+
+    /**
+     * Returns a copy of this generator which produces the same values
+     * and then advances this generator by 2^128 values. The copy and this
+     * generator then produce non-overlapping streams.
+     * Any pregenerated doubles are discarded.
+     *
+     * @return a generator for the next 2^128 values
+     */
+    public Xoshiro256StarStar split() {
+        Xoshiro256StarStar stream = new Xoshiro256StarStar(this);
+        this.jump();
+
+        return stream;
+    }
+
+}
@@ -299,12 +299,12 @@ public final class Master {
      */
     private void startAllSlaves() {
 
-        int uniqueSeed = 2;
+        int replicaNumber = 2;
         Iterator<SlaveInfo> iter = this.slaves.iterator();
         int i = 0;
         while (iter.hasNext()) {
             SlaveInfo slave = iter.next();
-            slaveExperiments[i].setSeed(uniqueSeed);
+            slaveExperiments[i].setReplica(replicaNumber);
             System.out.println("Running experiment on " + slave.getServerName()
                     + "-" + slave.getRmiBinding());
             try {
@@ -314,7 +314,7 @@ public final class Master {
                 e.printStackTrace();
 
             }
-            uniqueSeed++;
+            replicaNumber++;
             i++;
         }
     }
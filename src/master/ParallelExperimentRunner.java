@@ -0,0 +1,322 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package master;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import stat.Statistic;
+import stat.Statistic.HistogramType;
+import stat.StatisticsCollection;
+import core.Constants.StatName;
+import core.Experiment;
+import core.Sim;
+
+/**
+ * Runs independent replicas of an experiment on local threads
+ * and combines their statistics until they converge together.
+ * This is an in-process alternative to the {@link Master}/slave setup,
+ * which needs no RMI registry or remote machines.
+ *
+ * Like the master, the runner first runs a copy of the experiment to
+ * steady state so every replica shares the same histogram bins
+ * and their statistics can be combined.
+ */
+public final class ParallelExperimentRunner {
+
+    /** The default number of events between statistics snapshots. */
+    private static final int DEFAULT_SNAPSHOT_INTERVAL = 100000;
+
+    /** The default time (in milliseconds) between convergence checks. */
+    private static final long DEFAULT_POLL_INTERVAL = 1000;
+
+    /** The number of the first replica (matches the master). */
+    private static final int FIRST_REPLICA = 2;
+
+    /** The experiment to replicate. It is never run itself. */
+    private Experiment experiment;
+
+    /** The number of replicas to run. */
+    private int nReplicas;
+
+    /** The number of threads to run replicas on. */
+    private int nThreads;
+
+    /** The number of events between statistics snapshots of a replica. */
+    private int snapshotInterval;
+
+    /** The time (in milliseconds) between convergence checks. */
+    private long pollInterval;
+
+    /** The replicas of the experiment. */
+    private Experiment[] replicas;
+
+    /**
+     * Creates a new ParallelExperimentRunner which runs one replica
+     * per available processor.
+     *
+     * @param anExperiment - the experiment to replicate
+     */
+    public ParallelExperimentRunner(final Experiment anExperiment) {
+        this(anExperiment, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a new ParallelExperimentRunner.
+     *
+     * @param anExperiment - the experiment to replicate
+     * @param theNReplicas - the number of replicas to run
+     */
+    public ParallelExperimentRunner(final Experiment anExperiment,
+                                    final int theNReplicas) {
+        if (theNReplicas < 1) {
+            Sim.fatalError("Need at least one replica, got " + theNReplicas);
+        }
+        this.experiment = anExperiment;
+        this.nReplicas = theNReplicas;
+        this.nThreads = theNReplicas;
+        this.snapshotInterval = DEFAULT_SNAPSHOT_INTERVAL;
+        this.pollInterval = DEFAULT_POLL_INTERVAL;
+        this.replicas = null;
+    }
+
+    /**
+     * Sets the number of threads the replicas run on.
+     * Defaults to one thread per replica.
+     *
+     * @param theNThreads - the number of threads
+     */
+    public void setNThreads(final int theNThreads) {
+        this.nThreads = theNThreads;
+    }
+
+    /**
+     * Sets how many events a replica processes between copies
+     * of its statistics being made available to the runner.
+     *
+     * @param interval - the number of events between copies
+     */
+    public void setSnapshotInterval(final int interval) {
+        this.snapshotInterval = interval;
+    }
+
+    /**
+     * Sets how often the runner checks if the combined
+     * statistics have converged.
+     *
+     * @param interval - the time between checks (in milliseconds)
+     */
+    public void setPollInterval(final long interval) {
+        this.pollInterval = interval;
+    }
+
+    /**
+     * Get the replicas of the experiment.
+     * Null until {@link #run()} is called.
+     *
+     * @return the replicas of the experiment
+     */
+    public Experiment[] getReplicas() {
+        return this.replicas;
+    }
+
+    /**
+     * Runs the replicas until their combined statistics converge
+     * or every replica finishes on its own.
+     *
+     * @return the combined statistics of all the replicas
+     */
+    public StatisticsCollection run() {
+        long startTime = System.currentTimeMillis();
+        final double millisecondsPerSecond = 1000.0;
+
+        HashMap<StatName, double[]> bins = this.calibrateBins();
+        this.createReplicas(bins);
+
+        ExecutorService pool = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(this.nThreads, this.nReplicas)));
+        Future<?>[] futures = new Future<?>[this.nReplicas];
+        for (int i = 0; i < this.nReplicas; i++) {
+            final Experiment replica = this.replicas[i];
+            futures[i] = pool.submit(new Runnable() {
+                public void run() {
+                    replica.run();
+                }
+            });
+        }
+
+        boolean done = false;
+        while (!done) {
+            try {
+                Thread.sleep(this.pollInterval);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+
+            boolean allFinished = true;
+            for (int i = 0; i < this.nReplicas; i++) {
+                if (futures[i].isDone()) {
+                    this.checkReplica(futures[i]);
+                } else {
+                    allFinished = false;
+                }
+            }
+
+            StatisticsCollection combinedStats = this.combineSnapshots();
+            if (allFinished) {
+                done = true;
+            } else if (combinedStats != null
+                       && combinedStats.allStatsConverged()) {
+                System.out.println("Replicas converged combined");
+                done = true;
+            }
+        }
+
+        for (int i = 0; i < this.nReplicas; i++) {
+            this.replicas[i].stop();
+        }
+        pool.shutdown();
+        try {
+            while (!pool.awaitTermination(this.pollInterval,
+                                          TimeUnit.MILLISECONDS)) {
+                System.out.println("Waiting for replicas to stop");
+            }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        for (int i = 0; i < this.nReplicas; i++) {
+            this.checkReplica(futures[i]);
+        }
+
+        // Every replica published its final statistics as it stopped
+        StatisticsCollection totalStats = this.combineSnapshots();
+        long endTime = System.currentTimeMillis();
+        double execTime = (endTime - startTime) / millisecondsPerSecond;
+        System.out.println("Combined Experiment time: " + execTime + " (s)");
+
+        return totalStats;
+    }
+
+    /**
+     * Runs a copy of the experiment to steady state to find the
+     * histogram bins for each statistic.
+     *
+     * @return the histogram bins for each statistic
+     */
+    private HashMap<StatName, double[]> calibrateBins() {
+        System.out.println("Running to steady state to find histogram bins");
+        Experiment pilot = this.experiment.clone();
+        pilot.runToSteadyState();
+
+        HashMap<StatName, double[]> bins = new HashMap<StatName, double[]>();
+        Iterator<Statistic> stats = pilot.getStats().getAllStats();
+        while (stats.hasNext()) {
+            Statistic stat = stats.next();
+            bins.put(stat.getStatName(), stat.getHistogramXValues());
+        }
+
+        return bins;
+    }
+
+    /**
+     * Creates the replicas of the experiment, each with its own
+     * random numbers and the shared histogram bins.
+     *
+     * @param bins - the histogram bins for each statistic
+     */
+    private void createReplicas(final HashMap<StatName, double[]> bins) {
+        this.replicas = new Experiment[this.nReplicas];
+        int replicaNumber = FIRST_REPLICA;
+        for (int i = 0; i < this.nReplicas; i++) {
+            Experiment replica = this.experiment.clone();
+            replica.setReplica(replicaNumber);
+            replica.setStatsSnapshotInterval(this.snapshotInterval);
+            Iterator<Statistic> stats = replica.getStats().getAllStats();
+            while (stats.hasNext()) {
+                Statistic stat = stats.next();
+                if (stat.getHistogramType() != HistogramType.LINEAR) {
+                    // Log-linear bins don't depend on the samples
+                    continue;
+                }
+                double[] xValues = bins.get(stat.getStatName());
+                if (xValues == null) {
+                    Sim.fatalError("No histogram bins for "
+                                   + stat.getStatName());
+                }
+                stat.setHistogramXValues(xValues);
+            }
+            this.replicas[i] = replica;
+            replicaNumber++;
+        }
+    }
+
+    /**
+     * Combines the most recent statistics of every replica.
+     *
+     * @return the combined statistics or null if a replica
+     * has not published any statistics yet
+     */
+    private StatisticsCollection combineSnapshots() {
+        StatisticsCollection combinedStats = null;
+        for (int i = 0; i < this.nReplicas; i++) {
+            StatisticsCollection stats = this.replicas[i].getStatsSnapshot();
+            if (stats == null) {
+                return null;
+            }
+            if (combinedStats == null) {
+                combinedStats = stats;
+            } else {
+                combinedStats = combinedStats.combine(stats);
+            }
+        }
+
+        return combinedStats;
+    }
+
+    /**
+     * Checks a finished replica did not fail.
+     *
+     * @param future - the result of running the replica
+     */
+    private void checkReplica(final Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        } catch (ExecutionException e) {
+            e.getCause().printStackTrace();
+            Sim.fatalError("A replica failed: " + e.getCause());
+        }
+    }
+
+}
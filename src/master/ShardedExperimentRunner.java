@@ -0,0 +1,507 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package master;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import stat.Statistic;
+import stat.Statistic.HistogramType;
+import stat.StatisticsCollection;
+import core.Constants.StatName;
+import core.Experiment;
+import core.Sim;
+import datacenter.PowerCappingEnforcer;
+
+/**
+ * Runs one large data center split into shards, each with its own
+ * event queue on its own thread (conservative parallel simulation).
+ *
+ * Every shard is an {@link Experiment} holding a disjoint subset of the
+ * servers and the same outputs. The shards only interact through
+ * {@link BarrierAction}s, which run every lookahead period once every
+ * shard has processed all its events before that time. This matches
+ * UNIFORM scheduling with power capping, where servers only interact when
+ * the {@link PowerCappingEnforcer} recalculates caps.
+ * Scheduling policies which pick a server on every arrival (e.g., PACK,
+ * PEAK or a central arrival stream) can not be sharded this way.
+ *
+ * Like the {@link ParallelExperimentRunner}, the runner first runs a copy
+ * of the shards to steady state so every shard shares the same histogram
+ * bins and their statistics can be combined. It stops once the combined
+ * statistics converge.
+ */
+public final class ShardedExperimentRunner {
+
+    /**
+     * Something that happens across shards at every barrier.
+     * Barrier actions run on one thread while every shard is paused,
+     * so they may touch the servers of any shard.
+     */
+    public interface BarrierAction extends Serializable {
+
+        /**
+         * Runs the action.
+         *
+         * @param time - the time of the barrier
+         */
+        void atBarrier(double time);
+
+    }
+
+    /** The default time (in milliseconds) between convergence checks. */
+    private static final long DEFAULT_POLL_INTERVAL = 1000;
+
+    /** The shards of the data center. */
+    private Experiment[] shards;
+
+    /** The actions run at every barrier. */
+    private ArrayList<BarrierAction> barrierActions;
+
+    /** The time between barriers (in seconds). */
+    private double lookahead;
+
+    /** The simulated time to stop at (in seconds), 0 for no limit. */
+    private double timeLimit;
+
+    /** The time (in milliseconds) between convergence checks. */
+    private long pollInterval;
+
+    /** The time of the next barrier. */
+    private volatile double barrierTime;
+
+    /** If the shards should stop at the next barrier. */
+    private volatile boolean done;
+
+    /** If the runner has been asked to stop. */
+    private volatile boolean stop;
+
+    /** When the combined statistics were last checked. */
+    private long lastCheckTime;
+
+    /**
+     * Creates a new ShardedExperimentRunner.
+     *
+     * @param theShards - the shards of the data center, which must
+     * have the same outputs
+     * @param theLookahead - the time (in seconds) between barriers
+     */
+    public ShardedExperimentRunner(final Experiment[] theShards,
+                                   final double theLookahead) {
+        if (theShards.length < 1) {
+            Sim.fatalError("Need at least one shard");
+        }
+        if (theLookahead <= 0) {
+            Sim.fatalError("Lookahead must be positive, got "
+                           + theLookahead);
+        }
+        this.shards = theShards;
+        this.lookahead = theLookahead;
+        this.barrierActions = new ArrayList<BarrierAction>();
+        this.timeLimit = 0.0d;
+        this.pollInterval = DEFAULT_POLL_INTERVAL;
+        this.done = false;
+        this.stop = false;
+    }
+
+    /**
+     * Adds an action to run at every barrier.
+     * Actions run in the order they are added.
+     *
+     * @param action - the action to run
+     */
+    public void addBarrierAction(final BarrierAction action) {
+        this.barrierActions.add(action);
+    }
+
+    /**
+     * Has a power capping enforcer recalculate caps at every barrier
+     * instead of scheduling its own recalculations.
+     * The enforcer's cap period must match the lookahead.
+     *
+     * @param enforcer - the enforcer, which may cap servers of any shard
+     */
+    public void addPowerCappingEnforcer(final PowerCappingEnforcer enforcer) {
+        if (Double.compare(enforcer.getCapPeriod(), this.lookahead) != 0) {
+            Sim.fatalError("Cap period " + enforcer.getCapPeriod()
+                           + " doesn't match the lookahead "
+                           + this.lookahead);
+        }
+        enforcer.disableSelfScheduling();
+        this.addBarrierAction(new CapRecalculation(enforcer));
+    }
+
+    /**
+     * Sets a simulated time to stop at even if the statistics
+     * have not converged.
+     *
+     * @param theTimeLimit - the time (in seconds), 0 for no limit
+     */
+    public void setTimeLimit(final double theTimeLimit) {
+        this.timeLimit = theTimeLimit;
+    }
+
+    /**
+     * Sets how often the runner checks if the combined
+     * statistics have converged.
+     *
+     * @param interval - the time between checks (in milliseconds)
+     */
+    public void setPollInterval(final long interval) {
+        this.pollInterval = interval;
+    }
+
+    /**
+     * Get the shards of the data center.
+     *
+     * @return the shards of the data center
+     */
+    public Experiment[] getShards() {
+        return this.shards;
+    }
+
+    /**
+     * Stops the shards at the next barrier.
+     */
+    public void stop() {
+        this.stop = true;
+        for (int i = 0; i < this.shards.length; i++) {
+            this.shards[i].stop();
+        }
+    }
+
+    /**
+     * Runs the shards until their combined statistics converge,
+     * the time limit is reached or the runner is stopped.
+     *
+     * @return the combined statistics of all the shards
+     */
+    public StatisticsCollection run() {
+        long startTime = System.currentTimeMillis();
+        final double millisecondsPerSecond = 1000.0;
+
+        this.setBins(this.calibrateBins());
+        this.lastCheckTime = System.currentTimeMillis();
+        this.simulate(this.shards, this.barrierActions, false);
+        StatisticsCollection totalStats = combine(this.shards);
+
+        long endTime = System.currentTimeMillis();
+        double execTime = (endTime - startTime) / millisecondsPerSecond;
+        System.out.println("Sharded Experiment time: " + execTime + " (s)");
+
+        return totalStats;
+    }
+
+    /**
+     * Runs a copy of the shards to steady state to find the
+     * histogram bins for each statistic.
+     *
+     * @return the histogram bins for each statistic
+     */
+    private HashMap<StatName, double[]> calibrateBins() {
+        System.out.println("Running to steady state to find histogram bins");
+        // Copy the shards and actions together so they still share servers
+        PilotShards pilot = Sim.deepCopy(
+                new PilotShards(this.shards, this.barrierActions));
+        for (int i = 0; i < pilot.shards.length; i++) {
+            Iterator<Statistic> stats = pilot.shards[i].getStats()
+                                                       .getAllStats();
+            while (stats.hasNext()) {
+                stats.next().setJustBins(true);
+            }
+        }
+        this.simulate(pilot.shards, pilot.barrierActions, true);
+
+        return findBins(pilot.shards);
+    }
+
+    /**
+     * Gives every shard the same histogram bins.
+     *
+     * @param bins - the histogram bins for each statistic
+     */
+    private void setBins(final HashMap<StatName, double[]> bins) {
+        for (int i = 0; i < this.shards.length; i++) {
+            Iterator<Statistic> stats = this.shards[i].getStats()
+                                                      .getAllStats();
+            while (stats.hasNext()) {
+                Statistic stat = stats.next();
+                if (stat.getHistogramType() != HistogramType.LINEAR) {
+                    // Log-linear bins don't depend on the samples
+                    continue;
+                }
+                double[] xValues = bins.get(stat.getStatName());
+                if (xValues == null) {
+                    Sim.fatalError("No histogram bins for "
+                                   + stat.getStatName());
+                }
+                stat.setHistogramXValues(xValues);
+            }
+        }
+    }
+
+    /**
+     * Runs shards on their own threads, stopping at every barrier
+     * for the barrier actions, until the shards are done.
+     *
+     * @param theShards - the shards to run
+     * @param theActions - the actions to run at every barrier
+     * @param calibrating - if the shards are only finding histogram bins
+     */
+    private void simulate(final Experiment[] theShards,
+                          final ArrayList<BarrierAction> theActions,
+                          final boolean calibrating) {
+        final int nShards = theShards.length;
+        for (int i = 0; i < nShards; i++) {
+            theShards[i].initialize();
+        }
+        this.barrierTime = this.lookahead;
+        this.done = false;
+
+        final CyclicBarrier barrier = new CyclicBarrier(nShards,
+                new Runnable() {
+                    public void run() {
+                        atBarrier(theShards, theActions, calibrating);
+                    }
+                });
+
+        ExecutorService pool = Executors.newFixedThreadPool(nShards);
+        Future<?>[] futures = new Future<?>[nShards];
+        for (int i = 0; i < nShards; i++) {
+            final Experiment shard = theShards[i];
+            futures[i] = pool.submit(new Runnable() {
+                public void run() {
+                    runShard(shard, barrier);
+                }
+            });
+        }
+
+        pool.shutdown();
+        try {
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        for (int i = 0; i < nShards; i++) {
+            this.checkShard(futures[i]);
+        }
+    }
+
+    /**
+     * Runs a shard from barrier to barrier until the shards are done.
+     *
+     * @param shard - the shard to run
+     * @param barrier - the barrier shared by the shards
+     */
+    private void runShard(final Experiment shard,
+                          final CyclicBarrier barrier) {
+        try {
+            while (!this.done) {
+                shard.runUntil(this.barrierTime);
+                barrier.await();
+            }
+        } catch (InterruptedException e) {
+            barrier.reset();
+            e.printStackTrace();
+        } catch (BrokenBarrierException e) {
+            // Another shard failed and will report why
+            return;
+        } catch (RuntimeException e) {
+            // Release the other shards waiting at the barrier
+            barrier.reset();
+            throw e;
+        }
+    }
+
+    /**
+     * Runs the barrier actions and decides if the shards are done.
+     * Called on one thread once every shard reaches the barrier.
+     *
+     * @param theShards - the shards being run
+     * @param theActions - the actions to run at every barrier
+     * @param calibrating - if the shards are only finding histogram bins
+     */
+    private void atBarrier(final Experiment[] theShards,
+                           final ArrayList<BarrierAction> theActions,
+                           final boolean calibrating) {
+        double time = this.barrierTime;
+        Iterator<BarrierAction> actions = theActions.iterator();
+        while (actions.hasNext()) {
+            actions.next().atBarrier(time);
+        }
+        this.barrierTime = time + this.lookahead;
+
+        if (this.stop) {
+            this.done = true;
+        } else if (calibrating) {
+            this.done = findBins(theShards) != null;
+        } else if (this.timeLimit > 0 && time >= this.timeLimit) {
+            System.out.println("Shards reached the time limit");
+            this.done = true;
+        } else {
+            long now = System.currentTimeMillis();
+            if (now - this.lastCheckTime >= this.pollInterval) {
+                this.lastCheckTime = now;
+                if (combine(theShards).allStatsConverged()) {
+                    System.out.println("Shards converged combined");
+                    this.done = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the histogram bins for each statistic from the first shard
+     * where the statistic reached steady state.
+     *
+     * @param theShards - the shards to find bins in
+     * @return the histogram bins for each statistic or null if a
+     * statistic hasn't reached steady state in any shard
+     */
+    private static HashMap<StatName, double[]> findBins(
+                                            final Experiment[] theShards) {
+        HashMap<StatName, double[]> bins = new HashMap<StatName, double[]>();
+        for (int i = 0; i < theShards.length; i++) {
+            Iterator<Statistic> stats = theShards[i].getStats().getAllStats();
+            while (stats.hasNext()) {
+                Statistic stat = stats.next();
+                if (stat.isSteadyState()
+                        && !bins.containsKey(stat.getStatName())) {
+                    bins.put(stat.getStatName(), stat.getHistogramXValues());
+                }
+            }
+        }
+
+        Iterator<Statistic> stats = theShards[0].getStats().getAllStats();
+        while (stats.hasNext()) {
+            if (!bins.containsKey(stats.next().getStatName())) {
+                return null;
+            }
+        }
+
+        return bins;
+    }
+
+    /**
+     * Combines the statistics of every shard.
+     *
+     * @param theShards - the shards to combine
+     * @return the combined statistics
+     */
+    private static StatisticsCollection combine(
+                                            final Experiment[] theShards) {
+        StatisticsCollection combinedStats = theShards[0].getStats();
+        for (int i = 1; i < theShards.length; i++) {
+            combinedStats = combinedStats.combine(theShards[i].getStats());
+        }
+
+        return combinedStats;
+    }
+
+    /**
+     * Checks a finished shard did not fail.
+     *
+     * @param future - the result of running the shard
+     */
+    private void checkShard(final Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        } catch (ExecutionException e) {
+            e.getCause().printStackTrace();
+            Sim.fatalError("A shard failed: " + e.getCause());
+        }
+    }
+
+    /**
+     * The shards and barrier actions, so they can be copied together.
+     */
+    private static final class PilotShards implements Serializable {
+
+        /** The serialization id. */
+        private static final long serialVersionUID = 1L;
+
+        /** The shards of the data center. */
+        private Experiment[] shards;
+
+        /** The actions run at every barrier. */
+        private ArrayList<BarrierAction> barrierActions;
+
+        /**
+         * Creates a new PilotShards.
+         *
+         * @param theShards - the shards of the data center
+         * @param theActions - the actions run at every barrier
+         */
+        private PilotShards(final Experiment[] theShards,
+                            final ArrayList<BarrierAction> theActions) {
+            this.shards = theShards;
+            this.barrierActions = theActions;
+        }
+
+    }
+
+    /**
+     * Has a power capping enforcer recalculate caps at a barrier.
+     */
+    private static final class CapRecalculation implements BarrierAction {
+
+        /** The serialization id. */
+        private static final long serialVersionUID = 1L;
+
+        /** The enforcer recalculating caps. */
+        private PowerCappingEnforcer enforcer;
+
+        /**
+         * Creates a new CapRecalculation.
+         *
+         * @param anEnforcer - the enforcer recalculating caps
+         */
+        private CapRecalculation(final PowerCappingEnforcer anEnforcer) {
+            this.enforcer = anEnforcer;
+        }
+
+        @Override
+        public void atBarrier(final double time) {
+            this.enforcer.recalculateCaps(time);
+        }
+
+    }
+
+}
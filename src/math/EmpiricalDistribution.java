@@ -33,11 +33,20 @@ package math;
 import java.io.BufferedReader;
 import java.io.DataInputStream;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
 import java.io.Serializable;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 
 import core.Sim;
 
@@ -63,6 +72,19 @@ public final class EmpiricalDistribution implements Serializable {
     /** The serialization id. */
     private static final long serialVersionUID = 1L;
 
+    /** The file name suffix of binary distribution files. */
+    public static final String BINARY_SUFFIX = ".cdfb";
+
+    /** The first four bytes of a binary distribution file ("CDFB"). */
+    private static final int BINARY_MAGIC = 0x43444642;
+
+    /** The size of the binary file header in bytes. */
+    private static final int BINARY_HEADER_SIZE = 8;
+
+    /** The distributions loaded so far, keyed by file and scale. */
+    private static final ConcurrentHashMap<String, EmpiricalDistribution>
+        CACHE = new ConcurrentHashMap<String, EmpiricalDistribution>();
+
     /** The x values. */
     private double[] xs;
 
@@ -75,6 +97,14 @@ public final class EmpiricalDistribution implements Serializable {
     /** The average value. */
     private double mean;
 
+    /**
+     * The guide table for quantile lookups (Chen and Asau 1974).
+     * Entry j is the largest bin whose CDF value is at most
+     * j / guide.length, so a lookup starts at most a few bins short
+     * of its answer.
+     */
+    private int[] guide;
+
     /**
      * Creates a new EmpiricalDistribution.
      *
@@ -107,6 +137,28 @@ public final class EmpiricalDistribution implements Serializable {
         this.xs = theXs;
         this.ys = theYs;
         this.mean = expectedValue;
+        this.guide = buildGuideTable(theYs);
+    }
+
+    /**
+     * Builds the guide table for a CDF with one entry per CDF value.
+     *
+     * @param cdf - the CDF values
+     * @return the guide table
+     */
+    private static int[] buildGuideTable(final double[] cdf) {
+        int size = Math.max(cdf.length, 1);
+        int[] table = new int[size];
+        int bin = 0;
+        for (int j = 0; j < size; j++) {
+            double quantile = (double) j / size;
+            while (bin + 1 < cdf.length && cdf[bin + 1] <= quantile) {
+                bin++;
+            }
+            table[j] = bin;
+        }
+
+        return table;
     }
 
     /**
@@ -120,20 +172,22 @@ public final class EmpiricalDistribution implements Serializable {
 
     /**
      * Get the x values of the distribution.
+     * Loaded distributions are cached and shared, so this is a copy.
      *
-     * @return the x values of the distribution
+     * @return a copy of the x values of the distribution
      */
     public double[] getXs() {
-        return this.xs;
+        return this.xs.clone();
     }
 
     /**
      * Get the y values of the distribution.
+     * Loaded distributions are cached and shared, so this is a copy.
      *
-     * @return the y values of the distribution
+     * @return a copy of the y values of the distribution
      */
     public double[] getYs() {
-        return this.ys;
+        return this.ys.clone();
     }
 
     /**
@@ -152,9 +206,15 @@ public final class EmpiricalDistribution implements Serializable {
 
     /**
      * Loads an empirical from a file.
-     * Files are in the format: "xValue cdfValue"
+     * Text files are in the format: "xValue cdfValue"
      * One entry per line.
      * The CDF should have 0 0 at the beginning and X 1.0 at the end.
+     * Files ending in {@value #BINARY_SUFFIX} are read in the binary format
+     * (see {@link #saveBinaryDistribution(String)}), all other files in
+     * the text format. Pass the binary file's name to load it; a binary
+     * copy next to a text file is never substituted for it.
+     * Distributions are cached for the life of the process, so loading
+     * the same file with the same scaling factor again is free.
      *
      * @param fileName - the name of the file
      * @param scalingFactor - a scaling factor to multiply x values in the
@@ -164,7 +224,70 @@ public final class EmpiricalDistribution implements Serializable {
     public static EmpiricalDistribution loadDistribution(
                                             final String fileName,
                                             final double scalingFactor) {
+        String key = fileName + "@" + scalingFactor;
+        EmpiricalDistribution distribution = CACHE.get(key);
+        if (distribution == null) {
+            distribution = readDistribution(fileName, scalingFactor);
+            EmpiricalDistribution cached
+                = CACHE.putIfAbsent(key, distribution);
+            if (cached != null) {
+                distribution = cached;
+            }
+        }
+
+        return distribution;
+    }
 
+    /**
+     * Empties the cache of loaded distributions.
+     */
+    public static void clearDistributionCache() {
+        CACHE.clear();
+    }
+
+    /**
+     * Reads an empirical distribution from a file, bypassing the cache.
+     *
+     * @param fileName - the name of the file
+     * @param scalingFactor - a scaling factor to multiply x values in the
+     * distribution by
+     * @return the empirical distribution represented by the file
+     */
+    private static EmpiricalDistribution readDistribution(
+                                            final String fileName,
+                                            final double scalingFactor) {
+        double[][] points;
+        if (fileName.endsWith(BINARY_SUFFIX)) {
+            points = readBinaryPoints(fileName);
+        } else {
+            points = readTextPoints(fileName);
+        }
+
+        double[] xs = points[0];
+        double[] ys = points[1];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] *= scalingFactor;
+        }
+
+        if (xs.length == 0 || xs[0] != 0 || ys[0] != 0) {
+            if (xs.length > 0) {
+                System.out.println("xs[0] = " + xs[0]);
+                System.out.println("ys[0] = " + ys[0]);
+            }
+            Sim.fatalError("The first line of a cdf file needs to be 0 0");
+        }
+        EmpiricalDistribution distribution = new EmpiricalDistribution(xs, ys);
+
+        return distribution;
+    }
+
+    /**
+     * Reads the points of a distribution from a text file.
+     *
+     * @param fileName - the name of the file
+     * @return the x values and y values of the distribution
+     */
+    private static double[][] readTextPoints(final String fileName) {
         // Use a vector since we don't know how many points there are
         Vector<XYPair> xypairs = new Vector<XYPair>();
 
@@ -178,7 +301,7 @@ public final class EmpiricalDistribution implements Serializable {
             String strLine;
 
             while ((strLine = br.readLine()) != null) {
-                String[] parts = strLine.split(" ");
+                String[] parts = strLine.trim().split("\\s+");
                 XYPair pair = new XYPair();
                 pair.x = Double.valueOf(parts[0]);
                 pair.y = Double.valueOf(parts[1]);
@@ -203,19 +326,94 @@ public final class EmpiricalDistribution implements Serializable {
         int i = 0;
         while (xyiter.hasNext()) {
             XYPair pair = xyiter.next();
-            xs[i] = pair.x * scalingFactor;
+            xs[i] = pair.x;
             ys[i] = pair.y;
             i++;
         }
 
-        if (xs[0] != 0 || ys[0] != 0) {
-            System.out.println("xs[0] = " + xs[0]);
-            System.out.println("ys[0] = " + ys[0]);
-            Sim.fatalError("The first line of a cdf file needs to be 0 0");
+        return new double[][] {xs, ys};
+    }
+
+    /**
+     * Reads the points of a distribution from a binary file by
+     * memory mapping it.
+     *
+     * @param fileName - the name of the file
+     * @return the x values and y values of the distribution
+     */
+    private static double[][] readBinaryPoints(final String fileName) {
+        double[] xs = null;
+        double[] ys = null;
+        try {
+            RandomAccessFile file = new RandomAccessFile(fileName, "r");
+            FileChannel channel = file.getChannel();
+            MappedByteBuffer buffer
+                = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                              channel.size());
+            if (buffer.getInt() != BINARY_MAGIC) {
+                Sim.fatalError(fileName + " is not a binary cdf file");
+            }
+            int entries = buffer.getInt();
+            xs = new double[entries];
+            ys = new double[entries];
+            DoubleBuffer values = buffer.asDoubleBuffer();
+            values.get(xs);
+            values.get(ys);
+            channel.close();
+            file.close();
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.err.println("File is " + fileName);
+            Sim.fatalError("Couldn't load distribution file");
+        } catch (BufferUnderflowException e) {
+            Sim.fatalError(fileName + " is truncated");
         }
-        EmpiricalDistribution distribution = new EmpiricalDistribution(xs, ys);
 
-        return distribution;
+        return new double[][] {xs, ys};
+    }
+
+    /**
+     * Saves the distribution in the binary format: a magic number and the
+     * number of points (ints) followed by all the x values and then all
+     * the y values (doubles), all big-endian.
+     *
+     * @param fileName - the name of the file to write
+     */
+    public void saveBinaryDistribution(final String fileName) {
+        ByteBuffer buffer = ByteBuffer.allocate(BINARY_HEADER_SIZE
+                + 2 * this.xs.length * (Double.SIZE / Byte.SIZE));
+        buffer.putInt(BINARY_MAGIC);
+        buffer.putInt(this.xs.length);
+        DoubleBuffer values = buffer.asDoubleBuffer();
+        values.put(this.xs);
+        values.put(this.ys);
+
+        try {
+            FileOutputStream out = new FileOutputStream(fileName);
+            out.write(buffer.array());
+            out.close();
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            Sim.fatalError("Couldn't write distribution file " + fileName);
+        }
+    }
+
+    /**
+     * Converts text cdf files to the binary format. Each file is written
+     * next to the original with a "b" appended to its name
+     * (e.g., search.service.cdf becomes search.service.cdfb).
+     * Experiments read the binary copy only if they load it by that name.
+     *
+     * @param args - the text cdf files to convert
+     */
+    public static void main(final String[] args) {
+        for (String fileName : args) {
+            EmpiricalDistribution distribution
+                = readDistribution(fileName, 1.0);
+            distribution.saveBinaryDistribution(fileName + "b");
+            System.out.println("Converted " + fileName + " ("
+                               + distribution.xs.length + " points)");
+        }
     }
 
     /**
@@ -225,6 +423,24 @@ public final class EmpiricalDistribution implements Serializable {
      *  @return the x value corresponding to the quantile
      */
     public double getQuantile(final double quantile) {
+        int bin = this.searchForQuantileBin(quantile);
+        // Note x and y are reversed
+        double xValue = this.linearlyInterpolateBin(this.ys,
+                                                    this.xs,
+                                                    bin,
+                                                    quantile);
+        return xValue;
+    }
+
+    /**
+     *  Get the x value of a quantile of the CDF by binary searching
+     *  the CDF. Gives the same result as {@link #getQuantile(double)}
+     *  in O(log n) instead of expected O(1) time.
+     *
+     *  @param quantile - the quantile of the distribution
+     *  @return the x value corresponding to the quantile
+     */
+    public double getQuantileBySearch(final double quantile) {
         int bin = searchForBin(this.ys, quantile);
         // Note x and y are reversed
         double xValue = this.linearlyInterpolateBin(this.ys,
@@ -282,6 +498,39 @@ public final class EmpiricalDistribution implements Serializable {
         return y;
     }
 
+    /**
+     * Finds the CDF bin of a quantile using the guide table.
+     * Returns the same bin as {@link #searchForBin(double[], double)}.
+     *
+     * @param quantile - the quantile to search for
+     * @return the largest bin whose CDF value is smaller than the quantile
+     */
+    private int searchForQuantileBin(final double quantile) {
+        int last = this.ys.length - 1;
+        int slot = (int) (quantile * this.guide.length);
+        if (slot < 0) {
+            slot = 0;
+        } else if (slot >= this.guide.length) {
+            slot = this.guide.length - 1;
+        }
+
+        int bin = this.guide[slot];
+        while (bin < last && this.ys[bin + 1] <= quantile) {
+            bin++;
+        }
+        // Rounding in the slot computation can overshoot by one slot
+        while (bin > 0 && this.ys[bin] > quantile) {
+            bin--;
+        }
+
+        if (this.ys[bin] == quantile) {
+            // Binary search picks among equal CDF values differently
+            return searchForBin(this.ys, quantile);
+        }
+
+        return bin;
+    }
+
     /**
      * Returns the biggest bin which is smaller than the value.
      *
@@ -68,7 +68,7 @@ public class CombinedStatistic extends Statistic {
                              final double theQuantile,
                              final double quantileAccuracy,
                              final SimpleStatistic aSimpleStat,
-                             final Histogram aHistogram,
+                             final QuantileEstimator aHistogram,
                              final int lagSpace,
                              final long combinedGoodSamples,
                              final long combinedTotalSamples,
@@ -30,17 +30,19 @@
  */
 package stat;
 
-import java.io.Serializable;
 import java.util.Arrays;
 
 import core.Sim;
 
 /**
  * A histogram which puts samples into bins.
- * 
+ * The bin counts are also kept in a Fenwick (binary indexed) tree,
+ * so adding a sample and looking up a quantile or cdf value are
+ * O(log nBins) and do not allocate.
+ *
  * @author David Meisner (meisner@umich.edu)
  */
-public final class Histogram implements Serializable {
+public final class Histogram implements QuantileEstimator {
 
     /**
      * The serialization id.
@@ -54,10 +56,13 @@ public final class Histogram implements Serializable {
     private double[] yValues;
 
     /**
-     * The cdf values of the bins of the histogram.
-     * Is null until {@link #createCdf()} is called.
+     * A Fenwick tree over the bin counts. Element i (1-based) holds the
+     * sum of the i & -i bins ending at bin i - 1.
      */
-    private double[] cdf;
+    private double[] tree;
+
+    /** The sum of all the bin counts. */
+    private double total;
 
     /**
      * Creates a new histogram.
@@ -76,7 +81,7 @@ public final class Histogram implements Serializable {
             this.xValues[i] = (i + 1) * deltaX;
             this.yValues[i] = 0.0d;
         }
-        this.cdf = null;
+        this.buildTree();
     }
 
     /**
@@ -87,7 +92,7 @@ public final class Histogram implements Serializable {
     public Histogram(final double[] theXValues) {
         this.xValues = theXValues.clone();
         this.yValues = new double[theXValues.length];
-        this.cdf = null;
+        this.buildTree();
     }
 
     /**
@@ -99,7 +104,7 @@ public final class Histogram implements Serializable {
     public Histogram(final double[] theXValues, final double[] theYValues) {
         this.xValues = theXValues.clone();
         this.yValues = theYValues.clone();
-        this.cdf = null;
+        this.buildTree();
     }
 
     /**
@@ -121,21 +126,67 @@ public final class Histogram implements Serializable {
     }
 
     /**
-     * Evaluates the cdf values for this histogram internally.
+     * Builds the Fenwick tree from the bin counts in O(nBins).
      */
-    private void createCdf() {
-        this.cdf = new double[this.xValues.length];
-        double total = 0;
-        for (int i = 0; i < this.xValues.length; i++) {
-            total += this.yValues[i];
+    private void buildTree() {
+        int nBins = this.yValues.length;
+        this.tree = new double[nBins + 1];
+        this.total = 0.0d;
+        for (int i = 1; i <= nBins; i++) {
+            this.tree[i] += this.yValues[i - 1];
+            this.total += this.yValues[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= nBins) {
+                this.tree[parent] += this.tree[i];
+            }
         }
+    }
 
-        double runningCdf = 0.0d;
-        for (int i = 0; i < this.xValues.length; i++) {
-            double pdf = this.yValues[i] / total;
-            runningCdf += pdf;
-            this.cdf[i] = runningCdf;
+    /**
+     * Gets the total count of the bins up to and including a bin.
+     *
+     * @param bin - the last bin to include
+     * @return the total count of bins 0 through bin
+     */
+    private double prefixCount(final int bin) {
+        double count = 0.0d;
+        for (int i = bin + 1; i > 0; i -= i & -i) {
+            count += this.tree[i];
+        }
+
+        return count;
+    }
+
+    /**
+     * Finds the first bin whose running count reaches a target.
+     *
+     * @param targetCount - the running count to reach
+     * @return the first bin with a running count of at least the target,
+     * or the last bin if no bin reaches it
+     */
+    private int findBinWithCount(final double targetCount) {
+        int nBins = this.yValues.length;
+        int position = 0;
+        double remaining = targetCount;
+        for (int step = Integer.highestOneBit(nBins); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next <= nBins && this.tree[next] < remaining) {
+                position = next;
+                remaining -= this.tree[next];
+            }
         }
+
+        return Math.min(position, nBins - 1);
+    }
+
+    /**
+     * Gets the cdf value at the top of a bin.
+     *
+     * @param bin - the bin
+     * @return the fraction of samples in bins 0 through bin
+     */
+    private double cdfAt(final int bin) {
+        return this.prefixCount(bin) / this.total;
     }
 
     /**
@@ -144,7 +195,6 @@ public final class Histogram implements Serializable {
      * @param value - the sample value
      */
     public void addSample(final double value) {
-        this.cdf = null;
         int bin = findClosestBin(this.xValues, value);
 
         if (bin > this.yValues.length - 1) {
@@ -152,6 +202,10 @@ public final class Histogram implements Serializable {
         }
 
         this.yValues[bin] += 1;
+        this.total += 1;
+        for (int i = bin + 1; i < this.tree.length; i += i & -i) {
+            this.tree[i] += 1;
+        }
     }
 
     /**
@@ -176,6 +230,16 @@ public final class Histogram implements Serializable {
         return combinedHistogram;
     }
 
+    @Override
+    public QuantileEstimator combine(final QuantileEstimator estimator) {
+        if (!(estimator instanceof Histogram)) {
+            Sim.fatalError("Cannot combine a histogram with "
+                           + estimator.getClass());
+        }
+
+        return this.combineHistogram((Histogram) estimator);
+    }
+
     /**
      * Perform a linear interpolation.
      *
@@ -202,19 +266,14 @@ public final class Histogram implements Serializable {
      * @return the x value of the quantile from the histogram
      */
     public double getQuantile(final double quantile) {
-
-        if (this.cdf == null) {
-            this.createCdf();
-        }
-
-        int bin = findClosestBin(this.cdf, quantile);
-        double topX = this.cdf[bin];
+        int bin = this.findBinWithCount(quantile * this.total);
+        double topX = this.cdfAt(bin);
         double topY = this.xValues[bin];
         double bottomX = 0.0d;
         double bottomY = 0.0d;
 
         if (bin != 0) {
-            bottomX = this.cdf[bin - 1];
+            bottomX = this.cdfAt(bin - 1);
             bottomY = this.xValues[bin - 1];
         }
 
@@ -227,17 +286,11 @@ public final class Histogram implements Serializable {
      * Prints the cdf of the histogram to standard out.
      */
     public void printCdf() {
-
-        if (this.cdf == null) {
-            System.out.println("CDF is null");
-        } else {
-            System.out.println("Bin, X, CDF");
-            for (int i = 0; i < this.cdf.length; i++) {
-                System.out.println(i + ", " + this.xValues[i] + ", "
-                                   + this.cdf[i]);
-            }
+        System.out.println("Bin, X, CDF");
+        for (int i = 0; i < this.xValues.length; i++) {
+            System.out.println(i + ", " + this.xValues[i] + ", "
+                               + this.cdfAt(i));
         }
-
     }
 
     /**
@@ -245,7 +298,7 @@ public final class Histogram implements Serializable {
      */
     public void printHistogram() {
         System.out.println("Bin, X, Count");
-        for (int i = 0; i < this.cdf.length; i++) {
+        for (int i = 0; i < this.xValues.length; i++) {
             System.out.println(i + ", " + this.xValues[i] + ", "
                                + this.yValues[i]);
         }
@@ -267,20 +320,15 @@ public final class Histogram implements Serializable {
      * @return the cdf value
      */
     public double getCdfValue(final double xValue) {
-
-        if (this.cdf == null) {
-            this.createCdf();
-        }
-
         int bin = findClosestBin(this.xValues, xValue);
         double topX = this.xValues[bin];
-        double topY = this.cdf[bin];
+        double topY = this.cdfAt(bin);
         double bottomX = 0.0d;
         double bottomY = 0.0d;
 
         if (bin != 0) {
             bottomX = this.xValues[bin - 1];
-            bottomY = this.cdf[bin - 1];
+            bottomY = this.cdfAt(bin - 1);
         }
 
         double cdfValue = interpolate(bottomX, topX, bottomY, topY, xValue);
@@ -0,0 +1,396 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package stat;
+
+import core.Sim;
+
+/**
+ * A log-linear histogram in the style of HdrHistogram.
+ * Each power of two is split into 2^significantBits equal bins, so every
+ * bin is at most 2^-significantBits of its values wide, whatever the
+ * magnitude of the samples. Bins are added as samples arrive, so the
+ * range never needs to be known in advance and samples far beyond the
+ * calibration range are not clamped. Memory grows only with the number
+ * of powers of two the samples span.
+ *
+ * Samples are expected to be non-negative (e.g., times and power).
+ * Samples below the lowest discernible value, including zero,
+ * are counted in a single zero bin.
+ *
+ * As in {@link Histogram}, the bin counts are also kept in a Fenwick
+ * (binary indexed) tree, so quantile and cdf lookups are O(log nBins).
+ * The tree is rebuilt when the range grows, which happens at most once
+ * per new power of two.
+ */
+public final class LogLinearHistogram implements QuantileEstimator {
+
+    /** The serialization id. */
+    private static final long serialVersionUID = 1L;
+
+    /** The default number of bits of precision kept for each sample. */
+    public static final int DEFAULT_SIGNIFICANT_BITS = 7;
+
+    /** The default smallest value distinguished from zero. */
+    public static final double DEFAULT_LOWEST_VALUE = 1e-9;
+
+    /** The number of explicitly stored mantissa bits of a double. */
+    private static final int MANTISSA_BITS = 52;
+
+    /** Mask of the mantissa bits of a double. */
+    private static final long MANTISSA_MASK = (1L << MANTISSA_BITS) - 1;
+
+    /** The number of bits of precision kept for each sample. */
+    private final int significantBits;
+
+    /** The number of bins each power of two is split into. */
+    private final int binsPerExponent;
+
+    /** The smallest value distinguished from zero. */
+    private final double lowestValue;
+
+    /** The number of samples below the lowest discernible value. */
+    private long zeroCount;
+
+    /** The exponent (power of two) of the first stored bin. */
+    private int minExponent;
+
+    /** The bin counts, binsPerExponent for each exponent from minExponent. */
+    private long[] counts;
+
+    /**
+     * A Fenwick tree over the bin counts. Element i (1-based) holds the
+     * sum of the i & -i bins ending at bin i - 1.
+     */
+    private long[] tree;
+
+    /** The total number of samples. */
+    private long totalCount;
+
+    /**
+     * Creates a new LogLinearHistogram with the default precision.
+     */
+    public LogLinearHistogram() {
+        this(DEFAULT_SIGNIFICANT_BITS, DEFAULT_LOWEST_VALUE);
+    }
+
+    /**
+     * Creates a new LogLinearHistogram.
+     *
+     * @param theSignificantBits - the number of bits of precision kept,
+     * the relative error of each bin is at most 2^-theSignificantBits
+     * @param theLowestValue - the smallest value distinguished from zero
+     */
+    public LogLinearHistogram(final int theSignificantBits,
+                              final double theLowestValue) {
+        if (theSignificantBits < 1 || theSignificantBits > 20) {
+            Sim.fatalError("Significant bits must be between 1 and 20: "
+                           + theSignificantBits);
+        }
+        if (!(theLowestValue > 0)) {
+            Sim.fatalError("The lowest value must be positive: "
+                           + theLowestValue);
+        }
+        this.significantBits = theSignificantBits;
+        this.binsPerExponent = 1 << theSignificantBits;
+        this.lowestValue = theLowestValue;
+        this.zeroCount = 0;
+        this.minExponent = 0;
+        this.counts = new long[0];
+        this.tree = new long[1];
+        this.totalCount = 0;
+    }
+
+    /**
+     * Get the number of exponents the stored bins span.
+     *
+     * @return the number of exponents the stored bins span
+     */
+    private int nExponents() {
+        return this.counts.length / this.binsPerExponent;
+    }
+
+    /**
+     * Gets the bin within its exponent a value falls into.
+     *
+     * @param value - the value (at least the lowest value)
+     * @return the bin of the value within its power of two
+     */
+    private int subBinOf(final double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        return (int) ((bits & MANTISSA_MASK)
+                      >>> (MANTISSA_BITS - this.significantBits));
+    }
+
+    /**
+     * Gets the lowest value of a stored bin.
+     *
+     * @param index - the index of the bin in the counts
+     * @return the lowest value of the bin
+     */
+    private double binLow(final int index) {
+        int exponent = this.minExponent + index / this.binsPerExponent;
+        int subBin = index % this.binsPerExponent;
+        return Math.scalb(1.0 + (double) subBin / this.binsPerExponent,
+                          exponent);
+    }
+
+    /**
+     * Makes sure bins are stored for a range of exponents.
+     *
+     * @param lowExponent - the lowest exponent needed
+     * @param highExponent - the highest exponent needed
+     */
+    private void ensureRange(final int lowExponent, final int highExponent) {
+        int nExponents = this.nExponents();
+        if (nExponents == 0) {
+            this.minExponent = lowExponent;
+            this.counts = new long[(highExponent - lowExponent + 1)
+                                   * this.binsPerExponent];
+            this.tree = new long[this.counts.length + 1];
+            return;
+        }
+
+        int maxExponent = this.minExponent + nExponents - 1;
+        if (lowExponent >= this.minExponent && highExponent <= maxExponent) {
+            return;
+        }
+
+        int newMin = Math.min(lowExponent, this.minExponent);
+        int newMax = Math.max(highExponent, maxExponent);
+        long[] newCounts = new long[(newMax - newMin + 1)
+                                    * this.binsPerExponent];
+        System.arraycopy(this.counts, 0, newCounts,
+                         (this.minExponent - newMin) * this.binsPerExponent,
+                         this.counts.length);
+        this.minExponent = newMin;
+        this.counts = newCounts;
+        this.buildTree();
+    }
+
+    /**
+     * Builds the Fenwick tree from the bin counts in O(nBins).
+     */
+    private void buildTree() {
+        int nBins = this.counts.length;
+        this.tree = new long[nBins + 1];
+        for (int i = 1; i <= nBins; i++) {
+            this.tree[i] += this.counts[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= nBins) {
+                this.tree[parent] += this.tree[i];
+            }
+        }
+    }
+
+    /**
+     * Gets the total count of the bins before a bin.
+     *
+     * @param index - the index of the bin in the counts
+     * @return the total count of bins 0 through index - 1
+     */
+    private long countBelow(final int index) {
+        long count = 0;
+        for (int i = index; i > 0; i -= i & -i) {
+            count += this.tree[i];
+        }
+
+        return count;
+    }
+
+    @Override
+    public void addSample(final double value) {
+        this.totalCount++;
+        if (value < this.lowestValue) {
+            this.zeroCount++;
+            return;
+        }
+
+        int exponent = Math.getExponent(value);
+        this.ensureRange(exponent, exponent);
+        int index = (exponent - this.minExponent) * this.binsPerExponent
+                    + this.subBinOf(value);
+        this.counts[index]++;
+        for (int i = index + 1; i < this.tree.length; i += i & -i) {
+            this.tree[i]++;
+        }
+    }
+
+    /**
+     * Get the total number of samples in the histogram.
+     *
+     * @return the total number of samples in the histogram
+     */
+    public long getTotalCount() {
+        return this.totalCount;
+    }
+
+    @Override
+    public double getQuantile(final double quantile) {
+        if (this.totalCount == 0) {
+            return Double.NaN;
+        }
+
+        double targetCount = quantile * this.totalCount;
+        if (targetCount <= this.zeroCount) {
+            return 0.0d;
+        }
+
+        // Quantiles of (or rounding beyond) 1.0 give the largest bin
+        double remaining = Math.min(targetCount - this.zeroCount,
+                                    this.totalCount - this.zeroCount);
+
+        // Descend the tree to the first bin whose running count
+        // reaches the target, which is never an empty bin
+        int nBins = this.counts.length;
+        int index = 0;
+        long countBelow = 0;
+        for (int step = Integer.highestOneBit(nBins); step > 0; step >>= 1) {
+            int next = index + step;
+            if (next <= nBins && countBelow + this.tree[next] < remaining) {
+                index = next;
+                countBelow += this.tree[next];
+            }
+        }
+
+        // Assume samples are spread evenly across the bin
+        double fraction = (remaining - countBelow) / this.counts[index];
+        double low = this.binLow(index);
+        double high = this.binLow(index + 1);
+        return low + fraction * (high - low);
+    }
+
+    @Override
+    public double getCdfValue(final double xValue) {
+        if (this.totalCount == 0) {
+            return Double.NaN;
+        }
+        if (xValue < this.lowestValue) {
+            return (double) this.zeroCount / this.totalCount;
+        }
+
+        int exponent = Math.getExponent(xValue);
+        if (exponent < this.minExponent || this.nExponents() == 0) {
+            return (double) this.zeroCount / this.totalCount;
+        }
+        if (exponent >= this.minExponent + this.nExponents()) {
+            return 1.0d;
+        }
+
+        int index = (exponent - this.minExponent) * this.binsPerExponent
+                    + this.subBinOf(xValue);
+        double low = this.binLow(index);
+        double high = this.binLow(index + 1);
+        double fraction = Math.max(0.0, (xValue - low) / (high - low));
+        double runningCount = this.zeroCount + this.countBelow(index)
+                              + fraction * this.counts[index];
+
+        return runningCount / this.totalCount;
+    }
+
+    /**
+     * Combine a log-linear histogram with this one.
+     *
+     * @param histogram - the histogram to combine with this one
+     * @return the combined histogram
+     */
+    public LogLinearHistogram combineHistogram(
+            final LogLinearHistogram histogram) {
+        if (this.significantBits != histogram.significantBits
+                || Double.compare(this.lowestValue,
+                                  histogram.lowestValue) != 0) {
+            Sim.fatalError("Cannot combine log-linear histograms"
+                           + " with different precisions");
+        }
+
+        LogLinearHistogram combined
+            = new LogLinearHistogram(this.significantBits, this.lowestValue);
+        combined.addCounts(this);
+        combined.addCounts(histogram);
+
+        return combined;
+    }
+
+    /**
+     * Adds the counts of another histogram with the same precision
+     * to this one.
+     *
+     * @param histogram - the histogram whose counts to add
+     */
+    private void addCounts(final LogLinearHistogram histogram) {
+        int nExponents = histogram.nExponents();
+        if (nExponents > 0) {
+            this.ensureRange(histogram.minExponent,
+                             histogram.minExponent + nExponents - 1);
+            int offset = (histogram.minExponent - this.minExponent)
+                         * this.binsPerExponent;
+            for (int i = 0; i < histogram.counts.length; i++) {
+                this.counts[offset + i] += histogram.counts[i];
+            }
+            this.buildTree();
+        }
+        this.zeroCount += histogram.zeroCount;
+        this.totalCount += histogram.totalCount;
+    }
+
+    @Override
+    public QuantileEstimator combine(final QuantileEstimator estimator) {
+        if (!(estimator instanceof LogLinearHistogram)) {
+            Sim.fatalError("Cannot combine a log-linear histogram with "
+                           + estimator.getClass());
+        }
+
+        return this.combineHistogram((LogLinearHistogram) estimator);
+    }
+
+    @Override
+    public void printCdf() {
+        System.out.println("Bin, X, CDF");
+        double runningCount = this.zeroCount;
+        System.out.println("0, 0.0, " + runningCount / this.totalCount);
+        for (int i = 0; i < this.counts.length; i++) {
+            if (this.counts[i] > 0) {
+                runningCount += this.counts[i];
+                System.out.println((i + 1) + ", " + this.binLow(i + 1) + ", "
+                                   + runningCount / this.totalCount);
+            }
+        }
+    }
+
+    @Override
+    public void printHistogram() {
+        System.out.println("Bin, X, Count");
+        System.out.println("0, 0.0, " + this.zeroCount);
+        for (int i = 0; i < this.counts.length; i++) {
+            if (this.counts[i] > 0) {
+                System.out.println((i + 1) + ", " + this.binLow(i) + ", "
+                                   + this.counts[i]);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package stat;
+
+import java.io.Serializable;
+
+/**
+ * A summary of a distribution of samples which can estimate
+ * quantiles and cdf values.
+ * Implementations must be able to combine with other instances of the
+ * same kind, so estimates from multiple slaves can be merged.
+ */
+public interface QuantileEstimator extends Serializable {
+
+    /**
+     * Adds a sample.
+     *
+     * @param value - the sample value
+     */
+    void addSample(double value);
+
+    /**
+     * Get the x value of a quantile.
+     *
+     * @param quantile - the quantile
+     * @return the x value of the quantile
+     */
+    double getQuantile(double quantile);
+
+    /**
+     * Get the cdf value for a given x value.
+     *
+     * @param xValue - the x value
+     * @return the cdf value
+     */
+    double getCdfValue(double xValue);
+
+    /**
+     * Combine another estimator of the same kind with this one.
+     *
+     * @param estimator - the estimator to combine with this one
+     * @return the combined estimator
+     */
+    QuantileEstimator combine(QuantileEstimator estimator);
+
+    /**
+     * Prints the cdf to standard out.
+     */
+    void printCdf();
+
+    /**
+     * Prints the underlying bins to standard out.
+     */
+    void printHistogram();
+
+}
@@ -31,8 +31,7 @@
 package stat;
 
 import java.io.Serializable;
-import java.util.Iterator;
-import java.util.Vector;
+import java.util.Arrays;
 
 import math.HelperFunctions;
 
@@ -40,6 +39,7 @@ import core.Sim;
 
 // From ssj
 import umontreal.iro.lecuyer.probdist.ChiSquareDist;
+import umontreal.iro.lecuyer.probdist.NormalDist;
 
 /**
  * Represents a sequence of values. Can be used to find independent
@@ -54,8 +54,17 @@ public class Sequence implements Serializable {
      */
     private static final long serialVersionUID = 1L;
 
-    /** The sequence of numbers. */
-    private Vector<Double> sequence;
+    /** The default number of values a new sequence has room for. */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * The sequence of numbers.
+     * Only the first size elements are part of the sequence.
+     */
+    private double[] sequence;
+
+    /** The number of values in the sequence. */
+    private int size;
 
     /** A simple statistic of the sequence. */
     private SimpleStatistic simpleStat;
@@ -64,7 +73,18 @@ public class Sequence implements Serializable {
      * Creates a new, empty sequence.
      */
     public Sequence() {
-        this.sequence = new Vector<Double>();
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new, empty sequence with room for a number of values.
+     * The sequence still grows past this if needed.
+     *
+     * @param initialCapacity - the number of values to make room for
+     */
+    public Sequence(final int initialCapacity) {
+        this.sequence = new double[Math.max(1, initialCapacity)];
+        this.size = 0;
         this.simpleStat = new SimpleStatistic();
     }
 
@@ -73,25 +93,36 @@ public class Sequence implements Serializable {
      * @param value - the value
      */
     public void insert(final double value) {
-        this.sequence.add(value);
+        if (this.size == this.sequence.length) {
+            this.sequence = Arrays.copyOf(this.sequence, 2 * this.size);
+        }
+        this.sequence[this.size] = value;
+        this.size++;
         this.simpleStat.addSample(value);
     }
 
     /**
-     * Get the values of the sequence.
+     * Get a value in the sequence.
      *
-     * @return an array of the values
+     * @param index - the position of the value
+     * @return the value
      */
-    public double[] getValues() {
-        double[] values = new double[this.sequence.size()];
-        Iterator<Double> iter = this.sequence.iterator();
-        int i = 0;
-        while (iter.hasNext()) {
-            values[i] = iter.next().doubleValue();
-            i++;
+    public double get(final int index) {
+        if (index < 0 || index >= this.size) {
+            Sim.fatalError("Index " + index + " is outside a sequence of "
+                           + this.size + " values");
         }
 
-        return values;
+        return this.sequence[index];
+    }
+
+    /**
+     * Get a copy of the values of the sequence.
+     *
+     * @return an array of the values
+     */
+    public double[] getValues() {
+        return Arrays.copyOf(this.sequence, this.size);
     }
 
     // TODO Document the library this depends on
@@ -148,70 +179,126 @@ public class Sequence implements Serializable {
      * @return the run counts
      */
     public static int[] getRunCounts(final double[] values, final int maxRun) {
+        return Sequence.getRunCounts(values, values.length, 1, maxRun);
+    }
+
+    /**
+     * Gets the run counts for every nth value in the first length
+     * values of an array, as if the values were first passed through
+     * {@link #getSpacedSequence(double[], int)}, without copying them.
+     *
+     * @param values - the values in the sequence
+     * @param length - the number of values of the array in the sequence
+     * @param spacing - the nth element spacing
+     * @param maxRun - the maximum allowed run
+     * @return the run counts
+     */
+    public static int[] getRunCounts(final double[] values,
+                                     final int length,
+                                     final int spacing,
+                                     final int maxRun) {
+        RunCounter counter = new RunCounter(maxRun);
+        int nItems = length / spacing;
+        for (int i = 0; i < nItems; i++) {
+            counter.next(values[i * spacing]);
+        }
 
-        int[] runCounts = new int[maxRun];
+        return counter.runCounts;
+    }
 
-        double lastValue = 0;
-        int runLength = 0;
+    /**
+     * Counts runs in a stream of values for the runs test.
+     * See {@link #getRunCounts(double[], int)}.
+     */
+    private static final class RunCounter {
+
+        /** How many runs of each length have been seen. */
+        private final int[] runCounts;
 
-        RunState state = RunState.FIRST;
+        /** The maximum allowed run. */
+        private final int maxRun;
 
-        for (int i = 0; i < values.length; i++) {
+        /** The state of the current run. */
+        private RunState state;
 
-            double currentValue = values[i];
-            switch (state) {
+        /** The previous value seen. */
+        private double lastValue;
+
+        /** The length of the current run. */
+        private int runLength;
+
+        /**
+         * Creates a new RunCounter.
+         *
+         * @param theMaxRun - the maximum allowed run
+         */
+        RunCounter(final int theMaxRun) {
+            this.runCounts = new int[theMaxRun];
+            this.maxRun = theMaxRun;
+            this.state = RunState.FIRST;
+            this.lastValue = 0;
+            this.runLength = 0;
+        }
+
+        /**
+         * Ends the current run and counts it.
+         */
+        private void endRun() {
+            if (this.runLength > this.maxRun) {
+                this.runCounts[this.maxRun - 1] += 1;
+            } else {
+                this.runCounts[this.runLength - 1] += 1;
+            }
+            this.state = RunState.FIRST;
+            this.runLength = 0;
+        }
+
+        /**
+         * Counts the next value in the stream.
+         *
+         * @param currentValue - the next value
+         */
+        void next(final double currentValue) {
+            switch (this.state) {
 
             case SKIP:
-                state = RunState.FIRST;
+                this.state = RunState.FIRST;
                 break;
 
             case FIRST:
-                state = RunState.SECOND;
+                this.state = RunState.SECOND;
                 break;
 
             case SECOND:
 
-                if (currentValue > lastValue) {
-                    state = RunState.UP;
-                    runLength = 1;
-                } else if (currentValue < lastValue) {
-                    state = RunState.DOWN;
-                    runLength = 1;
+                if (currentValue > this.lastValue) {
+                    this.state = RunState.UP;
+                    this.runLength = 1;
+                } else if (currentValue < this.lastValue) {
+                    this.state = RunState.DOWN;
+                    this.runLength = 1;
                 } else {
-                    state = RunState.SECOND;
+                    this.state = RunState.SECOND;
                 }
 
                 break;
 
             case UP:
 
-                if (currentValue > lastValue) {
-                    runLength++;
+                if (currentValue > this.lastValue) {
+                    this.runLength++;
                 } else {
-                    if (runLength > maxRun) {
-                        runCounts[maxRun - 1] += 1;
-                    } else {
-                        runCounts[runLength - 1] += 1;
-                    }
-                    state = RunState.FIRST;
-                    runLength = 0;
+                    this.endRun();
                 }
 
                 break;
 
             case DOWN:
 
-                if (currentValue < lastValue) {
-                    runLength++;
+                if (currentValue < this.lastValue) {
+                    this.runLength++;
                 } else {
-
-                    if (runLength > maxRun) {
-                        runCounts[maxRun - 1] += 1;
-                    } else {
-                        runCounts[runLength - 1] += 1;
-                    }
-                    state = RunState.FIRST;
-                    runLength = 0;
+                    this.endRun();
                 }
                 break;
 
@@ -219,10 +306,9 @@ public class Sequence implements Serializable {
                  Sim.fatalError("Unknown case");
             }
 
-            lastValue = currentValue;
+            this.lastValue = currentValue;
         }
 
-        return runCounts;
     }
 
     //TODO add a reference to the runs test
@@ -282,7 +368,7 @@ public class Sequence implements Serializable {
      * @return the size (number of values) of the sequence
      */
     public int getSize() {
-        return this.sequence.size();
+        return this.size;
     }
 
     //TODO add a reference to the runs test
@@ -290,6 +376,10 @@ public class Sequence implements Serializable {
      * Calculate the lag spacing needed to make this sequence appear
      * independent. The lag spacing means that every lag number of samples
      * is actually used.
+     * Spacings are tried from 1 upwards and the first to pass the runs
+     * test is returned. Runs are counted in place over every spacing'th
+     * value, so a spacing costs n / spacing steps and usually only the
+     * first spacing is needed.
      *
      * @param maxLagSpacing - the maximum lag spacing value this can return
      * @param maxRun - the maximum run to consider.
@@ -299,20 +389,71 @@ public class Sequence implements Serializable {
     public int calculateLagSpacing(final int maxLagSpacing,
                                    final int maxRun,
                                    final double confidence) {
-        int spacing = 1;
-        double[] values = this.getValues();
-        double[] spaced = Sequence.getSpacedSequence(values, spacing);
-        int[] runCounts = Sequence.getRunCounts(spaced, maxRun);
-        while (!Sequence.isIndependentByRunsTest(runCounts, confidence)) {
-            spacing++;
-            if (spacing > maxLagSpacing) {
-                Sim.fatalError("Needed lag spacing is too good");
+        for (int spacing = 1; spacing <= maxLagSpacing; spacing++) {
+            int[] runCounts = Sequence.getRunCounts(this.sequence, this.size,
+                                                    spacing, maxRun);
+            if (Sequence.isIndependentByRunsTest(runCounts, confidence)) {
+                return spacing;
+            }
+        }
+        Sim.fatalError("Needed lag spacing is too good");
+
+        return -1;
+    }
+
+    /**
+     * Gets the autocorrelation of the sequence at every lag from 1 to
+     * maxLag in a single pass over the values.
+     *
+     * @param maxLag - the largest lag to compute
+     * @return the autocorrelations, the value for lag l is at index l - 1
+     */
+    public double[] getAutocorrelations(final int maxLag) {
+        double mean = this.simpleStat.getAverage();
+        double[] covariances = new double[maxLag];
+        double variance = 0.0d;
+        for (int i = 0; i < this.size; i++) {
+            double deviation = this.sequence[i] - mean;
+            variance += deviation * deviation;
+            int lags = Math.min(maxLag, this.size - 1 - i);
+            for (int l = 0; l < lags; l++) {
+                covariances[l] += deviation * (this.sequence[i + l + 1] - mean);
+            }
+        }
+
+        double[] autocorrelations = new double[maxLag];
+        for (int l = 0; l < maxLag; l++) {
+            if (variance > 0) {
+                autocorrelations[l] = covariances[l] / variance;
+            }
+        }
+
+        return autocorrelations;
+    }
+
+    /**
+     * Calculate the lag spacing needed to make this sequence appear
+     * independent from its autocorrelation. This is the smallest lag
+     * whose autocorrelation is not significantly different from zero.
+     * Costs one pass over the sequence regardless of the lag found.
+     *
+     * @param maxLagSpacing - the maximum lag spacing value this can return
+     * @param confidence - the confidence used for the test of independence
+     * @return the minimum lag spacing required
+     */
+    public int calculateLagSpacingByAutocorrelation(final int maxLagSpacing,
+                                                    final double confidence) {
+        double[] autocorrelations = this.getAutocorrelations(maxLagSpacing);
+        double z = NormalDist.inverseF01(0.5 + confidence / 2);
+        double threshold = z / Math.sqrt(this.size);
+        for (int l = 0; l < maxLagSpacing; l++) {
+            if (Math.abs(autocorrelations[l]) < threshold) {
+                return l + 1;
             }
-            spaced = Sequence.getSpacedSequence(values, spacing);
-            runCounts = Sequence.getRunCounts(spaced, maxRun);
         }
+        Sim.fatalError("Needed lag spacing is too good");
 
-        return spacing;
+        return -1;
     }
 
     //TODO Possibly delete these
@@ -118,7 +118,13 @@ public class Statistic implements Serializable {
     /**
      * The underlying histogram used to make quantile estimates.
      */
-    private Histogram histogram;
+    private QuantileEstimator histogram;
+
+    /** The kind of histogram used to make quantile estimates. */
+    private HistogramType histogramType;
+
+    /** How the lag spacing is found at the end of calibration. */
+    private LagMethod lagMethod;
 
     /** The simple statistic used for simple statistical quantities. */
     private SimpleStatistic simpleStat;
@@ -132,6 +138,21 @@ public class Statistic implements Serializable {
     /** If this statistic was created by combining statistics. */
     private boolean combined;
 
+    /**
+     * How often (in kept samples) the statistic checks if it has
+     * converged and reports changes to its collection.
+     */
+    private int convergenceCheckInterval;
+
+    /** If the statistic last reported to its collection it was converged. */
+    private boolean reportedConverged;
+
+    /**
+     * If the statistic only tracks an output: it keeps every sample and
+     * never reports convergence, so it can't hold up the simulation.
+     */
+    private boolean tracked;
+
     /**
      * The possible states the statistic can be in.
      */
@@ -152,6 +173,38 @@ public class Statistic implements Serializable {
         STEADYSTATE
     }
 
+    /**
+     * The kinds of histogram a statistic can use for quantile estimates.
+     */
+    public enum HistogramType {
+        /**
+         * Equal width bins between bounds found during calibration.
+         * Samples outside the bounds are clamped to the edge bins.
+         */
+        LINEAR,
+
+        /**
+         * Log-linear bins with a fixed relative error and no bounds
+         * (see {@link LogLinearHistogram}). Better for heavy tails.
+         */
+        LOG_LINEAR
+    }
+
+    /**
+     * The ways a statistic can find the lag spacing that makes its
+     * samples appear independent.
+     */
+    public enum LagMethod {
+        /** The runs up and down test (see {@link Sequence}). */
+        RUNS_TEST,
+
+        /**
+         * The smallest lag with an autocorrelation not significantly
+         * different from zero. Cheaper than the runs test for large lags.
+         */
+        AUTOCORRELATION
+    }
+
     /**
      * Creates a new Statistic.
      *
@@ -178,7 +231,7 @@ public class Statistic implements Serializable {
                      final double theQuantile,
                      final double quantileAccuracy,
                      final SimpleStatistic aSimpleStat,
-                     final Histogram aHistogram,
+                     final QuantileEstimator aHistogram,
                      final int lagSpace,
                      final long theGoodSamples,
                      final long theTotalSamples,
@@ -192,6 +245,9 @@ public class Statistic implements Serializable {
         this.lag = lagSpace;
         this.simpleStat = aSimpleStat;
         this.histogram = aHistogram;
+        if (aHistogram instanceof LogLinearHistogram) {
+            this.histogramType = HistogramType.LOG_LINEAR;
+        }
         // TODO this isn't the right way to do this, fix it
         this.combined = true;
         this.steadyStateSamples = theGoodSamples;
@@ -267,8 +323,104 @@ public class Statistic implements Serializable {
         this.lagConfidence = .99;
         this.lag = 1;
         this.simpleStat = new SimpleStatistic();
-        this.calibrationSequence = new Sequence();
         this.calibrationSamples = 2500; // Originally: 5000;
+        this.calibrationSequence = new Sequence(this.calibrationSamples);
+        this.convergenceCheckInterval
+            = Constants.DEFAULT_CONVERGENCE_CHECK_INTERVAL;
+        this.reportedConverged = false;
+        this.tracked = false;
+        this.histogramType = HistogramType.LINEAR;
+        this.lagMethod = LagMethod.RUNS_TEST;
+    }
+
+    /**
+     * Sets how the lag spacing is found at the end of calibration.
+     *
+     * @param method - the method used to find the lag spacing
+     */
+    public void setLagMethod(final LagMethod method) {
+        this.lagMethod = method;
+    }
+
+    /**
+     * Gets how the lag spacing is found at the end of calibration.
+     *
+     * @return the method used to find the lag spacing
+     */
+    public LagMethod getLagMethod() {
+        return this.lagMethod;
+    }
+
+    /**
+     * Sets the kind of histogram used for quantile estimates.
+     * Must be set before the statistic reaches steady state.
+     *
+     * @param type - the kind of histogram to use
+     */
+    public void setHistogramType(final HistogramType type) {
+        if (this.phase == Phase.STEADYSTATE) {
+            Sim.fatalError("Can't change the histogram of " + this.statName
+                           + " after it reached steady state");
+        }
+        this.histogramType = type;
+        if (type == HistogramType.LOG_LINEAR) {
+            this.histogram = new LogLinearHistogram();
+        } else {
+            this.histogram = null;
+        }
+    }
+
+    /**
+     * Gets the kind of histogram used for quantile estimates.
+     *
+     * @return the kind of histogram used for quantile estimates
+     */
+    public HistogramType getHistogramType() {
+        return this.histogramType;
+    }
+
+    /**
+     * Sets how often (in kept samples) the statistic checks if it has
+     * converged. Smaller intervals end the simulation closer to the
+     * exact point of convergence at the cost of more checks.
+     *
+     * @param interval - the number of kept samples between checks
+     */
+    public void setConvergenceCheckInterval(final int interval) {
+        if (interval < 1) {
+            Sim.fatalError("Convergence check interval must be positive");
+        }
+        this.convergenceCheckInterval = interval;
+    }
+
+    /**
+     * Makes the statistic only track an output. A tracked statistic
+     * keeps every sample from the first, with no warm up, calibration
+     * or lag spacing, and never reports convergence to its collection.
+     * It uses a log-linear histogram, so negative samples count as zero
+     * in quantile estimates (the mean is exact).
+     * Must be set before any samples are added.
+     */
+    public void setTracked() {
+        if (this.totalSamples > 0) {
+            Sim.fatalError("Can't track " + this.statName
+                           + " after it has taken samples");
+        }
+        this.tracked = true;
+        this.lag = 1;
+        this.histogramType = HistogramType.LOG_LINEAR;
+        this.histogram = new LogLinearHistogram();
+        this.phase = Phase.STEADYSTATE;
+    }
+
+    /**
+     * Checks if the statistic only tracks an output
+     * (see {@link #setTracked()}).
+     *
+     * @return if the statistic only tracks an output
+     */
+    public boolean isTracked() {
+        return this.tracked;
     }
 
     //TODO comment
@@ -315,10 +467,13 @@ public class Statistic implements Serializable {
                 System.out.println("Creating histogram with min " + minValue
                         + " maxValue " + maxValue);
              // let's delay creating the histogram
-                this.histogram = new Histogram(10000,
-                                               minValue / 2,
-                                               maxValue * 2);
+                if (this.histogramType == HistogramType.LINEAR) {
+                    this.histogram = new Histogram(10000,
+                                                   minValue / 2,
+                                                   maxValue * 2);
+                }
                 this.phase = Phase.STEADYSTATE;
+                this.statCollection.reportSteadyState(this);
                 System.out.println(this.statName
                         + " entered steady state and only took 100 samples");
 
@@ -326,11 +481,17 @@ public class Statistic implements Serializable {
                        >= this.calibrationSamples) {
 
                 // Calibration is over
-                this.lag
-                    = this.calibrationSequence.calculateLagSpacing(
-                                                    maxLagSpacing,
-                                                    maxRun,
-                                                    lagConfidence);
+                if (this.lagMethod == LagMethod.AUTOCORRELATION) {
+                    this.lag = this.calibrationSequence
+                        .calculateLagSpacingByAutocorrelation(maxLagSpacing,
+                                                              lagConfidence);
+                } else {
+                    this.lag
+                        = this.calibrationSequence.calculateLagSpacing(
+                                                        maxLagSpacing,
+                                                        maxRun,
+                                                        lagConfidence);
+                }
 
                 if (this.lag < 0) {
                     Sim.fatalError("Couldn't find a valid lag spacing for "
@@ -347,6 +508,7 @@ public class Statistic implements Serializable {
                 }
 
                 this.phase = Phase.STEADYSTATE;
+                this.statCollection.reportSteadyState(this);
                 System.out.println(this.statName
                         + " entered steady state, lag spacing of " + this.lag);
             }
@@ -396,8 +558,8 @@ public class Statistic implements Serializable {
 
         SimpleStatistic combinedSimpleStat
             = this.simpleStat.combineSimpleStatistics(stat.simpleStat);
-        Histogram combinedHistogram
-            = this.histogram.combineHistogram(stat.histogram);
+        QuantileEstimator combinedHistogram
+            = this.histogram.combine(stat.histogram);
 
         long combinedGoodSamples = this.steadyStateSamples
                                    + stat.steadyStateSamples;
@@ -420,6 +582,9 @@ public class Statistic implements Serializable {
                                     combinedGoodSamples,
                                     combinedTotalSamples,
                                     combinedDiscardedSamples);
+        if (this.tracked) {
+            ((Statistic) combinedStatistic).tracked = true;
+        }
 
         return combinedStatistic;
     }
@@ -462,6 +627,25 @@ public class Statistic implements Serializable {
         this.simpleStat.addSample(value);
         this.histogram.addSample(value);
         this.steadyStateSamples++;
+
+        if (this.steadyStateSamples % this.convergenceCheckInterval == 0) {
+            this.checkConvergence();
+        }
+    }
+
+    /**
+     * Checks if the statistic has converged and reports any change
+     * to its statistics collection.
+     */
+    private void checkConvergence() {
+        if (this.tracked) {
+            return;
+        }
+        boolean converged = this.isConverged();
+        if (converged != this.reportedConverged) {
+            this.reportedConverged = converged;
+            this.statCollection.reportConverged(this, converged);
+        }
     }
 
     /**
@@ -637,21 +821,23 @@ public class Statistic implements Serializable {
      * @param xValues - the values of the underlying histogram
      */
     public void setHistogramXValues(final double[] xValues) {
+        this.histogramType = HistogramType.LINEAR;
         this.histogram = new Histogram(xValues);
     }
 
     /**
      * Get the values of the underlying histogram.
      *
-     * @return the values of the underlying histogram
+     * @return the values of the underlying histogram, or null if there
+     * is no histogram yet or it is not a linear histogram
      */
     public double[] getHistogramXValues() {
 
-        if (this.histogram == null) {
+        if (!(this.histogram instanceof Histogram)) {
             return null;
         }
 
-        return this.histogram.getXValues();
+        return ((Histogram) this.histogram).getXValues();
     }
 
     /**
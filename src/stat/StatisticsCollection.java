@@ -70,6 +70,18 @@ public class StatisticsCollection implements Serializable {
      */
     private Vector<Statistic> warmStats;
 
+    /**
+     * The number of statistics which must converge that last
+     * reported they were converged.
+     */
+    private int nConvergedStats;
+
+    /**
+     * The number of statistics which must converge that
+     * have reached steady state.
+     */
+    private int nSteadyStateStats;
+
     //TODO double check we really need these
     /** A fake statistic to return if an unknown statistic name is requested. */
     private FakeStatistic fakeStatistic;
@@ -89,6 +101,8 @@ public class StatisticsCollection implements Serializable {
             = new HashMap<TimeWeightedStatName, TimeWeightedStatistic>();
         this.fakeStatistic = new FakeStatistic();
         this.twFakeStatistic = new FakeTimeWeightedStatistic();
+        this.nConvergedStats = 0;
+        this.nSteadyStateStats = 0;
     }
 
     /**
@@ -103,6 +117,18 @@ public class StatisticsCollection implements Serializable {
         this();
         this.statsMap = aStatsMap;
         this.convergeStats = aConvergeStats;
+
+        // These statistics may already be converged
+        Iterator<Statistic> iter = this.convergeStats.iterator();
+        while (iter.hasNext()) {
+            Statistic stat = iter.next();
+            if (stat.isConverged()) {
+                this.nConvergedStats++;
+            }
+            if (stat.isSteadyState()) {
+                this.nSteadyStateStats++;
+            }
+        }
     }
 
     /**
@@ -143,18 +169,46 @@ public class StatisticsCollection implements Serializable {
      * @return if all the needed statistics have converged
      */
     public boolean allStatsConverged() {
+        return this.nConvergedStats == this.convergeStats.size();
+    }
 
-        boolean allConverged = true;
-        Iterator<Statistic> iter = this.convergeStats.iterator();
+    /**
+     * Reports that a statistic has become converged or is no longer
+     * converged. Statistics check this periodically as they take samples,
+     * so checking if all statistics are converged is just a comparison.
+     *
+     * @param statistic - the statistic to report
+     * @param converged - if the statistic is now converged
+     */
+    public void reportConverged(final Statistic statistic,
+                                final boolean converged) {
+        if (converged) {
+            this.nConvergedStats++;
+        } else {
+            this.nConvergedStats--;
+        }
+    }
 
+    /**
+     * Reports that a statistic has reached steady state.
+     *
+     * @param statistic - the statistic to report
+     */
+    public void reportSteadyState(final Statistic statistic) {
+        this.nSteadyStateStats++;
+    }
+
+    /**
+     * Sets how often (in kept samples) every statistic checks
+     * if it has converged.
+     *
+     * @param interval - the number of kept samples between checks
+     */
+    public void setConvergenceCheckInterval(final int interval) {
+        Iterator<Statistic> iter = this.convergeStats.iterator();
         while (iter.hasNext()) {
-            Statistic stat = iter.next();
-            if (!stat.isConverged()) {
-                allConverged = false;
-            }
+            iter.next().setConvergenceCheckInterval(interval);
         }
-
-        return allConverged;
     }
 
     /**
@@ -227,6 +281,35 @@ public class StatisticsCollection implements Serializable {
         this.convergeStats.add(stat);
     }
 
+    /**
+     * Adds a statistic which only tracks an output to the collection.
+     * It is not needed for the simulation to converge
+     * (see {@link Statistic#setTracked()}).
+     *
+     * @param name - the name of the statistic
+     * @param stat - the statistic
+     */
+    public void addTrackedStatistic(final StatName name,
+                                    final Statistic stat) {
+
+        if (this.statsMap.get(name) != null) {
+            Sim.fatalError("Already added " + name);
+        }
+
+        stat.setTracked();
+        this.statsMap.put(name, stat);
+    }
+
+    /**
+     * Checks if a statistic has been added to the collection.
+     *
+     * @param name - the name of the statistic
+     * @return if the statistic has been added
+     */
+    public boolean hasStat(final StatName name) {
+        return this.statsMap.containsKey(name);
+    }
+
     /**
      * Adds a time weighted statistic to the collection.
      *
@@ -289,17 +372,7 @@ public class StatisticsCollection implements Serializable {
      * @return if all the statistics are in steady state.
      */
     public boolean allStatsSteadyState() {
-        boolean allSteadyState = true;
-        Iterator<Statistic> iter = this.convergeStats.iterator();
-
-        while (iter.hasNext()) {
-            Statistic stat = iter.next();
-            if (!stat.isSteadyState()) {
-                allSteadyState = false;
-            }
-        }
-
-        return allSteadyState;
+        return this.nSteadyStateStats == this.convergeStats.size();
     }
 
     /**
@@ -320,7 +393,9 @@ public class StatisticsCollection implements Serializable {
             Statistic theirStat = stats.getStat(key);
             Statistic combinedStat = myStat.combineStatistics(theirStat);
             tempStatsMap.put(key, combinedStat);
-            tempConvergedStats.add(combinedStat);
+            if (!combinedStat.isTracked()) {
+                tempConvergedStats.add(combinedStat);
+            }
         }
         StatisticsCollection combinedCollection
             = new StatisticsCollection(
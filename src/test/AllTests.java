@@ -34,7 +34,22 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
+import test.core.EventQueueTest;
+import test.core.JobPoolTest;
+import test.core.RegDHandlerTest;
+import test.core.RegulationMarketTest;
+import test.datacenter.ClusterSchedulerTest;
+import test.datacenter.DataCenterTest;
+import test.datacenter.PowerCurveTest;
+import test.datacenter.RegulationTrackingControllerTest;
+import test.generator.BlockRandomTest;
+import test.generator.ModulatedArrivalGeneratorTest;
+import test.generator.RandomStreamFactoryTest;
+import test.generator.TraceGeneratorTest;
+import test.math.EmpiricalDistributionTest;
 import test.master.MasterTest;
+import test.master.ParallelExperimentRunnerTest;
+import test.master.ShardedExperimentRunnerTest;
 import test.stat.AllStatTests;
 
 /**
@@ -43,7 +58,14 @@ import test.stat.AllStatTests;
  * @author David Meisner (meisner@umich.edu)
  */
 @RunWith(Suite.class)
-@SuiteClasses({ AllStatTests.class, MasterTest.class })
+@SuiteClasses({ AllStatTests.class, EventQueueTest.class, JobPoolTest.class,
+    RegDHandlerTest.class, RegulationMarketTest.class,
+    ClusterSchedulerTest.class, DataCenterTest.class, PowerCurveTest.class,
+    RegulationTrackingControllerTest.class, BlockRandomTest.class,
+    RandomStreamFactoryTest.class, TraceGeneratorTest.class,
+    ModulatedArrivalGeneratorTest.class, EmpiricalDistributionTest.class,
+    MasterTest.class, ParallelExperimentRunnerTest.class,
+    ShardedExperimentRunnerTest.class })
 public class AllTests {
 
 }
@@ -0,0 +1,183 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package test;
+
+import core.Experiment;
+import core.ExperimentInput;
+import core.ExperimentOutput;
+import datacenter.DataCenter;
+import datacenter.Server;
+import generator.ConstantGenerator;
+import generator.ExponentialGenerator;
+import generator.MersenneTwister;
+
+/**
+ * Builds the small experiments the tests run.
+ * Every experiment is seeded the same way, so tests are repeatable.
+ */
+public final class TestExperiments {
+
+    /** The seed of every test experiment's random number generator. */
+    public static final int SEED = 1;
+
+    /**
+     * Not instantiable.
+     */
+    private TestExperiments() {
+
+    }
+
+    /**
+     * Creates an experiment whose input holds an empty data center.
+     *
+     * @param name - the name of the experiment
+     * @param output - the outputs of the experiment
+     * @return the experiment
+     */
+    public static Experiment create(final String name,
+                                    final ExperimentOutput output) {
+        ExperimentInput input = new ExperimentInput();
+        Experiment experiment = new Experiment(name,
+                                               new MersenneTwister(SEED),
+                                               input, output);
+        input.setDataCenter(new DataCenter(experiment));
+
+        return experiment;
+    }
+
+    /**
+     * Gets the data center of an experiment made by this class.
+     *
+     * @param experiment - the experiment
+     * @return the experiment's data center
+     */
+    public static DataCenter dataCenter(final Experiment experiment) {
+        return experiment.getInput().getDataCenter();
+    }
+
+    /**
+     * Creates a server with constant interarrival and service times.
+     * The server is not added to the data center.
+     *
+     * @param experiment - the experiment the server is part of
+     * @param nSockets - the number of sockets
+     * @param nCores - the number of cores per socket
+     * @param interarrivalTime - the time between arrivals (in seconds)
+     * @param serviceTime - the time to serve each job (in seconds)
+     * @return the server
+     */
+    public static Server newServer(final Experiment experiment,
+                                   final int nSockets,
+                                   final int nCores,
+                                   final double interarrivalTime,
+                                   final double serviceTime) {
+        return new Server(nSockets, nCores, experiment,
+                new ConstantGenerator(experiment.getRandom(),
+                                      interarrivalTime),
+                new ConstantGenerator(experiment.getRandom(), serviceTime));
+    }
+
+    /**
+     * Adds servers with constant interarrival and service times to an
+     * experiment's data center.
+     *
+     * @param experiment - the experiment
+     * @param nServers - the number of servers to add
+     * @param nSockets - the number of sockets per server
+     * @param nCores - the number of cores per socket
+     * @param interarrivalTime - the time between arrivals (in seconds)
+     * @param serviceTime - the time to serve each job (in seconds)
+     * @return the servers, in the order they were added
+     */
+    public static Server[] addServers(final Experiment experiment,
+                                      final int nServers,
+                                      final int nSockets,
+                                      final int nCores,
+                                      final double interarrivalTime,
+                                      final double serviceTime) {
+        Server[] servers = new Server[nServers];
+        for (int i = 0; i < nServers; i++) {
+            servers[i] = newServer(experiment, nSockets, nCores,
+                                   interarrivalTime, serviceTime);
+            dataCenter(experiment).addServer(servers[i]);
+        }
+
+        return servers;
+    }
+
+    /**
+     * Creates an experiment with one server with constant interarrival
+     * and service times.
+     *
+     * @param name - the name of the experiment
+     * @param output - the outputs of the experiment
+     * @param nSockets - the number of sockets
+     * @param nCores - the number of cores per socket
+     * @param interarrivalTime - the time between arrivals (in seconds)
+     * @param serviceTime - the time to serve each job (in seconds)
+     * @return the experiment
+     */
+    public static Experiment singleServer(final String name,
+                                          final ExperimentOutput output,
+                                          final int nSockets,
+                                          final int nCores,
+                                          final double interarrivalTime,
+                                          final double serviceTime) {
+        Experiment experiment = create(name, output);
+        addServers(experiment, 1, nSockets, nCores, interarrivalTime,
+                   serviceTime);
+
+        return experiment;
+    }
+
+    /**
+     * Creates an M/M/1 experiment: one single-core server with
+     * exponential interarrival and service times.
+     *
+     * @param name - the name of the experiment
+     * @param output - the outputs of the experiment
+     * @param arrivalRate - the rate jobs arrive at (per second)
+     * @param serviceRate - the rate jobs are served at (per second)
+     * @return the experiment
+     */
+    public static Experiment singleExponentialServer(
+            final String name,
+            final ExperimentOutput output,
+            final double arrivalRate,
+            final double serviceRate) {
+        Experiment experiment = create(name, output);
+        dataCenter(experiment).addServer(new Server(1, 1, experiment,
+                new ExponentialGenerator(experiment.getRandom(), arrivalRate),
+                new ExponentialGenerator(experiment.getRandom(),
+                                         serviceRate)));
+
+        return experiment;
+    }
+
+}
@@ -0,0 +1,403 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package test.core;
+
+import generator.MTRandom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import core.AbstractEvent;
+import core.Event;
+import core.EventQueue;
+import core.EventQueue.QueueType;
+
+/**
+ * Tests for the {@link EventQueue} class.
+ */
+public class EventQueueTest extends TestCase {
+
+    /**
+     * An event which does nothing, used to fill the queue.
+     */
+    private static final class TestEvent extends AbstractEvent {
+
+        /** The serialization id. */
+        private static final long serialVersionUID = 1L;
+
+        /** The order the event was created in. */
+        private int order;
+
+        /**
+         * Creates a new TestEvent.
+         *
+         * @param time - the time the event occurs
+         * @param theOrder - the order the event was created in
+         */
+        TestEvent(final double time, final int theOrder) {
+            super(time, null);
+            this.order = theOrder;
+        }
+
+        @Override
+        public void process() {
+
+        }
+
+    }
+
+    /**
+     * Checks a queue returns events in time order, breaking ties
+     * by the order they were added.
+     *
+     * @param queueType - the type of queue to test
+     */
+    private void checkOrdering(final QueueType queueType) {
+        EventQueue queue = new EventQueue(queueType);
+        MTRandom random = new MTRandom(1);
+        ArrayList<TestEvent> expected = new ArrayList<TestEvent>();
+        int nEvents = 5000;
+        for (int i = 0; i < nEvents; i++) {
+            // Coarse times so plenty of events share a time
+            double time = Math.floor(random.nextDouble() * 100) / 10.0;
+            TestEvent event = new TestEvent(time, i);
+            expected.add(event);
+            queue.addEvent(event);
+        }
+        Collections.sort(expected, new Comparator<TestEvent>() {
+            public int compare(final TestEvent e1, final TestEvent e2) {
+                int timeOrder = Double.compare(e1.getTime(), e2.getTime());
+                if (timeOrder != 0) {
+                    return timeOrder;
+                }
+                return e1.order - e2.order;
+            }
+        });
+
+        assertEquals(nEvents, queue.size());
+        for (int i = 0; i < nEvents; i++) {
+            assertSame(expected.get(i), queue.nextEvent());
+        }
+        assertNull(queue.nextEvent());
+    }
+
+    /**
+     * Checks events can be cancelled and events added while
+     * dequeuing are still returned in order.
+     *
+     * @param queueType - the type of queue to test
+     */
+    private void checkCancelAndInterleave(final QueueType queueType) {
+        EventQueue queue = new EventQueue(queueType);
+        MTRandom random = new MTRandom(2);
+        ArrayList<TestEvent> cancelled = new ArrayList<TestEvent>();
+        for (int i = 0; i < 1000; i++) {
+            TestEvent event = new TestEvent(random.nextDouble(), i);
+            queue.addEvent(event);
+            if (i % 3 == 0) {
+                cancelled.add(event);
+            }
+        }
+        for (int i = 0; i < cancelled.size(); i++) {
+            assertTrue(cancelled.get(i).isQueued());
+            queue.cancelEvent(cancelled.get(i));
+            assertFalse(cancelled.get(i).isQueued());
+        }
+
+        double lastTime = 0.0;
+        int nDequeued = 0;
+        Event event = queue.nextEvent();
+        TestEvent pending = null;
+        while (event != null) {
+            assertTrue(event.getTime() >= lastTime);
+            assertFalse(cancelled.contains(event));
+            assertFalse(((AbstractEvent) event).isQueued());
+            lastTime = event.getTime();
+            nDequeued++;
+            // Schedule some follow on events like a simulation would,
+            // cancelling every other one before it happens
+            if (pending != null && pending.isQueued()) {
+                queue.cancelEvent(pending);
+                pending = null;
+            }
+            if (nDequeued < 2000) {
+                TestEvent followOn = new TestEvent(lastTime
+                        + random.nextDouble() * .01, 0);
+                queue.addEvent(followOn);
+                if (nDequeued % 2 == 0) {
+                    pending = followOn;
+                }
+            }
+            event = queue.nextEvent();
+        }
+        assertEquals(0, queue.size());
+    }
+
+    /**
+     * Checks events can be moved earlier and later in a queue,
+     * and that cancelled events can be rescheduled.
+     *
+     * @param queueType - the type of queue to test
+     */
+    private void checkReschedule(final QueueType queueType) {
+        EventQueue queue = new EventQueue(queueType);
+        MTRandom random = new MTRandom(3);
+        ArrayList<TestEvent> events = new ArrayList<TestEvent>();
+        for (int i = 0; i < 1000; i++) {
+            TestEvent event = new TestEvent(random.nextDouble(), i);
+            events.add(event);
+            queue.addEvent(event);
+        }
+        for (int i = 0; i < events.size(); i++) {
+            TestEvent event = events.get(i);
+            if (i % 5 == 0) {
+                queue.cancelEvent(event);
+            }
+            queue.reschedule(event, event.getTime() * 2 * random.nextDouble());
+        }
+        assertEquals(events.size(), queue.size());
+
+        double lastTime = 0.0;
+        for (int i = 0; i < events.size(); i++) {
+            Event event = queue.nextEvent();
+            assertTrue(event.getTime() >= lastTime);
+            lastTime = event.getTime();
+        }
+        assertNull(queue.nextEvent());
+    }
+
+    /**
+     * Checks draining a queue up to a series of barrier times gives the
+     * same order as draining it directly and leaves later events queued.
+     *
+     * @param queueType - the type of queue to test
+     */
+    private void checkBarriers(final QueueType queueType) {
+        EventQueue queue = new EventQueue(queueType);
+        EventQueue reference = new EventQueue(queueType);
+        MTRandom random = new MTRandom(4);
+        int nEvents = 2000;
+        for (int i = 0; i < nEvents; i++) {
+            double time = Math.floor(random.nextDouble() * 100) / 10.0;
+            queue.addEvent(new TestEvent(time, i));
+            reference.addEvent(new TestEvent(time, i));
+        }
+
+        int nDequeued = 0;
+        for (double barrier = .25; nDequeued < nEvents; barrier += .25) {
+            // Repeated barriers at the same time must not disturb ties
+            assertNull(queue.nextEventBefore(0.0));
+            Event event = queue.nextEventBefore(barrier);
+            while (event != null) {
+                assertTrue(event.getTime() < barrier);
+                TestEvent expected = (TestEvent) reference.nextEvent();
+                assertEquals(expected.order, ((TestEvent) event).order);
+                nDequeued++;
+                event = queue.nextEventBefore(barrier);
+            }
+            assertEquals(nEvents - nDequeued, queue.size());
+        }
+        assertNull(queue.nextEvent());
+    }
+
+    /**
+     * Checks a queue refuses to cancel or move an event held by another
+     * queue, and that both queues are left intact.
+     *
+     * @param queueType - the type of queue to test
+     */
+    private void checkForeignEvent(final QueueType queueType) {
+        EventQueue queue = new EventQueue(queueType);
+        EventQueue other = new EventQueue(queueType);
+        TestEvent event = new TestEvent(1.0, 0);
+        TestEvent otherEvent = new TestEvent(1.0, 1);
+        queue.addEvent(event);
+        other.addEvent(otherEvent);
+
+        try {
+            other.cancelEvent(event);
+            fail("An event was cancelled from the wrong queue");
+        } catch (RuntimeException e) {
+            assertTrue(event.isQueued());
+        }
+        try {
+            other.reschedule(event, 2.0);
+            fail("An event was rescheduled in the wrong queue");
+        } catch (RuntimeException e) {
+            assertEquals(1.0, event.getTime());
+        }
+        assertEquals(1, queue.size());
+        assertEquals(1, other.size());
+        assertSame(otherEvent, other.nextEvent());
+        assertSame(event, queue.nextEvent());
+
+        // Once the event has left its queue another queue may take it
+        other.addEvent(event);
+        other.cancelEvent(event);
+        assertEquals(0, other.size());
+    }
+
+    /**
+     * Checks a queue refuses to add an event that is already queued,
+     * in it or in another queue, and is left intact.
+     *
+     * @param queueType - the type of queue to test
+     */
+    private void checkDoubleAdd(final QueueType queueType) {
+        EventQueue queue = new EventQueue(queueType);
+        EventQueue other = new EventQueue(queueType);
+        TestEvent event = new TestEvent(1.0, 0);
+        TestEvent later = new TestEvent(2.0, 1);
+        queue.addEvent(event);
+        queue.addEvent(later);
+
+        try {
+            queue.addEvent(event);
+            fail("An event was added twice");
+        } catch (RuntimeException e) {
+            assertEquals(2, queue.size());
+        }
+        try {
+            other.addEvent(event);
+            fail("An event was added to a second queue");
+        } catch (RuntimeException e) {
+            assertEquals(0, other.size());
+        }
+
+        assertSame(event, queue.nextEvent());
+        assertSame(later, queue.nextEvent());
+        assertNull(queue.nextEvent());
+
+        // Once it has been dequeued the event may be added again
+        queue.addEvent(event);
+        assertSame(event, queue.nextEvent());
+    }
+
+    /**
+     * Tests the binary heap queue rejects events added twice.
+     */
+    @Test
+    public void testBinaryHeapDoubleAdd() {
+        this.checkDoubleAdd(QueueType.BINARY_HEAP);
+    }
+
+    /**
+     * Tests the calendar queue rejects events added twice.
+     */
+    @Test
+    public void testCalendarQueueDoubleAdd() {
+        this.checkDoubleAdd(QueueType.CALENDAR_QUEUE);
+    }
+
+    /**
+     * Tests the binary heap queue rejects events from another queue.
+     */
+    @Test
+    public void testBinaryHeapForeignEvent() {
+        this.checkForeignEvent(QueueType.BINARY_HEAP);
+    }
+
+    /**
+     * Tests the calendar queue rejects events from another queue.
+     */
+    @Test
+    public void testCalendarQueueForeignEvent() {
+        this.checkForeignEvent(QueueType.CALENDAR_QUEUE);
+    }
+
+    /**
+     * Tests barriers on the binary heap queue.
+     */
+    @Test
+    public void testBinaryHeapBarriers() {
+        this.checkBarriers(QueueType.BINARY_HEAP);
+    }
+
+    /**
+     * Tests barriers on the calendar queue.
+     */
+    @Test
+    public void testCalendarQueueBarriers() {
+        this.checkBarriers(QueueType.CALENDAR_QUEUE);
+    }
+
+    /**
+     * Tests ordering of the binary heap queue.
+     */
+    @Test
+    public void testBinaryHeapOrdering() {
+        this.checkOrdering(QueueType.BINARY_HEAP);
+    }
+
+    /**
+     * Tests ordering of the calendar queue.
+     */
+    @Test
+    public void testCalendarQueueOrdering() {
+        this.checkOrdering(QueueType.CALENDAR_QUEUE);
+    }
+
+    /**
+     * Tests cancelling events in the binary heap queue.
+     */
+    @Test
+    public void testBinaryHeapCancel() {
+        this.checkCancelAndInterleave(QueueType.BINARY_HEAP);
+    }
+
+    /**
+     * Tests cancelling events in the calendar queue.
+     */
+    @Test
+    public void testCalendarQueueCancel() {
+        this.checkCancelAndInterleave(QueueType.CALENDAR_QUEUE);
+    }
+
+    /**
+     * Tests rescheduling events in the binary heap queue.
+     */
+    @Test
+    public void testBinaryHeapReschedule() {
+        this.checkReschedule(QueueType.BINARY_HEAP);
+    }
+
+    /**
+     * Tests rescheduling events in the calendar queue.
+     */
+    @Test
+    public void testCalendarQueueReschedule() {
+        this.checkReschedule(QueueType.CALENDAR_QUEUE);
+    }
+
+}
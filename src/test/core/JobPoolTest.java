@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package test.core;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import test.TestExperiments;
+
+import core.Experiment;
+import core.ExperimentOutput;
+import core.Job;
+import core.JobPool;
+import datacenter.Server;
+
+/**
+ * Tests for the {@link JobPool} class.
+ */
+public class JobPoolTest extends TestCase {
+
+    /**
+     * Creates an experiment with one server which has a job arrive
+     * every second and takes 2.5 seconds to serve it.
+     *
+     * @return the experiment
+     */
+    private Experiment createExperiment() {
+        return TestExperiments.singleServer("Job pool test",
+                                            new ExperimentOutput(),
+                                            1, 4, 1.0, 2.5);
+    }
+
+    /**
+     * Tests that jobs are reused once they finish, so only as many jobs
+     * are allocated as are ever in the system at once.
+     */
+    @Test
+    public void testRecyclesJobs() {
+        Experiment experiment = this.createExperiment();
+        experiment.initialize();
+        experiment.runUntil(1000.0);
+
+        // 1000 jobs arrive, but no more than 4 are ever in the system
+        assertTrue(experiment.getNEventsSimulated() > 1900);
+        assertTrue(experiment.getJobPool().getNJobsAllocated() <= 4);
+    }
+
+    /**
+     * Tests that in debug mode a job which has finished can not be used.
+     */
+    @Test
+    public void testDetectsUseAfterRelease() {
+        Experiment experiment = this.createExperiment();
+        JobPool jobPool = experiment.getJobPool();
+        jobPool.setDebug(true);
+        experiment.initialize();
+
+        Job job = jobPool.acquireJob(1.0);
+        Server server = experiment.getDataCenter().getServers().get(0);
+        server.insertJob(0.0, job);
+        assertFalse(job.isReleased());
+        experiment.runUntil(10.0);
+        assertTrue(job.isReleased());
+
+        // A released job is never handed out again in debug mode
+        assertNotSame(job, jobPool.acquireJob(1.0));
+
+        try {
+            job.markStart(10.0);
+            fail("A released job was used");
+        } catch (RuntimeException e) {
+            assertTrue(job.isReleased());
+        }
+    }
+
+}
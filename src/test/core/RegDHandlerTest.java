@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package test.core;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import core.RegDHandler;
+
+/**
+ * Tests for the {@link RegDHandler} class.
+ */
+public class RegDHandlerTest extends TestCase {
+
+    /**
+     * Tests lookups on evenly spaced samples, including wrapping around.
+     */
+    @Test
+    public void testEvenlySpaced() {
+        RegDHandler signal = new RegDHandler(new double[] {.1, -.2, .5}, 2.0);
+        assertEquals(6.0, signal.getPeriod());
+        assertEquals(.1, signal.getSignal(0.0));
+        assertEquals(.1, signal.getSignal(1.999));
+        assertEquals(-.2, signal.getSignal(2.0));
+        assertEquals(.5, signal.getSignal(5.5));
+        assertEquals(.1, signal.getSignal(6.0));
+        assertEquals(-.2, signal.getSignal(3602.0 * 3 + 2.0));
+        assertEquals(1.0, signal.getMileage(100.0), 1e-12);
+
+        // Evenly spaced times are detected
+        RegDHandler timed = new RegDHandler(new double[] {0, 2, 4},
+                                            new double[] {.1, -.2, .5});
+        for (double t = 0; t < 20; t += .25) {
+            assertEquals(signal.getSignal(t), timed.getSignal(t));
+        }
+    }
+
+    /**
+     * Tests lookups on unevenly spaced samples.
+     */
+    @Test
+    public void testUnevenlySpaced() {
+        RegDHandler signal = new RegDHandler(new double[] {0, 1, 5, 6},
+                                             new double[] {1, 2, 3, 4});
+        assertEquals(7.0, signal.getPeriod());
+        assertEquals(1.0, signal.getSignal(.5));
+        assertEquals(2.0, signal.getSignal(1.0));
+        assertEquals(2.0, signal.getSignal(4.9));
+        assertEquals(3.0, signal.getSignal(5.0));
+        assertEquals(4.0, signal.getSignal(6.9));
+        assertEquals(1.0, signal.getSignal(7.0));
+        assertEquals(3.0, signal.getMileage(0.0));
+    }
+
+    /**
+     * Tests the default signal is the regd files one hour after another.
+     *
+     * @throws Exception if the files can't be read
+     */
+    @Test
+    public void testDefaultSignal() throws Exception {
+        String[] files = {"regd_midreg1", "regd_midreg2", "regd_highreg"};
+        RegDHandler signal = RegDHandler.getDefault();
+        assertSame(signal, RegDHandler.getDefault());
+        for (int hour = 0; hour < files.length; hour++) {
+            BufferedReader reader = new BufferedReader(
+                    new FileReader("workloads/" + files[hour]));
+            double time = hour * 3600.0;
+            double mileage = 0.0d;
+            double last = Double.NaN;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                double value = Double.parseDouble(line.trim());
+                assertEquals(value, RegDHandler.getRegDSignal(time + 1.0));
+                if (!Double.isNaN(last)) {
+                    mileage += Math.abs(value - last);
+                }
+                last = value;
+                time += 2.0;
+            }
+            reader.close();
+            assertEquals(mileage,
+                         RegDHandler.getCurrentMileage(hour * 3600.0), 1e-9);
+        }
+        assertEquals(10800.0, signal.getPeriod());
+    }
+
+}
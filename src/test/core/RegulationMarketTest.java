@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package test.core;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import test.TestExperiments;
+
+import core.Experiment;
+import core.ExperimentOutput;
+import core.MarketSampleEvent;
+import core.RegDHandler;
+import core.RegulationMarket;
+import core.Constants.StatName;
+import stat.Statistic;
+
+/**
+ * Tests for the {@link RegulationMarket} class.
+ */
+public class RegulationMarketTest extends TestCase {
+
+    /**
+     * Tests hourly lookups and wrapping around the end of the trace.
+     */
+    @Test
+    public void testHourlyPrices() {
+        RegulationMarket market = new RegulationMarket(
+                new double[] {10, 20},
+                new double[] {1, 2},
+                new double[] {.5, .25},
+                new double[] {1, .5},
+                new double[] {1, 2});
+        RegDHandler signal = new RegDHandler(new double[] {0, 1, 0, 1},
+                                             1800.0);
+        assertEquals(10.0, market.getElectricityCost(3599.0));
+        assertEquals(20.0, market.getElectricityCost(3600.0));
+        assertEquals(10.0, market.getElectricityCost(7200.0));
+
+        // Each hour of the signal has a mileage of 1
+        assertEquals((1 + .5 * 1) * 1 * 1,
+                     market.getRewardRate(10.0, signal), 1e-12);
+        assertEquals((2 + .25 * 1) * 2 * .5,
+                     market.getRewardRate(5000.0, signal), 1e-12);
+    }
+
+    /**
+     * Tests that the default market follows reward-cost.prn.
+     */
+    @Test
+    public void testDefaultMarket() {
+        RegulationMarket market = RegulationMarket.getDefault();
+        assertEquals(744, market.getNHours());
+        assertEquals(259.865751, market.getElectricityCost(0.0));
+        assertEquals(112.886788, market.getElectricityCost(3600.0));
+        double mileage = RegDHandler.getCurrentMileage(0.0);
+        assertEquals(227.9 + 2.46 * mileage,
+                     RegulationMarket.getReward(0.0), 1e-9);
+        assertEquals(2 * 259.865751,
+                     RegulationMarket.getCostofConsumption(2.0, 10.0), 1e-9);
+    }
+
+    /**
+     * Tests that sampling the market in an experiment records the cost
+     * and reward samples without holding up convergence.
+     */
+    @Test
+    public void testMarketSampling() {
+        Experiment experiment = TestExperiments.singleServer("Market test",
+                new ExperimentOutput(), 1, 2, 1.0, 0.5);
+        experiment.initialize();
+
+        MarketSampleEvent market = experiment.sampleRegulationMarket(5.0, 2.0);
+        experiment.runUntil(49.0);
+
+        // Samples at 0, 5, ..., 45
+        assertEquals(10, market.getNSamples());
+        Statistic cost = experiment.getStats().getStat(StatName.MARKET_COST);
+        Statistic reward
+            = experiment.getStats().getStat(StatName.MARKET_REWARD);
+        assertTrue(cost.isTracked());
+        assertEquals(10, cost.getGoodSamples());
+        assertEquals(10, reward.getGoodSamples());
+        assertEquals(market.getTotalCost(), cost.getAverage() * 10, 1e-9);
+        assertEquals(market.getTotalReward(), reward.getAverage() * 10,
+                     1e-9);
+        assertTrue(market.getTotalReward() > 0);
+
+        // Tracked outputs don't need to converge
+        assertTrue(experiment.getStats().allStatsConverged());
+    }
+
+}
@@ -0,0 +1,183 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package test.datacenter;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import test.TestExperiments;
+
+import core.Experiment;
+import core.ExperimentOutput;
+import core.Job;
+import datacenter.ClusterScheduler;
+import datacenter.DataCenter;
+import datacenter.DataCenter.SchedulingPolicy;
+import datacenter.JoinShortestQueueScheduler;
+import datacenter.LeastWorkLeftScheduler;
+import datacenter.PowerOfDChoicesScheduler;
+import datacenter.RoundRobinScheduler;
+import datacenter.Server;
+
+/**
+ * Tests for the {@link ClusterScheduler} implementations.
+ */
+public class ClusterSchedulerTest extends TestCase {
+
+    /** The data center the jobs are dispatched in. */
+    private DataCenter dataCenter;
+
+    /** The servers of the data center. */
+    private Server[] servers;
+
+    /** The source of randomness. */
+    private Random random;
+
+    /**
+     * Builds a data center of three single-core servers.
+     */
+    @Override
+    protected void setUp() {
+        Experiment experiment = TestExperiments.create("Scheduler test",
+                new ExperimentOutput());
+        this.random = experiment.getRandom();
+        this.dataCenter = TestExperiments.dataCenter(experiment);
+        this.servers = TestExperiments.addServers(experiment, 3, 1, 1,
+                                                  1.0, 1.0);
+    }
+
+    /**
+     * Dispatches a job with a scheduler and inserts it.
+     *
+     * @param scheduler - the scheduler to use
+     * @param size - the size of the job
+     * @return the server the job went to
+     */
+    private Server dispatch(final ClusterScheduler scheduler,
+                            final double size) {
+        Job job = new Job(size);
+        Server server = scheduler.selectServer(0.0, job, this.dataCenter,
+                                               null);
+        server.insertJob(0.0, job);
+
+        return server;
+    }
+
+    /**
+     * Tests that round robin cycles through the servers.
+     */
+    @Test
+    public void testRoundRobin() {
+        ClusterScheduler scheduler = new RoundRobinScheduler();
+        for (int i = 0; i < 7; i++) {
+            assertSame(this.servers[i % 3], this.dispatch(scheduler, 1.0));
+        }
+    }
+
+    /**
+     * Tests that JSQ balances the number of jobs.
+     */
+    @Test
+    public void testJoinShortestQueue() {
+        ClusterScheduler scheduler = new JoinShortestQueueScheduler();
+        this.servers[0].insertJob(0.0, new Job(1.0));
+        assertSame(this.servers[1], this.dispatch(scheduler, 5.0));
+        assertSame(this.servers[2], this.dispatch(scheduler, 5.0));
+        assertSame(this.servers[0], this.dispatch(scheduler, 5.0));
+        int[] expected = {2, 1, 1};
+        for (int i = 0; i < this.servers.length; i++) {
+            assertEquals(expected[i], this.servers[i].getJobsInService()
+                                      + this.servers[i].getQueueLength());
+        }
+    }
+
+    /**
+     * Tests that least work left looks at job sizes, not counts.
+     */
+    @Test
+    public void testLeastWorkLeft() {
+        ClusterScheduler scheduler = new LeastWorkLeftScheduler();
+        this.servers[0].insertJob(0.0, new Job(1.0));
+        this.servers[0].insertJob(0.0, new Job(1.0));
+        this.servers[1].insertJob(0.0, new Job(10.0));
+        this.servers[2].insertJob(0.0, new Job(5.0));
+        assertEquals(2.0, this.servers[0].getRemainingWork(0.0), 1e-12);
+        assertEquals(5.0, this.servers[2].getRemainingWork(0.0), 1e-12);
+        assertEquals(4.0, this.servers[2].getRemainingWork(1.0), 1e-12);
+        assertSame(this.servers[0], this.dispatch(scheduler, 4.0));
+        assertSame(this.servers[2], this.dispatch(scheduler, 1.0));
+    }
+
+    /**
+     * Tests that power of d choices with d = #servers acts like JSQ
+     * and with d = 1 acts like random dispatch.
+     */
+    @Test
+    public void testPowerOfDChoices() {
+        this.servers[0].insertJob(0.0, new Job(1.0));
+        this.servers[2].insertJob(0.0, new Job(1.0));
+        ClusterScheduler scheduler
+            = new PowerOfDChoicesScheduler(this.random, 64);
+        assertSame(this.servers[1], this.dispatch(scheduler, 1.0));
+
+        scheduler = new PowerOfDChoicesScheduler(this.random, 1);
+        int[] counts = new int[this.servers.length];
+        for (int i = 0; i < 3000; i++) {
+            Server server = scheduler.selectServer(0.0, new Job(1.0),
+                                                   this.dataCenter, null);
+            for (int j = 0; j < this.servers.length; j++) {
+                if (server == this.servers[j]) {
+                    counts[j]++;
+                }
+            }
+        }
+        for (int count : counts) {
+            assertTrue(count > 800 && count < 1200);
+        }
+    }
+
+    /**
+     * Tests that UNIFORM keeps jobs at their arrival server and spreads
+     * centrally arriving jobs.
+     */
+    @Test
+    public void testUniform() {
+        ClusterScheduler scheduler = SchedulingPolicy.UNIFORM;
+        assertSame(this.servers[2],
+                   scheduler.selectServer(0.0, new Job(1.0), this.dataCenter,
+                                          this.servers[2]));
+        assertNotNull(scheduler.selectServer(0.0, new Job(1.0),
+                                             this.dataCenter, null));
+        assertSame(SchedulingPolicy.UNIFORM,
+                   this.dataCenter.getClusterScheduler());
+    }
+
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package test.datacenter;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import test.TestExperiments;
+
+import core.Experiment;
+import core.ExperimentOutput;
+import core.Job;
+import datacenter.DataCenter;
+import datacenter.Server;
+
+/**
+ * Tests for the {@link DataCenter} class.
+ */
+public class DataCenterTest extends TestCase {
+
+    /**
+     * Sums the power of every server in a datacenter.
+     *
+     * @param dataCenter - the datacenter
+     * @return the total power of the servers
+     */
+    private double sumPower(final DataCenter dataCenter) {
+        double power = 0.0d;
+        for (Server server : dataCenter.getServers()) {
+            power += server.getPower();
+        }
+
+        return power;
+    }
+
+    /**
+     * Tests that the incrementally maintained cluster power follows
+     * changes to the servers.
+     */
+    @Test
+    public void testClusterPower() {
+        Experiment experiment = TestExperiments.create("Cluster power test",
+                new ExperimentOutput());
+        DataCenter dataCenter = TestExperiments.dataCenter(experiment);
+        assertEquals(0.0, dataCenter.getClusterPower());
+
+        Server[] servers = TestExperiments.addServers(experiment, 3, 2, 2,
+                                                      1.0, 1.0);
+        assertEquals(this.sumPower(dataCenter), dataCenter.getClusterPower(),
+                     1e-9);
+
+        servers[0].setCoreIdlePower(3.0);
+        assertEquals(this.sumPower(dataCenter), dataCenter.getClusterPower(),
+                     1e-9);
+
+        servers[1].disableSockets(0.0, 1);
+        assertEquals(this.sumPower(dataCenter), dataCenter.getClusterPower(),
+                     1e-9);
+
+        servers[1].enableSockets(1.0);
+        servers[2].setCoreIdlePower(0.0);
+        assertEquals(this.sumPower(dataCenter), dataCenter.getClusterPower(),
+                     1e-9);
+    }
+
+    /**
+     * Tests that PACK picks the most loaded server with room and keeps
+     * following the servers as jobs arrive.
+     */
+    @Test
+    public void testPackingTarget() {
+        Experiment experiment = TestExperiments.create("Packing test",
+                new ExperimentOutput());
+        DataCenter dataCenter = TestExperiments.dataCenter(experiment);
+        Server[] servers = TestExperiments.addServers(experiment, 3, 1, 2,
+                                                      1.0, 1.0);
+
+        // All idle: ties go to the first server
+        assertSame(servers[0], dataCenter.getPackingTargetServer(servers[2]));
+        assertEquals(3, dataCenter.numServersIdle());
+
+        servers[1].insertJob(0.0, new Job(1.0));
+        assertSame(servers[1], dataCenter.getPackingTargetServer(servers[2]));
+        assertEquals(2, dataCenter.numServersIdle());
+
+        // Once full, the next most loaded server with room is picked
+        servers[1].insertJob(0.0, new Job(1.0));
+        assertSame(servers[0], dataCenter.getPackingTargetServer(servers[2]));
+        servers[2].insertJob(0.0, new Job(1.0));
+        assertSame(servers[2], dataCenter.getPackingTargetServer(servers[0]));
+
+        // With every server full the least loaded one is picked
+        servers[2].insertJob(0.0, new Job(1.0));
+        servers[0].insertJob(0.0, new Job(1.0));
+        servers[0].insertJob(0.0, new Job(1.0));
+        servers[1].insertJob(0.0, new Job(1.0));
+        assertSame(servers[2], dataCenter.getPackingTargetServer(servers[1]));
+        assertEquals(0, dataCenter.numServersIdle());
+    }
+
+}
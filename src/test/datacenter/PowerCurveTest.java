@@ -0,0 +1,84 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package test.datacenter;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import core.DataImport;
+import datacenter.PowerCurve;
+
+/**
+ * Tests for the {@link PowerCurve} class.
+ */
+public class PowerCurveTest extends TestCase {
+
+    /**
+     * Tests exact points, interpolation and the implicit zero point.
+     */
+    @Test
+    public void testInterpolation() {
+        TreeMap<Double, Double> points = new TreeMap<Double, Double>();
+        points.put(.5, 10.0);
+        points.put(1.0, 30.0);
+        PowerCurve curve = new PowerCurve(points);
+
+        assertEquals(3, curve.getNPoints());
+        assertEquals(0.0, curve.getPower(0.0));
+        assertEquals(5.0, curve.getPower(.25), 1e-12);
+        assertEquals(10.0, curve.getPower(.5));
+        assertEquals(20.0, curve.getPower(.75), 1e-12);
+        assertEquals(30.0, curve.getPower(1.0));
+    }
+
+    /**
+     * Tests that server models are loaded from their own rows and matches
+     * the imported points.
+     */
+    @Test
+    public void testModels() {
+        PowerCurve curve = PowerCurve.getDefault();
+        assertSame(curve, PowerCurve.load(PowerCurve.DEFAULT_POWER_FILE,
+                                          DataImport.DEFAULT_POWER_MODEL));
+        TreeMap<Double, Double> points
+            = DataImport.importPowerConsumptionData("AvgPower.csv");
+        for (Map.Entry<Double, Double> entry : points.entrySet()) {
+            assertEquals(entry.getValue(), curve.getPower(entry.getKey()));
+        }
+        assertEquals(19.8868 / 1e6, curve.getPower(points.firstKey()));
+
+        PowerCurve slow = PowerCurve.load("AvgPower.csv", "1.2GHz");
+        assertNotSame(curve, slow);
+        assertEquals(45.0893 / 1e6, slow.getPower(1.0), 1e-15);
+    }
+
+}
@@ -0,0 +1,211 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package test.datacenter;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import test.TestExperiments;
+
+import core.Experiment;
+import core.ExperimentOutput;
+import core.RegDHandler;
+import core.RegulationMarket;
+import core.Constants.StatName;
+import datacenter.PowerCappingEnforcer;
+import datacenter.RegulationTrackingController;
+import datacenter.Server;
+import stat.Statistic;
+import stat.StatisticsCollection;
+
+/**
+ * Tests for the {@link RegulationTrackingController} class.
+ */
+public class RegulationTrackingControllerTest extends TestCase {
+
+    /** The regulation capacity used in the tests (in watts). */
+    private static final double CAPACITY = 10.0;
+
+    /** The experiment the servers are part of. */
+    private Experiment experiment;
+
+    /** The servers being controlled. */
+    private Server[] servers;
+
+    /**
+     * Builds an experiment with two idle two-socket servers.
+     */
+    @Override
+    protected void setUp() {
+        this.experiment = TestExperiments.create("Regulation tracking test",
+                new ExperimentOutput());
+        this.servers = new Server[2];
+        for (int i = 0; i < this.servers.length; i++) {
+            this.servers[i] = TestExperiments.newServer(this.experiment, 2, 1,
+                                                        1.0, 1.0);
+        }
+    }
+
+    /**
+     * Creates a controller over the servers that follows a constant signal.
+     *
+     * @param value - the value of the signal
+     * @param baseline - the baseline power (in watts)
+     * @return the controller
+     */
+    private RegulationTrackingController newController(final double value,
+                                                       final double baseline) {
+        RegulationTrackingController controller
+            = new RegulationTrackingController(this.experiment, 1.0,
+                                               baseline, CAPACITY);
+        controller.setSignal(new RegDHandler(new double[] {value, value},
+                                             2.0));
+        controller.setMarket(new RegulationMarket(new double[] {10},
+                                                  new double[] {36},
+                                                  new double[] {0},
+                                                  new double[] {1},
+                                                  new double[] {1}));
+        for (Server server : this.servers) {
+            controller.addServer(server);
+        }
+
+        return controller;
+    }
+
+    /**
+     * Gets the total power of the servers.
+     *
+     * @return the total power (in watts)
+     */
+    private double getPower() {
+        double power = 0.0d;
+        for (Server server : this.servers) {
+            power += server.getPower();
+        }
+
+        return power;
+    }
+
+    /**
+     * Tests that perfect tracking scores 1 and earns the full reward.
+     */
+    @Test
+    public void testPerfectTracking() {
+        RegulationTrackingController controller
+            = this.newController(0.0, this.getPower());
+        controller.track(1.0);
+        controller.track(2.0);
+
+        assertEquals(2, controller.getNSamples());
+        assertEquals(0.0, controller.getMeanTrackingError(), 1e-12);
+        assertEquals(1.0, controller.getPerformanceScore(), 1e-12);
+        assertEquals(1.0, controller.getSpeed(), 1e-12);
+        // $36/MWh for 10 W over two seconds
+        assertEquals(2 * 36 * CAPACITY / 1e6 / 3600,
+                     controller.getTotalReward(), 1e-15);
+
+        // The same samples reach the experiment's statistics
+        StatisticsCollection stats = this.experiment.getStats();
+        Statistic error = stats.getStat(StatName.REGULATION_TRACKING_ERROR);
+        Statistic score
+            = stats.getStat(StatName.REGULATION_PERFORMANCE_SCORE);
+        Statistic reward = stats.getStat(StatName.REGULATION_REWARD);
+        assertEquals(2, error.getGoodSamples());
+        assertEquals(0.0, error.getAverage(), 1e-12);
+        assertEquals(2, score.getGoodSamples());
+        assertEquals(1.0, score.getAverage(), 1e-12);
+        assertEquals(2, reward.getGoodSamples());
+        assertEquals(controller.getTotalReward(), 2 * reward.getAverage(),
+                     1e-15);
+        assertTrue(stats.allStatsConverged());
+    }
+
+    /**
+     * Tests that the controller slows down and parks sockets when above
+     * the target and undoes it when below.
+     */
+    @Test
+    public void testTurnDownAndUp() {
+        double power = this.getPower();
+        RegulationTrackingController controller
+            = this.newController(-1.0, power);
+        controller.track(1.0);
+
+        assertEquals(1.0, controller.getMeanTrackingError(), 1e-12);
+        assertEquals(0.0, controller.getPerformanceScore(), 1e-12);
+        assertEquals(0.0, controller.getTotalReward());
+        assertEquals(0.5, controller.getSpeed(), 1e-12);
+        assertTrue(controller.isParked());
+        for (Server server : this.servers) {
+            assertEquals(1, server.getSockets().size());
+        }
+        assertTrue(this.getPower() < power);
+
+        controller.setSignal(new RegDHandler(new double[] {1.0, 1.0}, 2.0));
+        controller.track(2.0);
+        assertFalse(controller.isParked());
+        assertEquals(1.0, controller.getSpeed(), 1e-12);
+        for (Server server : this.servers) {
+            assertEquals(2, server.getSockets().size());
+        }
+    }
+
+    /**
+     * Tests that with an enforcer attached sockets are only parked once
+     * the enforcer has slowed every server to the lowest speed.
+     */
+    @Test
+    public void testParkingWaitsForEnforcer() {
+        double power = this.getPower();
+        RegulationTrackingController controller
+            = this.newController(-1.0, power);
+        PowerCappingEnforcer enforcer = new PowerCappingEnforcer(
+                this.experiment, 1.0, power, power, 0.0);
+        for (Server server : this.servers) {
+            enforcer.addServer(server);
+        }
+        controller.setPowerCappingEnforcer(enforcer);
+
+        // The enforcer still has DVFS headroom
+        controller.track(1.0);
+        assertEquals(power - CAPACITY, enforcer.getGlobalCap(), 1e-12);
+        assertFalse(enforcer.isAtMinimumSpeed());
+        assertFalse(controller.isParked());
+
+        // Once it has slowed the servers as far as it can, park sockets
+        enforcer.recalculateCaps(1.0);
+        assertTrue(enforcer.isAtMinimumSpeed());
+        controller.track(2.0);
+        assertTrue(controller.isParked());
+        for (Server server : this.servers) {
+            assertEquals(1, server.getSockets().size());
+        }
+    }
+
+}
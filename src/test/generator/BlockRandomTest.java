@@ -0,0 +1,131 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package test.generator;
+
+import generator.BlockRandom;
+import generator.MTRandom;
+import generator.MersenneTwister;
+import generator.Xoshiro256StarStar;
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link BlockRandom} generators.
+ */
+public class BlockRandomTest extends TestCase {
+
+    /**
+     * Tests that the unsynchronized Mersenne Twister produces the same
+     * values as {@link MTRandom}.
+     */
+    @Test
+    public void testMersenneTwisterMatchesMTRandom() {
+        for (long seed = 1; seed < 4; seed++) {
+            MTRandom expected = new MTRandom(seed);
+            MersenneTwister actual = new MersenneTwister(seed);
+            for (int i = 0; i < 2000; i++) {
+                assertEquals(expected.nextDouble(), actual.nextDouble());
+            }
+        }
+
+        MTRandom expected = new MTRandom(7);
+        MersenneTwister actual = new MersenneTwister(7);
+        for (int i = 0; i < 2000; i++) {
+            assertEquals(expected.nextInt(), actual.nextInt());
+        }
+
+        expected.setSeed(9);
+        actual.setSeed(9);
+        for (int i = 0; i < 2000; i++) {
+            assertEquals(expected.nextDouble(), actual.nextDouble());
+        }
+    }
+
+    /**
+     * Tests that bulk generation gives the same values as one at a time.
+     */
+    @Test
+    public void testNextDoubles() {
+        BlockRandom[] bulk = {new MersenneTwister(5),
+                              new Xoshiro256StarStar(5)};
+        BlockRandom[] single = {new MersenneTwister(5),
+                                new Xoshiro256StarStar(5)};
+        for (int g = 0; g < bulk.length; g++) {
+            // Start part way through a block
+            for (int i = 0; i < 10; i++) {
+                assertEquals(single[g].nextDouble(), bulk[g].nextDouble());
+            }
+            double[] values = new double[1000];
+            bulk[g].nextDoubles(values, 1, 999);
+            for (int i = 1; i < values.length; i++) {
+                assertEquals(single[g].nextDouble(), values[i]);
+            }
+            for (int i = 0; i < 10; i++) {
+                assertEquals(single[g].nextDouble(), bulk[g].nextDouble());
+            }
+        }
+    }
+
+    /**
+     * Tests that the xoshiro generator is reproducible for a seed and
+     * that jumping gives a different stream.
+     */
+    @Test
+    public void testXoshiroStreams() {
+        Xoshiro256StarStar a = new Xoshiro256StarStar(11);
+        Xoshiro256StarStar b = new Xoshiro256StarStar(11);
+        double sum = 0.0d;
+        for (int i = 0; i < 10000; i++) {
+            double value = a.nextDouble();
+            assertEquals(value, b.nextDouble());
+            assertTrue(value >= 0.0d && value < 1.0d);
+            sum += value;
+        }
+        assertEquals(.5, sum / 10000, .01);
+
+        a.setSeed(11);
+        Xoshiro256StarStar stream = a.split();
+        b.setSeed(11);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(b.nextDouble(), stream.nextDouble());
+        }
+        b.setSeed(11);
+        b.jump();
+        int same = 0;
+        for (int i = 0; i < 100; i++) {
+            double value = a.nextDouble();
+            assertEquals(b.nextDouble(), value);
+            if (value == stream.nextDouble()) {
+                same++;
+            }
+        }
+        assertEquals(0, same);
+    }
+
+}
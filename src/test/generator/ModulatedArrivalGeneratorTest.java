@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package test.generator;
+
+import generator.ConstantGenerator;
+import generator.ExponentialGenerator;
+import generator.ModulatedArrivalGenerator;
+import generator.MersenneTwister;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link ModulatedArrivalGenerator} class.
+ */
+public class ModulatedArrivalGeneratorTest extends TestCase {
+
+    /**
+     * Tests time warping across slots, including a slot with no load,
+     * and that the trace repeats.
+     */
+    @Test
+    public void testTimeWarping() {
+        double[] rho = {.5, 0, 1};
+        ModulatedArrivalGenerator generator = new ModulatedArrivalGenerator(
+                new ConstantGenerator(null, 1.0), rho, 10.0, .5);
+        assertEquals(1.0, generator.getRateMultiplier(0));
+        assertEquals(0.0, generator.getRateMultiplier(15));
+        assertEquals(2.0, generator.getRateMultiplier(25));
+        assertEquals(1.0, generator.getRateMultiplier(35));
+
+        assertEquals(1.0, generator.next(0.0), 1e-12);
+        assertEquals(10.75, generator.next(9.5), 1e-12);
+        assertEquals(.5, generator.next(25.0), 1e-12);
+        // Continues from the end of the last arrival
+        assertEquals(10.75, generator.next(39.5), 1e-12);
+        assertEquals(.5, generator.next(), 1e-12);
+    }
+
+    /**
+     * Tests that the arrival count over the rho trace follows the trace.
+     */
+    @Test
+    public void testRhoTrace() {
+        double baseRate = 20.0;
+        double referenceRho = .5;
+        ModulatedArrivalGenerator generator = new ModulatedArrivalGenerator(
+                new ExponentialGenerator(new MersenneTwister(1), baseRate),
+                "workloads/RhoTrace1.csv", referenceRho);
+
+        double period = 2400.0;
+        double expected = 0.0d;
+        for (double t = 1.0; t < period; t += 2.0) {
+            expected += 2.0 * baseRate * generator.getRateMultiplier(t);
+        }
+
+        double time = 0.0d;
+        int arrivals = 0;
+        while (true) {
+            time += generator.next(time);
+            if (time >= period) {
+                break;
+            }
+            arrivals++;
+        }
+        assertEquals(1.0, arrivals / expected, .02);
+    }
+
+}
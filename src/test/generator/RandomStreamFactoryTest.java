@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package test.generator;
+
+import generator.RandomStreamFactory;
+import generator.Xoshiro256StarStar;
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import core.Sim;
+
+/**
+ * Tests for the {@link RandomStreamFactory} class.
+ */
+public class RandomStreamFactoryTest extends TestCase {
+
+    /**
+     * Tests that streams start at the expected jump-ahead offsets.
+     */
+    @Test
+    public void testSubstreams() {
+        RandomStreamFactory factory = new RandomStreamFactory(3);
+        Xoshiro256StarStar first = factory.newStream();
+        Xoshiro256StarStar second = factory.newStream();
+        assertEquals(2, factory.getNStreams());
+
+        Xoshiro256StarStar expected = new Xoshiro256StarStar(3);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(expected.nextLong(), first.nextLong());
+        }
+        expected.setSeed(3);
+        expected.jump();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(expected.nextLong(), second.nextLong());
+        }
+    }
+
+    /**
+     * Tests that moving to another replica gives the same streams as a
+     * factory created for that replica.
+     */
+    @Test
+    public void testSetReplica() {
+        RandomStreamFactory factory = new RandomStreamFactory(3);
+        Xoshiro256StarStar first = factory.newStream();
+        Xoshiro256StarStar second = factory.newStream();
+        first.nextDouble();
+        RandomStreamFactory copy = Sim.deepCopy(factory);
+        factory.setReplica(2);
+        copy.setReplica(2);
+        assertEquals(2, factory.getReplica());
+
+        Xoshiro256StarStar start = new Xoshiro256StarStar(3);
+        start.longJump();
+        start.longJump();
+        Xoshiro256StarStar expectedFirst = start.split();
+        Xoshiro256StarStar expectedSecond = start.split();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(expectedFirst.nextDouble(), first.nextDouble());
+            assertEquals(expectedSecond.nextDouble(), second.nextDouble());
+        }
+
+        // Streams handed out after moving continue the replica's block
+        Xoshiro256StarStar third = factory.newStream();
+        Xoshiro256StarStar copyThird = copy.newStream();
+        for (int i = 0; i < 100; i++) {
+            double value = third.nextDouble();
+            assertEquals(value, copyThird.nextDouble());
+            assertTrue(value != second.nextDouble());
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package test.generator;
+
+import generator.Generator;
+import generator.TraceGenerator;
+
+import java.io.File;
+import java.io.PrintWriter;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import core.Sim;
+
+/**
+ * Tests for the {@link TraceGenerator} class.
+ */
+public class TraceGeneratorTest extends TestCase {
+
+    /** The number of records in the test trace. */
+    private static final int N_RECORDS = 10;
+
+    /**
+     * Writes a trace where record i has interarrival time i and
+     * service time 100 + i.
+     *
+     * @return the name of the trace file
+     * @throws Exception if the file can't be written
+     */
+    private String writeTrace() throws Exception {
+        File file = File.createTempFile("test", ".trace");
+        file.deleteOnExit();
+        PrintWriter writer = new PrintWriter(file);
+        writer.println("# interarrival service");
+        for (int i = 0; i < N_RECORDS; i++) {
+            writer.println(i + " \t" + (100 + i));
+            if (i == 4) {
+                writer.println();
+            }
+        }
+        writer.close();
+
+        return file.getPath();
+    }
+
+    /**
+     * Tests looping and scaling a trace across block boundaries.
+     *
+     * @throws Exception if the trace can't be written
+     */
+    @Test
+    public void testLoopAndScale() throws Exception {
+        TraceGenerator trace = new TraceGenerator(this.writeTrace(), 2.0,
+                                                  .5, true, 3);
+        Generator service = trace.getServiceGenerator();
+        for (int i = 0; i < 3 * N_RECORDS + 4; i++) {
+            int record = i % N_RECORDS;
+            assertEquals(2.0 * record, trace.next());
+            assertEquals(.5 * (100 + record), service.next());
+        }
+        assertEquals(3 * N_RECORDS + 4, trace.getRecordsConsumed());
+        trace.close();
+    }
+
+    /**
+     * Tests that a copy of the generator resumes at the same record.
+     *
+     * @throws Exception if the trace can't be written
+     */
+    @Test
+    public void testCopyResumes() throws Exception {
+        TraceGenerator trace = new TraceGenerator(this.writeTrace(), 1.0,
+                                                  1.0, false, 4);
+        for (int i = 0; i < 6; i++) {
+            trace.next();
+        }
+        TraceGenerator copy = Sim.deepCopy(trace);
+        for (int i = 6; i < N_RECORDS; i++) {
+            assertEquals((double) i, trace.next());
+            assertEquals((double) i, copy.next());
+            assertEquals(100.0 + i, copy.getServiceGenerator().next());
+        }
+        trace.close();
+
+        boolean ranOut = false;
+        try {
+            copy.next();
+        } catch (RuntimeException e) {
+            ranOut = true;
+        }
+        assertTrue(ranOut);
+    }
+
+}
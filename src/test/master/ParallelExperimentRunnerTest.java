@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package test.master;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import master.ParallelExperimentRunner;
+
+import org.junit.Test;
+
+import test.TestExperiments;
+
+import stat.Statistic;
+import stat.StatisticsCollection;
+import core.Experiment;
+import core.ExperimentOutput;
+import core.Constants.StatName;
+
+/**
+ * Tests the {@link ParallelExperimentRunner}.
+ */
+public class ParallelExperimentRunnerTest extends TestCase {
+
+    /**
+     * Creates an M/M/1 experiment at 50% load whose mean sojourn
+     * time is 1 second.
+     *
+     * @return the experiment
+     */
+    private static Experiment createExperiment() {
+        ExperimentOutput output = new ExperimentOutput();
+        output.addOutput(StatName.SOJOURN_TIME, .05, .9, .05, 1000);
+
+        return TestExperiments.singleExponentialServer("Replica test", output,
+                                                       1.0, 2.0);
+    }
+
+    /**
+     * Tests that the replicas share histogram bins, each publish their
+     * final statistics when stopped and that those combine into the
+     * returned statistics.
+     */
+    @Test
+    public void testReplicasCombine() {
+        ParallelExperimentRunner runner
+            = new ParallelExperimentRunner(createExperiment(), 3);
+        runner.setSnapshotInterval(1000);
+        runner.setPollInterval(10);
+        StatisticsCollection combined = runner.run();
+
+        Experiment[] replicas = runner.getReplicas();
+        assertEquals(3, replicas.length);
+        double[] bins = replicas[0].getStats().getStat(StatName.SOJOURN_TIME)
+                            .getHistogramXValues();
+        assertNotNull(bins);
+        long goodSamples = 0;
+        for (int i = 0; i < replicas.length; i++) {
+            Statistic stat
+                = replicas[i].getStats().getStat(StatName.SOJOURN_TIME);
+            assertTrue(Arrays.equals(bins, stat.getHistogramXValues()));
+
+            // The last snapshot is taken as the replica stops
+            Statistic snapshot = replicas[i].getStatsSnapshot()
+                                     .getStat(StatName.SOJOURN_TIME);
+            assertEquals(stat.getGoodSamples(), snapshot.getGoodSamples());
+            assertTrue(stat.getGoodSamples() > 0);
+            goodSamples += stat.getGoodSamples();
+        }
+
+        Statistic sojourn = combined.getStat(StatName.SOJOURN_TIME);
+        assertEquals(goodSamples, sojourn.getGoodSamples());
+        assertEquals(1.0, sojourn.getAverage(), .15);
+    }
+
+    /**
+     * Tests that replicas draw different random numbers.
+     */
+    @Test
+    public void testReplicasDiffer() {
+        ParallelExperimentRunner runner
+            = new ParallelExperimentRunner(createExperiment(), 2);
+        runner.setPollInterval(10);
+        runner.run();
+
+        Experiment[] replicas = runner.getReplicas();
+        assertFalse(replicas[0].getStats().getStat(StatName.SOJOURN_TIME)
+                        .getAverage()
+                    == replicas[1].getStats().getStat(StatName.SOJOURN_TIME)
+                        .getAverage());
+    }
+
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package test.master;
+
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+import master.ShardedExperimentRunner;
+import master.ShardedExperimentRunner.BarrierAction;
+
+import org.junit.Test;
+
+import test.TestExperiments;
+
+import core.Experiment;
+import core.ExperimentOutput;
+
+/**
+ * Tests the {@link ShardedExperimentRunner}.
+ */
+public class ShardedExperimentRunnerTest extends TestCase {
+
+    /**
+     * Records the time of every barrier and checks every shard
+     * has reached it.
+     */
+    private static final class RecordingAction implements BarrierAction {
+
+        /** The serialization id. */
+        private static final long serialVersionUID = 1L;
+
+        /** The shards being run. */
+        private Experiment[] shards;
+
+        /** The times of the barriers. */
+        private ArrayList<Double> times;
+
+        /**
+         * Creates a new RecordingAction.
+         *
+         * @param theShards - the shards being run
+         */
+        private RecordingAction(final Experiment[] theShards) {
+            this.shards = theShards;
+            this.times = new ArrayList<Double>();
+        }
+
+        @Override
+        public void atBarrier(final double time) {
+            for (int i = 0; i < this.shards.length; i++) {
+                assertEquals(time, this.shards[i].getCurrentTime());
+            }
+            this.times.add(time);
+        }
+
+    }
+
+    /**
+     * Creates an experiment with servers that get a job every second.
+     *
+     * @param nServers - the number of servers
+     * @return the experiment
+     */
+    private static Experiment createExperiment(final int nServers) {
+        Experiment experiment = TestExperiments.create("Shard test",
+                new ExperimentOutput());
+        TestExperiments.addServers(experiment, nServers, 1, 1, 1.0, 0.25);
+
+        return experiment;
+    }
+
+    /**
+     * Tests that the shards meet at every barrier and process the
+     * same events as one experiment with all the servers.
+     */
+    @Test
+    public void testBarriers() {
+        Experiment[] shards = new Experiment[3];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = createExperiment(2);
+        }
+        RecordingAction action = new RecordingAction(shards);
+        ShardedExperimentRunner runner
+            = new ShardedExperimentRunner(shards, 1.0);
+        runner.addBarrierAction(action);
+        runner.setTimeLimit(5.0);
+        runner.setPollInterval(Long.MAX_VALUE);
+        runner.run();
+
+        assertEquals(5, action.times.size());
+        long nEvents = 0;
+        for (int i = 0; i < action.times.size(); i++) {
+            assertEquals(i + 1.0, action.times.get(i));
+        }
+        for (int i = 0; i < shards.length; i++) {
+            assertTrue(shards[i].getNEventsSimulated() > 0);
+            nEvents += shards[i].getNEventsSimulated();
+        }
+
+        Experiment sequential = createExperiment(6);
+        sequential.initialize();
+        sequential.runUntil(5.0);
+        assertEquals(sequential.getNEventsSimulated(), nEvents);
+        assertEquals(5.0, sequential.getCurrentTime());
+    }
+
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package test.math;
+
+import java.util.Random;
+
+import math.EmpiricalDistribution;
+
+/**
+ * Compares the time of guided quantile lookups in
+ * {@link EmpiricalDistribution#getQuantile(double)} with the binary
+ * search in {@link EmpiricalDistribution#getQuantileBySearch(double)}.
+ * Usage: EmpiricalDistributionBenchmark cdfFile [nLookups]
+ */
+public final class EmpiricalDistributionBenchmark {
+
+    /** The number of lookups if none is given. */
+    private static final int DEFAULT_LOOKUPS = 10000000;
+
+    /** The number of times each method is timed. */
+    private static final int ROUNDS = 5;
+
+    /**
+     * Not used.
+     */
+    private EmpiricalDistributionBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args - the cdf file and optionally the number of lookups
+     */
+    public static void main(final String[] args) {
+        EmpiricalDistribution distribution
+            = EmpiricalDistribution.loadDistribution(args[0]);
+        int nLookups = DEFAULT_LOOKUPS;
+        if (args.length > 1) {
+            nLookups = Integer.parseInt(args[1]);
+        }
+        double[] quantiles = new double[nLookups];
+        Random random = new Random(1);
+        for (int i = 0; i < nLookups; i++) {
+            quantiles[i] = random.nextDouble();
+        }
+        System.out.println(args[0] + ": " + distribution.getYs().length
+                           + " CDF points, " + nLookups + " lookups");
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            double searchSum = 0.0d;
+            for (int i = 0; i < nLookups; i++) {
+                searchSum += distribution.getQuantileBySearch(quantiles[i]);
+            }
+            long searchTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            double guideSum = 0.0d;
+            for (int i = 0; i < nLookups; i++) {
+                guideSum += distribution.getQuantile(quantiles[i]);
+            }
+            long guideTime = System.nanoTime() - start;
+
+            if (searchSum != guideSum) {
+                System.out.println("Lookups differ: " + searchSum
+                                   + " vs " + guideSum);
+            }
+            System.out.println("search " + (double) searchTime / nLookups
+                               + " ns/lookup, guide table "
+                               + (double) guideTime / nLookups
+                               + " ns/lookup");
+        }
+    }
+
+}
@@ -0,0 +1,152 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package test.math;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import math.EmpiricalDistribution;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link EmpiricalDistribution} class.
+ */
+public class EmpiricalDistributionTest extends TestCase {
+
+    /**
+     * Checks the guided quantile lookup gives exactly the same values as
+     * the binary search for random quantiles and every CDF value.
+     *
+     * @param distribution - the distribution to check
+     */
+    private void checkQuantiles(final EmpiricalDistribution distribution) {
+        Random random = new Random(1);
+        for (int i = 0; i < 100000; i++) {
+            double quantile = random.nextDouble();
+            assertEquals(distribution.getQuantileBySearch(quantile),
+                         distribution.getQuantile(quantile));
+        }
+
+        double[] ys = distribution.getYs();
+        for (int i = 0; i < ys.length; i++) {
+            assertEquals(distribution.getQuantileBySearch(ys[i]),
+                         distribution.getQuantile(ys[i]));
+        }
+        assertEquals(distribution.getQuantileBySearch(1.0),
+                     distribution.getQuantile(1.0));
+        assertEquals(distribution.getQuantileBySearch(1.5),
+                     distribution.getQuantile(1.5));
+    }
+
+    /**
+     * Tests quantile lookups on a smooth distribution.
+     */
+    @Test
+    public void testGetQuantileExponential() {
+        this.checkQuantiles(
+                EmpiricalDistribution.getExponentialDistribution(2.0, 5000,
+                                                                 0.0, 10.0));
+    }
+
+    /**
+     * Tests quantile lookups on a distribution with flat regions and
+     * steps in its CDF.
+     */
+    @Test
+    public void testGetQuantileSteps() {
+        double[] xs = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9};
+        double[] ys = {0, .5, .5, .5, .9, .9, .95, .999, 1.0, 1.0};
+        this.checkQuantiles(new EmpiricalDistribution(xs, ys));
+    }
+
+    /**
+     * Tests that a distribution saved in the binary format loads back
+     * the same, scaled, and that loads are cached.
+     *
+     * @throws Exception if the temporary files can't be written
+     */
+    @Test
+    public void testBinaryDistribution() throws Exception {
+        File textFile = File.createTempFile("test", ".cdf");
+        textFile.deleteOnExit();
+        PrintWriter writer = new PrintWriter(textFile);
+        writer.println("0 0");
+        writer.println("1.5 0.25");
+        writer.println("2 0.75");
+        writer.println("4 1.0");
+        writer.close();
+        String textName = textFile.getPath();
+        String binaryName = textName + "b";
+        new File(binaryName).deleteOnExit();
+
+        EmpiricalDistribution text
+            = EmpiricalDistribution.loadDistribution(textName, 2.0);
+        assertSame(text,
+                   EmpiricalDistribution.loadDistribution(textName, 2.0));
+        text.saveBinaryDistribution(binaryName);
+
+        EmpiricalDistribution binary
+            = EmpiricalDistribution.loadDistribution(binaryName, .5);
+        assertNotSame(binary,
+                      EmpiricalDistribution.loadDistribution(binaryName, 1));
+        assertEquals(4, binary.getXs().length);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(text.getXs()[i] * .5, binary.getXs()[i]);
+            assertEquals(text.getYs()[i], binary.getYs()[i]);
+        }
+        assertEquals(text.getMean() * .5, binary.getMean(), 1e-12);
+
+        // The binary copy (saved with the x values doubled) is only read
+        // when it is asked for by name
+        EmpiricalDistribution.clearDistributionCache();
+        EmpiricalDistribution fromText
+            = EmpiricalDistribution.loadDistribution(textName, 1.0);
+        assertEquals(4.0, fromText.getXs()[3]);
+        EmpiricalDistribution.clearDistributionCache();
+    }
+
+    /**
+     * Tests that callers can't change a shared distribution through the
+     * arrays it returns.
+     */
+    @Test
+    public void testValuesAreCopies() {
+        double[] xs = {0, 1, 2};
+        double[] ys = {0, .5, 1.0};
+        EmpiricalDistribution distribution = new EmpiricalDistribution(xs, ys);
+        distribution.getXs()[2] = 10.0;
+        distribution.getYs()[1] = 0.0;
+        assertEquals(2.0, distribution.getXs()[2]);
+        assertEquals(.5, distribution.getYs()[1]);
+        assertEquals(2.0, distribution.getQuantile(1.0));
+    }
+
+}
@@ -41,6 +41,7 @@ import org.junit.runners.Suite.SuiteClasses;
  */
 @RunWith(Suite.class)
 @SuiteClasses({ HistogramTest.class,
+                 LogLinearHistogramTest.class,
                  SequenceTest.class,
                  SimpleStatisticTest.class,
                  StatisticTest.class })
@@ -125,4 +125,33 @@ public class HistogramTest extends TestCase {
         assertEquals(4, yValues[9], .001);
     }
 
+    /**
+     * Tests quantile and cdf lookups stay correct as samples are
+     * added between lookups and after combining.
+     */
+    @Test
+    public void testInterleavedLookups() {
+        int nBins = 1000;
+        Histogram histogram = new Histogram(nBins, 0, nBins);
+        Histogram other = new Histogram(nBins, 0, nBins);
+        for (int i = 0; i < nBins; i++) {
+            // Fill each bin once, in a scrambled order
+            double value = (i * 7919) % nBins + 1;
+            histogram.addSample(value);
+            other.addSample(value);
+            if (i == 0) {
+                assertEquals(value, histogram.getQuantile(1.0), .001);
+            }
+        }
+
+        assertEquals(500, histogram.getQuantile(.5), .001);
+        assertEquals(950, histogram.getQuantile(.95), .001);
+        assertEquals(.25, histogram.getCdfValue(250), .001);
+
+        Histogram combined = histogram.combineHistogram(other);
+        assertEquals(950, combined.getQuantile(.95), .001);
+        combined.addSample(nBins * 10);
+        assertEquals(nBins, combined.getQuantile(1.0), .001);
+    }
+
 }
@@ -0,0 +1,175 @@
+/**
+ * Copyright (c) 2011 The Regents of The University of Michigan
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met: redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer;
+ * redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution;
+ * neither the name of the copyright holders nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package test.stat;
+
+import generator.ExponentialGenerator;
+import generator.MTRandom;
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import stat.LogLinearHistogram;
+import stat.Statistic;
+import stat.Statistic.HistogramType;
+import stat.StatisticsCollection;
+import core.Constants.StatName;
+
+/**
+ * Test for the {@link LogLinearHistogram} class.
+ */
+public class LogLinearHistogramTest extends TestCase {
+
+    /**
+     * Tests quantiles stay within the relative error of a bin
+     * over a wide range of magnitudes.
+     */
+    @Test
+    public void testQuantileRelativeError() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        int nSamples = 100000;
+        // Uniform in log space over twelve orders of magnitude
+        for (int i = 0; i < nSamples; i++) {
+            histogram.addSample(Math.pow(10, -6 + 12.0 * i / nSamples));
+        }
+
+        double maxError = Math.pow(2, -LogLinearHistogram
+                                          .DEFAULT_SIGNIFICANT_BITS);
+        double[] quantiles = {.01, .5, .9, .99, .999};
+        for (int i = 0; i < quantiles.length; i++) {
+            double expected = Math.pow(10, -6 + 12.0 * quantiles[i]);
+            double actual = histogram.getQuantile(quantiles[i]);
+            assertEquals(expected, actual, expected * maxError);
+            assertEquals(quantiles[i], histogram.getCdfValue(expected),
+                         .001);
+        }
+    }
+
+    /**
+     * Tests samples below the lowest value and far above earlier
+     * samples are kept.
+     */
+    @Test
+    public void testZeroAndExpandingRange() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        histogram.addSample(1.0);
+        histogram.addSample(0.0);
+        histogram.addSample(1e6);
+        histogram.addSample(1e-3);
+
+        assertEquals(4, histogram.getTotalCount());
+        assertEquals(0.0, histogram.getQuantile(.2), 0.0);
+        assertEquals(.25, histogram.getCdfValue(0.0), .001);
+        assertEquals(1e6, histogram.getQuantile(1.0), 1e6 / 100);
+    }
+
+    /**
+     * Tests combining histograms with different ranges.
+     */
+    @Test
+    public void testCombine() {
+        LogLinearHistogram low = new LogLinearHistogram();
+        LogLinearHistogram high = new LogLinearHistogram();
+        for (int i = 1; i <= 100; i++) {
+            low.addSample(i);
+            high.addSample(i * 1000);
+        }
+
+        LogLinearHistogram combined = low.combineHistogram(high);
+        assertEquals(200, combined.getTotalCount());
+        assertEquals(.5, combined.getCdfValue(500), .001);
+        assertEquals(100000, combined.getQuantile(1.0), 1000);
+        assertEquals(50, combined.getQuantile(.25), 1);
+    }
+
+    /**
+     * Tests quantile and cdf lookups stay correct as samples are added
+     * between lookups, growing the range both up and down, and after
+     * combining.
+     */
+    @Test
+    public void testInterleavedLookups() {
+        int nSamples = 4096;
+        double maxError = Math.pow(2, -LogLinearHistogram
+                                          .DEFAULT_SIGNIFICANT_BITS);
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        for (int i = 0; i < nSamples; i++) {
+            // Each value in 1..nSamples once, in a scrambled order that
+            // starts in the middle of the range
+            double value = (i * 7919 + nSamples / 2) % nSamples + 1;
+            histogram.addSample(value);
+            if (i == 0) {
+                assertEquals(value, histogram.getQuantile(.5),
+                             value * maxError);
+                assertEquals(1.0, histogram.getCdfValue(value * 2), 0.0);
+                assertEquals(0.0, histogram.getCdfValue(value / 2), 0.0);
+            }
+        }
+
+        for (int k = 1; k <= 100; k++) {
+            double quantile = k / 100.0;
+            double expected = quantile * nSamples;
+            assertEquals(expected, histogram.getQuantile(quantile),
+                         expected * maxError + 1);
+            assertEquals(quantile, histogram.getCdfValue(expected),
+                         maxError + 1.0 / nSamples);
+        }
+
+        LogLinearHistogram combined = histogram.combineHistogram(histogram);
+        assertEquals(.5, combined.getCdfValue(nSamples / 2), .01);
+        combined.addSample(nSamples * 1000);
+        combined.addSample(1e-3);
+        assertEquals(nSamples * 1000, combined.getQuantile(1.0),
+                     nSamples * 1000 * maxError);
+        assertEquals(1e-3, combined.getQuantile(0.0001), 1e-3 * maxError);
+        assertEquals(.5, combined.getCdfValue(nSamples / 2), .01);
+    }
+
+    /**
+     * Tests a statistic converges to the right tail quantile
+     * using a log-linear histogram.
+     */
+    @Test
+    public void testStatisticTailQuantile() {
+        double lambda = .5;
+        ExponentialGenerator exp = new ExponentialGenerator(new MTRandom(3),
+                lambda);
+        StatisticsCollection statCollection = new StatisticsCollection();
+        Statistic stat = new Statistic(statCollection, StatName.SOJOURN_TIME,
+                10, .05, .99, .05);
+        stat.setHistogramType(HistogramType.LOG_LINEAR);
+        stat.setOtherStatsWarmed(true);
+        while (!stat.isConverged() || stat.getGoodSamples() < 100000) {
+            stat.addSample(exp.next());
+        }
+
+        double expected = -Math.log(1 - .99) / lambda;
+        assertEquals(expected, stat.getQuantile(.99), .05 * expected);
+        assertNull(stat.getHistogramXValues());
+    }
+
+}
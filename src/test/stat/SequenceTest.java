@@ -30,6 +30,8 @@
  */
 package test.stat;
 
+import java.util.Random;
+
 import junit.framework.TestCase;
 
 import org.junit.Test;
@@ -145,4 +147,104 @@ public class SequenceTest extends TestCase {
         assertEquals(7, spaced[2], .001);
     }
 
+    /**
+     * Tests {@link Sequence#getRunCounts(double[], int, int, int)}
+     * matches counting runs of a copied spaced sequence.
+     */
+    @Test
+    public void testGetSpacedRunCounts() {
+        Sequence sequence = new Sequence(4);
+        for (int i = 0; i < 1000; i++) {
+            sequence.insert(Math.sin(i * .37) + ((i * 7919) % 13) / 13.0);
+        }
+        assertEquals(1000, sequence.getSize());
+        double[] values = sequence.getValues();
+
+        for (int spacing = 1; spacing <= 7; spacing++) {
+            int[] expected = Sequence.getRunCounts(
+                    Sequence.getSpacedSequence(values, spacing), 6);
+            int[] actual = Sequence.getRunCounts(values, values.length,
+                                                 spacing, 6);
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals(expected[i], actual[i]);
+            }
+        }
+    }
+
+    /**
+     * Finds the lag spacing the way it was found before runs were
+     * counted in place: by copying out each spaced sequence in turn.
+     *
+     * @param values - the values in the sequence
+     * @param maxLagSpacing - the maximum lag spacing
+     * @param maxRun - the maximum run to consider
+     * @param confidence - the confidence used for the test of independence
+     * @return the minimum lag spacing required, or -1 if there is none
+     */
+    private static int referenceLagSpacing(final double[] values,
+                                           final int maxLagSpacing,
+                                           final int maxRun,
+                                           final double confidence) {
+        for (int spacing = 1; spacing <= maxLagSpacing; spacing++) {
+            int[] runCounts = Sequence.getRunCounts(
+                    Sequence.getSpacedSequence(values, spacing), maxRun);
+            if (Sequence.isIndependentByRunsTest(runCounts, confidence)) {
+                return spacing;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Tests {@link Sequence#calculateLagSpacing(int, int, double)} picks
+     * the same spacing as copying out every spaced sequence.
+     */
+    @Test
+    public void testCalculateLagSpacingMatchesReference() {
+        Random random = new Random(7);
+        double[] correlations = {0.0, .5, .8, .9};
+        int nChecked = 0;
+        for (int c = 0; c < correlations.length; c++) {
+            for (int trial = 0; trial < 5; trial++) {
+                Sequence sequence = new Sequence();
+                double last = 0.0d;
+                for (int i = 0; i < 5000; i++) {
+                    last = correlations[c] * last + random.nextGaussian();
+                    sequence.insert(last);
+                }
+
+                int expected = referenceLagSpacing(sequence.getValues(), 40,
+                                                   6, .95);
+                if (expected > 0) {
+                    assertEquals(expected,
+                                 sequence.calculateLagSpacing(40, 6, .95));
+                    nChecked++;
+                }
+            }
+        }
+        assertTrue(nChecked > 10);
+    }
+
+    /**
+     * Tests the lag spacing found from the autocorrelation.
+     */
+    @Test
+    public void testCalculateLagSpacingByAutocorrelation() {
+        Random random = new Random(42);
+        Sequence independent = new Sequence();
+        Sequence correlated = new Sequence();
+        double last = 0.0d;
+        for (int i = 0; i < 2500; i++) {
+            independent.insert(random.nextDouble());
+            last = .9 * last + random.nextGaussian();
+            correlated.insert(last);
+        }
+
+        assertEquals(1, independent.calculateLagSpacingByAutocorrelation(40,
+                                                                       .99));
+        assertTrue(correlated.calculateLagSpacingByAutocorrelation(40, .99)
+                   > 1);
+    }
+
 }
@@ -96,4 +96,31 @@ public class StatisticTest extends TestCase {
         assertEquals(expectedValue, actualValue, tolerance * expectedValue);
     }
 
+    /**
+     * Tests that a statistics collection tracks when its
+     * statistics reach steady state and converge.
+     */
+    @Test
+    public void testConvergenceTracking() {
+        ExponentialGenerator exp = new ExponentialGenerator(new MTRandom(1),
+                .5);
+        StatisticsCollection statCollection = new StatisticsCollection();
+        Statistic stat = new Statistic(statCollection, StatName.SOJOURN_TIME,
+                10, .05, .95, .05);
+        statCollection.addStatistic(StatName.SOJOURN_TIME, stat);
+        statCollection.setConvergenceCheckInterval(10);
+        stat.setOtherStatsWarmed(true);
+        assertFalse(statCollection.allStatsSteadyState());
+        assertFalse(statCollection.allStatsConverged());
+
+        while (!statCollection.allStatsConverged()) {
+            stat.addSample(exp.next());
+            if (stat.isSteadyState()) {
+                assertTrue(statCollection.allStatsSteadyState());
+            }
+        }
+        assertTrue(stat.isConverged());
+        assertEquals(0, stat.getGoodSamples() % 10);
+    }
+
 }